@@ -0,0 +1,91 @@
+package fr.github.vera.benchmarks;
+
+import fr.github.vera.model.Answer;
+import fr.github.vera.model.History;
+import fr.github.vera.model.Survey;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Jeux de données déterministes partagés par les benchmarks
+public final class BenchmarkData {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    public static List<Map<String, Object>> surveyRows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("name", "Survey " + i);
+            row.put("anonymization", i % 2 == 0 ? "full" : "none");
+            row.put("description", "Description du questionnaire numéro " + i);
+            row.put("id_user", i % 50 + 1);
+            row.put("is_quiz", i % 3 == 0);
+            row.put("is_active", true);
+            row.put("allow_editing", false);
+            row.put("is_public", i % 5 == 0);
+            row.put("share_token", "tok-" + Integer.toHexString(i * 7919));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public static List<Map<String, Object>> answerRows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("id_question", i % 20 + 1);
+            row.put("is_anonymous", i % 4 == 0);
+            row.put("original_answer", "{\"value\":\"réponse " + i + "\"}");
+            row.put("anonymous_answer", null);
+            row.put("respondent_id", "resp-" + i % 300);
+            row.put("is_correct", i % 2 == 0);
+            row.put("submitted_at", Timestamp.valueOf(NOW.plusSeconds(i)));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public static List<Survey> surveys(int count) {
+        List<Survey> surveys = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            surveys.add(new Survey(i, "Survey " + i, "none", "Description du questionnaire numéro " + i,
+                    i % 50 + 1, i % 3 == 0, true, false, i % 5 == 0, "tok-" + Integer.toHexString(i * 7919)));
+        }
+        return surveys;
+    }
+
+    public static List<Answer> answers(int count) {
+        List<Answer> answers = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Answer answer = new Answer();
+            answer.setId(i);
+            answer.setIdQuestion(i % 20 + 1);
+            answer.setAnonymous(i % 4 == 0);
+            answer.setOriginalAnswer("{\"value\":\"réponse " + i + "\"}");
+            answer.setRespondentId("resp-" + i % 300);
+            answer.setIsCorrect(i % 2 == 0);
+            answer.setSubmittedAt(NOW.plusSeconds(i));
+            answers.add(answer);
+        }
+        return answers;
+    }
+
+    public static List<History> histories(int count) {
+        List<History> histories = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String snapshot = "{\"name\":\"Survey " + i + "\",\"description\":\"Description " + i
+                    + "\",\"is_active\":true,\"is_public\":false}";
+            histories.add(new History(i, i % 100 + 1, "UPDATE", snapshot, i % 50 + 1, NOW.plusMinutes(i)));
+        }
+        return histories;
+    }
+}
@@ -0,0 +1,63 @@
+package fr.github.vera.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+// ResultSet en mémoire (proxy) : mesure le mapping sans le coût réseau/driver
+public final class InMemoryResultSet {
+
+    private InMemoryResultSet() {
+    }
+
+    public static ResultSet of(List<Map<String, Object>> rows) {
+        int[] cursor = {-1};
+        boolean[] lastWasNull = {false};
+
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    switch (name) {
+                        case "next":
+                            return ++cursor[0] < rows.size();
+                        case "beforeFirst":
+                            cursor[0] = -1;
+                            return null;
+                        case "close":
+                            return null;
+                        case "isClosed":
+                            return false;
+                        case "wasNull":
+                            return lastWasNull[0];
+                        default:
+                            break;
+                    }
+
+                    if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof String column) {
+                        Object value = rows.get(cursor[0]).get(column);
+                        lastWasNull[0] = value == null;
+                        return convert(name, value);
+                    }
+                    throw new SQLException("Non supporté par InMemoryResultSet: " + name);
+                });
+    }
+
+    private static Object convert(String getter, Object value) {
+        return switch (getter) {
+            case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+            case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+            case "getDouble" -> value == null ? 0d : ((Number) value).doubleValue();
+            case "getFloat" -> value == null ? 0f : ((Number) value).floatValue();
+            case "getBoolean" -> value != null && (Boolean) value;
+            case "getString" -> value == null ? null : value.toString();
+            case "getTimestamp" -> value;
+            case "getDate" -> value == null ? null : new java.sql.Date(((Timestamp) value).getTime());
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package fr.github.vera.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.github.vera.config.JerseyConfig;
+import fr.github.vera.model.Answer;
+import fr.github.vera.model.History;
+import fr.github.vera.model.Survey;
+import fr.github.vera.response.ListResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private ListResponse<Survey> surveys;
+    private ListResponse<Answer> answers;
+    private ListResponse<History> histories;
+
+    @Setup
+    public void setup() {
+        // Même configuration Jackson que l'API
+        mapper = new JerseyConfig.ObjectMapperContextResolver().getContext(ListResponse.class);
+        surveys = new ListResponse<>(BenchmarkData.surveys(size));
+        answers = new ListResponse<>(BenchmarkData.answers(size));
+        histories = new ListResponse<>(BenchmarkData.histories(size));
+    }
+
+    @Benchmark
+    public byte[] serializeSurveys() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(surveys);
+    }
+
+    @Benchmark
+    public byte[] serializeAnswers() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(answers);
+    }
+
+    @Benchmark
+    public byte[] serializeHistories() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(histories);
+    }
+}
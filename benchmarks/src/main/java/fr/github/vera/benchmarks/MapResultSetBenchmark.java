@@ -0,0 +1,55 @@
+package fr.github.vera.benchmarks;
+
+import fr.github.vera.database.BaseRepository;
+import fr.github.vera.model.Answer;
+import fr.github.vera.model.Identifiable;
+import fr.github.vera.model.Survey;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class MapResultSetBenchmark {
+
+    @Param({"1", "100"})
+    private int rows;
+
+    private List<Map<String, Object>> surveyRows;
+    private List<Map<String, Object>> answerRows;
+    private MappingProbe<Survey> surveyProbe;
+    private MappingProbe<Answer> answerProbe;
+
+    @Setup
+    public void setup() {
+        surveyRows = BenchmarkData.surveyRows(rows);
+        answerRows = BenchmarkData.answerRows(rows);
+        surveyProbe = new MappingProbe<>("survey", Survey.class);
+        answerProbe = new MappingProbe<>("answer", Answer.class);
+    }
+
+    @Benchmark
+    public void mapSurveys(Blackhole blackhole) throws SQLException {
+        blackhole.consume(surveyProbe.mapResultSetList(InMemoryResultSet.of(surveyRows)));
+    }
+
+    @Benchmark
+    public void mapAnswers(Blackhole blackhole) throws SQLException {
+        blackhole.consume(answerProbe.mapResultSetList(InMemoryResultSet.of(answerRows)));
+    }
+
+    // BaseRepository est abstraite : sous-classe minimale pour appeler le mapping réflexif sans base de données
+    static class MappingProbe<T extends Identifiable<Integer>> extends BaseRepository<T, Integer> {
+        MappingProbe(String tableName, Class<T> entityClass) {
+            super(tableName, entityClass);
+        }
+    }
+}
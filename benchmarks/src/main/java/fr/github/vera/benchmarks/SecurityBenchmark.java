@@ -0,0 +1,44 @@
+package fr.github.vera.benchmarks;
+
+import fr.github.vera.security.JwtService;
+import fr.github.vera.security.PasswordEncoder;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class SecurityBenchmark {
+
+    private JwtService jwtService;
+    private PasswordEncoder passwordEncoder;
+    private String accessToken;
+    private String passwordHash;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService();
+        passwordEncoder = new PasswordEncoder();
+        accessToken = jwtService.generateAccessToken(42, "bench@vera.fr", false);
+        passwordHash = passwordEncoder.hashPassword("Motdepasse-Bench-2025");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Claims validateToken() {
+        return jwtService.validateToken(accessToken);
+    }
+
+    // Argon2id 64 Mo : quelques dizaines de ms par appel
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 3, time = 2)
+    public boolean verifyPassword() {
+        return passwordEncoder.verifyPassword("Motdepasse-Bench-2025", passwordHash);
+    }
+}
@@ -0,0 +1,45 @@
+package fr.github.vera.benchmarks;
+
+import fr.github.vera.database.DynamicInsertBuilder;
+import fr.github.vera.database.DynamicUpdateBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class SqlBuilderBenchmark {
+
+    @Benchmark
+    public void buildInsert(Blackhole blackhole) {
+        DynamicInsertBuilder builder = new DynamicInsertBuilder("survey")
+                .set("name", "Survey")
+                .set("anonymization", "none")
+                .set("description", "Description du questionnaire")
+                .set("id_user", 42)
+                .set("is_quiz", false)
+                .set("is_active", true)
+                .set("allow_editing", false)
+                .set("is_public", true)
+                .set("share_token", "tok-1f2e3d");
+        blackhole.consume(builder.buildSql());
+        blackhole.consume(builder.buildParams());
+    }
+
+    @Benchmark
+    public void buildUpdate(Blackhole blackhole) {
+        DynamicUpdateBuilder builder = new DynamicUpdateBuilder("survey")
+                .set("name", "Survey")
+                .set("description", "Description du questionnaire")
+                .set("is_active", true)
+                .set("is_public", true)
+                .where("id = ?", 42);
+        blackhole.consume(builder.buildSql());
+        blackhole.consume(builder.buildParams());
+    }
+}
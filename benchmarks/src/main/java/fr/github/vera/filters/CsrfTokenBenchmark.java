@@ -0,0 +1,27 @@
+package fr.github.vera.filters;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Même package que CsrfFilter pour accéder à generateToken (visibilité package)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-bench.xml")
+public class CsrfTokenBenchmark {
+
+    @Benchmark
+    @Threads(1)
+    public String generateToken() {
+        return CsrfFilter.generateToken();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateTokenContended() {
+        return CsrfFilter.generateToken();
+    }
+}
@@ -0,0 +1,43 @@
+package fr.github.vera.loadtest;
+
+import fr.github.vera.Main;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Démarre Main dans le processus courant et attend que /health/live réponde
+public final class ApplicationLauncher {
+
+    private ApplicationLauncher() {
+    }
+
+    public static String start(int port, Duration timeout) throws InterruptedException {
+        System.setProperty("server.host", "127.0.0.1");
+        System.setProperty("server.port", String.valueOf(port));
+
+        Thread application = new Thread(() -> Main.main(new String[0]), "vera-main");
+        application.setDaemon(true);
+        application.start();
+
+        String baseUrl = "http://127.0.0.1:" + port + "/api";
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<Void> response = client.send(
+                        HttpRequest.newBuilder(URI.create(baseUrl + "/health/live")).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return baseUrl;
+                }
+            } catch (Exception e) {
+                // Serveur pas encore démarré
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("L'API n'a pas démarré en " + timeout.toSeconds() + "s");
+    }
+}
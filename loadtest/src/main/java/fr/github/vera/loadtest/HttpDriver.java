@@ -0,0 +1,69 @@
+package fr.github.vera.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Client HTTP du test de charge : ajoute l'Origin autorisée par CorsFilter et le token JWT
+public class HttpDriver {
+    private static final String ORIGIN = "http://localhost";
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile String token;
+
+    public HttpDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public String login(String email, String password) throws IOException, InterruptedException {
+        String body = mapper.createObjectNode().put("email", email).put("password", password).toString();
+        HttpResponse<String> response = client.send(post("/auth/login", body, false), HttpResponse.BodyHandlers.ofString());
+        JsonNode json = mapper.readTree(response.body());
+        JsonNode tokenNode = json.path("data").path("token");
+        if (tokenNode.isMissingNode() || tokenNode.isNull()) {
+            throw new IllegalStateException("Connexion impossible pour " + email + ": " + response.body());
+        }
+        this.token = tokenNode.asText();
+        return token;
+    }
+
+    public HttpRequest get(String path) {
+        return builder(path, true).GET().build();
+    }
+
+    public HttpRequest post(String path, String json, boolean authenticated) {
+        return builder(path, authenticated)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    public int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    private HttpRequest.Builder builder(String path, boolean authenticated) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Origin", ORIGIN);
+        if (authenticated && token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+}
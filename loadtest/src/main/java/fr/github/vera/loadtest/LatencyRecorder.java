@@ -0,0 +1,82 @@
+package fr.github.vera.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Enregistre les latences (en nanosecondes) d'un scénario et calcule les percentiles
+public class LatencyRecorder {
+    private final String name;
+    private final AtomicLongArray samples;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    public LatencyRecorder(String name, int capacity) {
+        this.name = name;
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    public void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    public void record(long latencyNanos, boolean success) {
+        int index = count.getAndIncrement();
+        if (index < samples.length()) {
+            samples.set(index, latencyNanos);
+        }
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public Summary summarize() {
+        int size = Math.min(count.get(), samples.length());
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+
+        double elapsedSeconds = Math.max(1, endNanos - startNanos) / 1_000_000_000.0;
+        return new Summary(
+                name,
+                count.get(),
+                errors.get(),
+                count.get() / elapsedSeconds,
+                percentileMillis(sorted, 50),
+                percentileMillis(sorted, 90),
+                percentileMillis(sorted, 99),
+                size == 0 ? 0 : sorted[size - 1] / 1_000_000.0
+        );
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    public record Summary(String name, int requests, int errors, double throughput,
+                          double p50, double p90, double p99, double max) {
+
+        public static String header() {
+            return String.format("%-28s %9s %7s %10s %9s %9s %9s %9s",
+                    "scenario", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                    name, requests, errors, throughput, p50, p90, p99, max);
+        }
+    }
+}
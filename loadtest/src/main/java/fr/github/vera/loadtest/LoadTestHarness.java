@@ -0,0 +1,132 @@
+package fr.github.vera.loadtest;
+
+import fr.github.vera.database.generator.DataGenerator;
+import fr.github.vera.database.generator.GenerationResult;
+import fr.github.vera.database.generator.GeneratorConfig;
+import fr.github.vera.database.generator.IdRange;
+import fr.github.vera.model.Answer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+// Test de charge de bout en bout : PostgreSQL embarqué + Main dans le même processus
+// mvn -f loadtest/pom.xml compile exec:java -Dloadtest.mainClass=fr.github.vera.loadtest.LoadTestHarness
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 200);
+        int surveys = Integer.getInteger("loadtest.surveys", 500);
+        int questionsPerSurvey = Integer.getInteger("loadtest.questionsPerSurvey", 10);
+        int answersPerQuestion = Integer.getInteger("loadtest.answersPerQuestion", 50);
+        int requests = Integer.getInteger("loadtest.requests", 5000);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 50);
+        int port = Integer.getInteger("loadtest.port", 18080);
+
+        // Le rate limiting fausserait les mesures : tout le trafic vient de 127.0.0.1
+        System.setProperty("ratelimit.enabled", "false");
+
+        // Avant le démarrage des pools : Hikari doit reprendre les timers d'attente remis à zéro par scénario
+        PoolWaitRecorder.install();
+
+        try (EmbeddedDatabase database = EmbeddedDatabase.start()) {
+            database.exportToApplication();
+            String baseUrl = ApplicationLauncher.start(port, Duration.ofSeconds(60));
+
+            // Même pool que l'application : Main a déjà initialisé DatabaseManager dans ce processus
+            GeneratorConfig config = GeneratorConfig.defaults()
+                    .withScale(users, surveys, questionsPerSurvey, answersPerQuestion);
+            GenerationResult seed = new DataGenerator(config).generate();
+            System.out.printf("Données : %d utilisateurs, %d surveys, %d questions, %d réponses (%d s)%n",
+                    seed.users().count(), seed.surveys().count(), seed.questions().count(),
+                    seed.answers().count(), seed.durationMillis() / 1000);
+
+            HttpDriver driver = new HttpDriver(baseUrl);
+            driver.login(DataGenerator.emailFor(seed.users().start()), config.password());
+            ScenarioRunner runner = new ScenarioRunner(driver, concurrency);
+
+            List<ScenarioRunner.ScenarioResult> results = new ArrayList<>();
+            results.add(runner.run("submission-burst", requests, submissionBurst(driver, seed)));
+            results.add(runner.run("dashboard", requests, dashboard(driver, seed)));
+            results.add(runner.run("history", requests, historyBrowsing(driver, seed)));
+            // Argon2 à 64 Mo : la tempête de login est volontairement plus courte
+            results.add(runner.run("login-storm", Math.max(1, requests / 10), loginStorm(driver, seed, config)));
+
+            results.forEach(ScenarioRunner.ScenarioResult::print);
+        }
+        System.exit(0);
+    }
+
+    // Rafale de réponses sur un petit nombre de questions « chaudes »
+    private static IntFunction<ScenarioRunner.EndpointCall> submissionBurst(
+            HttpDriver driver, GenerationResult seed) {
+        int hotQuestions = (int) Math.min(20, seed.questions().count());
+        return i -> {
+            Answer answer = new Answer();
+            answer.setIdQuestion((int) seed.questions().id(i % hotQuestions));
+            answer.setRespondentId("burst-" + i);
+            answer.setOriginalAnswer("\"réponse " + i % 5 + "\"");
+            answer.setAnonymous(false);
+            try {
+                String json = driver.mapper().writeValueAsString(answer);
+                return new ScenarioRunner.EndpointCall("POST /answers", driver.post("/answers", json, true));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static IntFunction<ScenarioRunner.EndpointCall> dashboard(
+            HttpDriver driver, GenerationResult seed) {
+        Random random = new Random(7);
+        return i -> {
+            long surveyId = pick(seed.surveys(), random);
+            long questionId = pick(seed.questions(), random);
+            return switch (i % 4) {
+                case 0 -> new ScenarioRunner.EndpointCall("GET /answers/survey/{id}/stats",
+                        driver.get("/answers/survey/" + surveyId + "/stats"));
+                case 1 -> new ScenarioRunner.EndpointCall("GET /answers/question/{id}/stats",
+                        driver.get("/answers/question/" + questionId + "/stats"));
+                case 2 -> new ScenarioRunner.EndpointCall("GET /survey/public/count",
+                        driver.get("/survey/public/count"));
+                default -> new ScenarioRunner.EndpointCall("GET /answers/survey/{id}",
+                        driver.get("/answers/survey/" + surveyId));
+            };
+        };
+    }
+
+    private static IntFunction<ScenarioRunner.EndpointCall> historyBrowsing(
+            HttpDriver driver, GenerationResult seed) {
+        Random random = new Random(11);
+        return i -> {
+            long surveyId = pick(seed.surveys(), random);
+            return switch (i % 3) {
+                case 0 -> new ScenarioRunner.EndpointCall("GET /history/survey/{id}",
+                        driver.get("/history/survey/" + surveyId));
+                case 1 -> new ScenarioRunner.EndpointCall("GET /history/latest",
+                        driver.get("/history/latest"));
+                default -> new ScenarioRunner.EndpointCall("GET /history/questions/survey/{id}",
+                        driver.get("/history/questions/survey/" + surveyId));
+            };
+        };
+    }
+
+    private static IntFunction<ScenarioRunner.EndpointCall> loginStorm(
+            HttpDriver driver, GenerationResult seed, GeneratorConfig config) {
+        return i -> {
+            long userId = seed.users().id(i % seed.users().count());
+            String body = driver.mapper().createObjectNode()
+                    .put("email", DataGenerator.emailFor(userId))
+                    .put("password", config.password())
+                    .toString();
+            return new ScenarioRunner.EndpointCall("POST /auth/login", driver.post("/auth/login", body, false));
+        };
+    }
+
+    // Les appels sont générés séquentiellement par le runner : pas de partage de Random entre threads
+    private static long pick(IdRange ids, Random random) {
+        return ids.id(random.nextInt((int) ids.count()));
+    }
+}
@@ -0,0 +1,86 @@
+package fr.github.vera.loadtest;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformSnapshot;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.database.PoolType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Attente d'une connexion Hikari par pool, remise à zéro à chaque scénario. Les timers <pool>.pool.Wait sont
+// enregistrés avant le démarrage de l'application : Hikari réutilise le timer existant au lieu d'en créer un
+// dont le réservoir mélangerait tous les scénarios.
+public final class PoolWaitRecorder {
+    private static final Map<PoolType, ScenarioReservoir> RESERVOIRS = new EnumMap<>(PoolType.class);
+
+    private PoolWaitRecorder() {
+    }
+
+    public static synchronized void install() {
+        MetricRegistry registry = MetricsRegistry.get();
+        for (PoolType pool : PoolType.values()) {
+            ScenarioReservoir reservoir = new ScenarioReservoir();
+            registry.register(MetricRegistry.name(pool.poolName(), "pool", "Wait"), new Timer(reservoir));
+            RESERVOIRS.put(pool, reservoir);
+        }
+    }
+
+    public static synchronized void reset() {
+        RESERVOIRS.values().forEach(ScenarioReservoir::reset);
+    }
+
+    // Pools sans acquisition pendant le scénario omis
+    public static synchronized List<PoolWait> summarize() {
+        List<PoolWait> waits = new ArrayList<>();
+        for (Map.Entry<PoolType, ScenarioReservoir> entry : RESERVOIRS.entrySet()) {
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            if (snapshot.size() == 0) {
+                continue;
+            }
+            waits.add(new PoolWait(entry.getKey(), snapshot.size(),
+                    snapshot.getMean() / 1_000_000.0,
+                    snapshot.get99thPercentile() / 1_000_000.0,
+                    snapshot.getMax() / 1_000_000.0));
+        }
+        return waits;
+    }
+
+    public record PoolWait(PoolType pool, int acquisitions, double meanMs, double p99Ms, double maxMs) {
+
+        @Override
+        public String toString() {
+            return String.format("Hikari wait %-10s : %d acquisitions, mean %.2f ms, p99 %.2f ms, max %.2f ms",
+                    pool, acquisitions, meanMs, p99Ms, maxMs);
+        }
+    }
+
+    // Toutes les mesures du scénario en cours (quelques dizaines de milliers au plus)
+    private static final class ScenarioReservoir implements Reservoir {
+        private List<Long> values = new ArrayList<>();
+
+        @Override
+        public synchronized int size() {
+            return values.size();
+        }
+
+        @Override
+        public synchronized void update(long value) {
+            values.add(value);
+        }
+
+        @Override
+        public synchronized Snapshot getSnapshot() {
+            return new UniformSnapshot(values);
+        }
+
+        private synchronized void reset() {
+            values = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package fr.github.vera.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Compare HTTP/1.1 et h2c sur une rafale de petits GET, comme le ferait le frontend SPA.
+// Le serveur doit être lancé avec SERVER_HTTP2_ENABLED=true pour que l'upgrade h2c soit accepté.
+public class ProtocolComparison {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8080/api");
+        String[] paths = System.getProperty("loadtest.paths", "/swagger-ui").split(",");
+        int requests = Integer.getInteger("loadtest.requests", 5000);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        String token = System.getProperty("loadtest.token");
+
+        List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+        for (HttpClient.Version version : List.of(HttpClient.Version.HTTP_1_1, HttpClient.Version.HTTP_2)) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(version)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            // Préchauffage : établit les connexions (et l'upgrade h2c) hors mesure
+            run(client, baseUrl, paths, token, new LatencyRecorder("warmup", requests), Math.min(requests, 500), concurrency);
+
+            LatencyRecorder recorder = new LatencyRecorder(label(version), requests);
+            run(client, baseUrl, paths, token, recorder, requests, concurrency);
+            summaries.add(recorder.summarize());
+        }
+
+        System.out.println(LatencyRecorder.Summary.header());
+        summaries.forEach(System.out::println);
+    }
+
+    static void run(HttpClient client, String baseUrl, String[] paths, String token,
+                    LatencyRecorder recorder, int requests, int concurrency) throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            recorder.start();
+            for (int i = 0; i < requests; i++) {
+                String path = paths[i % paths.length].trim();
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        send(client, baseUrl + path, token, recorder);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.MINUTES);
+            recorder.stop();
+        }
+    }
+
+    private static void send(HttpClient client, String url, String token, LatencyRecorder recorder) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (token != null && !token.isBlank()) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            recorder.record(System.nanoTime() - start, response.statusCode() < 400);
+        } catch (Exception e) {
+            recorder.record(System.nanoTime() - start, false);
+        }
+    }
+
+    private static String label(HttpClient.Version version) {
+        return version == HttpClient.Version.HTTP_2 ? "h2c" : "HTTP/1.1";
+    }
+}
@@ -0,0 +1,81 @@
+package fr.github.vera.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+// Exécute un scénario (suite d'appels générés par index) et mesure chaque endpoint séparément
+public class ScenarioRunner {
+    private final HttpDriver driver;
+    private final int concurrency;
+
+    public ScenarioRunner(HttpDriver driver, int concurrency) {
+        this.driver = driver;
+        this.concurrency = concurrency;
+    }
+
+    public ScenarioResult run(String scenario, int requests, IntFunction<EndpointCall> calls) throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+        PoolWaitRecorder.reset();
+
+        Semaphore permits = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                EndpointCall call = calls.apply(i);
+                LatencyRecorder recorder = recorders.computeIfAbsent(call.label(), label -> {
+                    LatencyRecorder created = new LatencyRecorder(scenario + " " + label, requests);
+                    created.start();
+                    return created;
+                });
+
+                permits.acquire();
+                executor.submit(() -> {
+                    long callStart = System.nanoTime();
+                    try {
+                        int status = driver.send(call.request());
+                        recorder.record(System.nanoTime() - callStart, status < 400);
+                    } catch (Exception e) {
+                        recorder.record(System.nanoTime() - callStart, false);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+        for (LatencyRecorder recorder : recorders.values()) {
+            recorder.stop();
+            summaries.add(recorder.summarize());
+        }
+
+        return new ScenarioResult(scenario, summaries, requests / (elapsedNanos / 1_000_000_000.0),
+                PoolWaitRecorder.summarize());
+    }
+
+    public record EndpointCall(String label, HttpRequest request) {
+    }
+
+    public record ScenarioResult(String scenario, List<LatencyRecorder.Summary> endpoints, double throughput,
+                                 List<PoolWaitRecorder.PoolWait> poolWaits) {
+
+        public void print() {
+            System.out.println();
+            System.out.printf("== %s : %.1f req/s%n", scenario, throughput);
+            System.out.println(LatencyRecorder.Summary.header());
+            endpoints.forEach(System.out::println);
+            poolWaits.forEach(System.out::println);
+        }
+    }
+}
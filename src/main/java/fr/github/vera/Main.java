@@ -1,26 +1,35 @@
 package fr.github.vera;
 
 import fr.github.vera.config.JerseyConfig;
+import fr.github.vera.config.ServerConfig;
 import fr.github.vera.database.DatabaseManager;
 import fr.github.vera.repository.BlacklistedTokenRepository;
+import fr.github.vera.repository.HistoryPartitionRepository;
+import fr.github.vera.server.ApplicationLifecycle;
+import fr.github.vera.server.HttpServerFactory;
+import fr.github.vera.services.AnswerImportService;
+import fr.github.vera.services.HealthService;
+import fr.github.vera.services.HistoryRetentionService;
+import fr.github.vera.services.LiveResultsService;
 import fr.github.vera.services.TokenBlacklistService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.glassfish.grizzly.http.server.HttpServer;
-import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 
-import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
     private static final Logger logger = LogManager.getLogger(Main.class);
-    private static final String BASE_URI = "http://0.0.0.0:8080/";
     private static TokenBlacklistService tokenBlacklistService;
+    private static HistoryRetentionService historyRetentionService;
     private static volatile boolean isRunning = true;
 
     public static void main(String[] args) {
         HttpServer server = null;
         DatabaseManager databaseManager = DatabaseManager.getInstance();
         final Object sync = new Object();
+        ServerConfig serverConfig = ServerConfig.load();
+        String baseUri = serverConfig.baseUri();
 
         try {
             // 1. Initialiser le pool de connexions
@@ -34,18 +43,17 @@ public class Main {
             logger.info("Initialisation du service de purge des tokens...");
             initializeTokenPurgeService();
 
+            logger.info("Initialisation de la maintenance des partitions d'historique...");
+            historyRetentionService = new HistoryRetentionService(new HistoryPartitionRepository());
+
             // 3. Démarrer le serveur Jersey
             logger.info("Démarrage du serveur HTTP...");
-            server = GrizzlyHttpServerFactory.createHttpServer(
-                    URI.create(BASE_URI),
-                    new JerseyConfig(),
-                    false // Ne pas démarrer automatiquement
-            );
+            server = HttpServerFactory.create(serverConfig, new JerseyConfig());
 
             // Configurer le shutdown hook
             final HttpServer finalServer = server;
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                shutdownApplication(finalServer, databaseManager);
+                shutdownApplication(finalServer, databaseManager, serverConfig);
                 isRunning = false;
                 synchronized (sync) {
                     sync.notifyAll();
@@ -54,12 +62,14 @@ public class Main {
 
             // Démarrer le serveur
             server.start();
+            HealthService.getInstance().start();
+            ApplicationLifecycle.getInstance().markReady();
 
             logger.info("=".repeat(60));
             logger.info("✓ Serveur démarré avec succès!");
-            logger.info("✓ API disponible à: {}", BASE_URI);
-            logger.info("✓ Swagger UI: {}api/swagger-ui/", BASE_URI);
-            logger.info("✓ Health check: {}api/admin/health", BASE_URI);
+            logger.info("✓ API disponible à: {}", baseUri);
+            logger.info("✓ Swagger UI: {}api/swagger-ui/", baseUri);
+            logger.info("✓ Health check: {}api/health/live | {}api/health/ready", baseUri, baseUri);
             logger.info("=".repeat(60));
 
             // Wait until shutdown signal
@@ -71,7 +81,7 @@ public class Main {
             logger.error("Erreur fatale lors du démarrage", e);
             System.exit(1);
         } finally {
-            shutdownApplication(server, databaseManager);
+            shutdownApplication(server, databaseManager, serverConfig);
         }
     }
 
@@ -101,7 +111,7 @@ public class Main {
         }
     }
 
-    private static void shutdownApplication(HttpServer server, DatabaseManager databaseManager) {
+    private static void shutdownApplication(HttpServer server, DatabaseManager databaseManager, ServerConfig serverConfig) {
         if (!isRunning) {
             return; // Already shutting down
         }
@@ -109,20 +119,44 @@ public class Main {
         logger.info("Arrêt de l'application...");
 
         try {
-            // 1. Arrêter le service de purge
+            // 1. Drain : NOT_READY, rejet des nouvelles requêtes et attente des requêtes en cours
+            long drainStart = System.nanoTime();
+            long gracePeriodMillis = TimeUnit.SECONDS.toMillis(serverConfig.shutdownGracePeriodSeconds());
+            ApplicationLifecycle.getInstance().drain(
+                    TimeUnit.SECONDS.toMillis(serverConfig.shutdownReadinessDelaySeconds()),
+                    gracePeriodMillis);
+
+            // Les flux SSE ne se terminent pas d'eux-mêmes : fermés pour que les clients se reconnectent ailleurs
+            LiveResultsService.getInstance().shutdown();
+
+            // 2. Arrêter le serveur (laisse finir l'écriture des réponses dans le temps restant)
+            if (server != null) {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStart);
+                long remainingMillis = Math.max(1000, gracePeriodMillis - elapsedMillis);
+                try {
+                    server.shutdown(remainingMillis, TimeUnit.MILLISECONDS).get();
+                } catch (Exception e) {
+                    logger.warn("Arrêt gracieux du serveur incomplet, arrêt forcé", e);
+                    server.shutdownNow();
+                }
+                logger.info("✓ Serveur HTTP arrêté");
+            }
+
+            // 3. Arrêter le service de purge
             if (tokenBlacklistService != null) {
                 logger.info("Arrêt du service de purge...");
                 tokenBlacklistService.shutdown();
                 logger.info("✓ Service de purge arrêté");
             }
-
-            // 2. Arrêter le serveur
-            if (server != null) {
-                server.shutdown();
-                logger.info("✓ Serveur HTTP arrêté");
+            if (historyRetentionService != null) {
+                historyRetentionService.shutdown();
+                logger.info("✓ Maintenance des partitions d'historique arrêtée");
             }
 
-            // 3. Fermer la base de données
+            // 4. Interrompre les imports en cours (le lot courant est annulé, les lots validés sont conservés)
+            AnswerImportService.getInstance().shutdown();
+
+            // 5. Fermer la base de données (après les dernières requêtes)
             databaseManager.shutdown();
             logger.info("✓ Connexions base de données fermées");
 
@@ -0,0 +1,135 @@
+package fr.github.vera.cache;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import fr.github.vera.config.MetricsRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Cache LRU borné en octets (poids de chaque valeur donné par weigher) avec durée de vie maximale.
+// Au-delà de maxBytes, les entrées les moins récemment lues sont évincées. Une invalidation pendant
+// un chargement empêche de stocker la valeur chargée, qui peut précéder l'écriture invalidante.
+public final class ByteLruCache<K, V> {
+    // Clé, références et en-têtes de LinkedHashMap
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+    private long bytes;
+    private long generation;
+
+    public ByteLruCache(String name, long maxBytes, long ttlSeconds, ToLongFunction<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.weigher = weigher;
+
+        MetricRegistry registry = MetricsRegistry.get();
+        this.hits = registry.meter("cache." + name + ".hits");
+        this.misses = registry.meter("cache." + name + ".misses");
+        this.evictions = registry.meter("cache." + name + ".evictions");
+        registry.gauge("cache." + name + ".bytes", () -> this::bytes);
+        registry.gauge("cache." + name + ".entries", () -> this::size);
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.mark();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            remove(key);
+            misses.mark();
+            return null;
+        }
+        hits.mark();
+        return entry.value;
+    }
+
+    // Lecture, ou chargement hors verrou puis stockage ; une valeur null n'est pas mise en cache
+    public V getOrLoad(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value, loadGeneration);
+        }
+        return value;
+    }
+
+    private synchronized void put(K key, V value, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        long weight = weigher.applyAsLong(value) + ENTRY_OVERHEAD;
+        if (weight > maxBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry<>(value, weight, System.nanoTime() + ttlNanos));
+        bytes += weight;
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions.mark();
+        }
+    }
+
+    public synchronized int invalidateIf(BiPredicate<K, V> predicate) {
+        generation++;
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                bytes -= entry.getValue().weight;
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void remove(K key) {
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            bytes -= previous.weight;
+        }
+    }
+
+    private record Entry<V>(V value, long weight, long expiresAt) {
+    }
+}
@@ -0,0 +1,101 @@
+package fr.github.vera.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.JerseyConfig;
+import fr.github.vera.database.CacheRegion;
+import fr.github.vera.database.InvalidationBus;
+import fr.github.vera.model.Question;
+import fr.github.vera.model.SurveyAggregate;
+import fr.github.vera.response.Response;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Agrégat survey + questions ordonnées par token de partage, stocké sérialisé (JSON UTF-8) :
+// un hit ne passe ni par la base ni par Jackson. Évincé par InvalidationBus à chaque modification du survey
+// ou d'une de ses questions, sur toutes les instances ; cache.survey.ttl-seconds borne l'obsolescence
+// des écritures faites hors repositories.
+public final class SurveyAggregateCache implements CacheRegion {
+    private static final Logger logger = LogManager.getLogger(SurveyAggregateCache.class);
+    private static final SurveyAggregateCache INSTANCE = new SurveyAggregateCache();
+    private static final ObjectMapper MAPPER = JerseyConfig.createObjectMapper();
+
+    private final ByteLruCache<String, CachedSurvey> cache;
+
+    private SurveyAggregateCache() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        long maxBytes = properties.getIntProperty("cache.survey.max-kb", 32_768) * 1024L;
+        long ttlSeconds = properties.getIntProperty("cache.survey.ttl-seconds", 300);
+        this.cache = new ByteLruCache<>("survey", maxBytes, ttlSeconds,
+                cached -> cached.json().length + cached.questionIds().size() * 32L);
+        InvalidationBus.getInstance().register(this);
+    }
+
+    public static SurveyAggregateCache getInstance() {
+        return INSTANCE;
+    }
+
+    // loader : agrégat du survey actif portant ce token, null s'il n'existe pas (non mis en cache)
+    public Optional<CachedSurvey> getByToken(String token, Function<String, SurveyAggregate> loader) {
+        return Optional.ofNullable(cache.getOrLoad(token, key -> {
+            SurveyAggregate aggregate = loader.apply(key);
+            return aggregate == null ? null : serialize(aggregate);
+        }));
+    }
+
+    @Override
+    public String name() {
+        return "survey";
+    }
+
+    @Override
+    public void invalidate(String entity, String id) {
+        switch (entity) {
+            case "survey" -> evictSurvey(Integer.valueOf(id));
+            case "question" -> evictQuestion(Integer.valueOf(id));
+            default -> {
+                // Entité sans effet sur les agrégats
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void evictSurvey(Integer surveyId) {
+        int removed = cache.invalidateIf((token, cached) -> cached.surveyId().equals(surveyId));
+        logger.debug("Cache survey : {} entrée(s) évincée(s) pour le survey {}", removed, surveyId);
+    }
+
+    // Une question modifiée appartient au plus à un agrégat en cache
+    private void evictQuestion(Integer questionId) {
+        cache.invalidateIf((token, cached) -> cached.questionIds().contains(questionId));
+    }
+
+    private static CachedSurvey serialize(SurveyAggregate aggregate) {
+        Set<Integer> questionIds = aggregate.questions().stream()
+                .map(Question::getId)
+                .collect(Collectors.toUnmodifiableSet());
+        long version = aggregate.version() == null ? 0 : aggregate.version().toInstant(ZoneOffset.UTC).toEpochMilli();
+        // Une question supprimée ne change pas updated_at : le nombre de questions entre dans la version
+        String etag = aggregate.survey().getId() + "-" + version + "-" + questionIds.size();
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(new Response<>(aggregate));
+            return new CachedSurvey(aggregate.survey().getId(), questionIds, etag, json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation de l'agrégat du survey " + aggregate.survey().getId() + " impossible", e);
+        }
+    }
+
+    public record CachedSurvey(Integer surveyId, Set<Integer> questionIds, String etag, byte[] json) {
+    }
+}
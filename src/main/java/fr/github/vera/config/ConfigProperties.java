@@ -44,10 +44,14 @@ public class ConfigProperties {
             logger.debug("Load database properties file");
             this.properties.load(getClass().getResourceAsStream("/setting/app.properties"));
             logger.debug("Load app properties file");
+            this.properties.load(getClass().getResourceAsStream("/setting/server.properties"));
+            logger.debug("Load server properties file");
 
             for (String key : this.properties.stringPropertyNames()) {
                 String value = this.properties.getProperty(key);
-                this.properties.setProperty(key, resolvePlaceholders(value));
+                // Une propriété système (-Ddb.url=...) prend le pas sur le fichier et l'environnement
+                String override = System.getProperty(key);
+                this.properties.setProperty(key, override != null ? override : resolvePlaceholders(value));
             }
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
@@ -57,4 +61,25 @@ public class ConfigProperties {
     public String getProperty(String key) {
         return this.properties.getProperty(key);
     }
+
+    public int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Valeur invalide pour {}: '{}', utilisation de {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
 }
\ No newline at end of file
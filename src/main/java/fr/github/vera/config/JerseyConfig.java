@@ -85,15 +85,20 @@ public class JerseyConfig extends ResourceConfig {
         }
     }
 
+    // Configuration JSON des réponses, partagée avec les projections (?fields=)
+    public static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        // Important pour les dates
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
     public static class ObjectMapperContextResolver implements ContextResolver<ObjectMapper> {
         private final ObjectMapper mapper;
 
         public ObjectMapperContextResolver() {
-            mapper = new ObjectMapper();
-            // Important pour les dates
-            mapper.registerModule(new JavaTimeModule());
-            mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-            // Autres configurations si nécessaire
+            mapper = createObjectMapper();
         }
 
         @Override
@@ -0,0 +1,16 @@
+package fr.github.vera.config;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+// Registre de métriques partagé par toute l'application (exposé par /admin/metric)
+public final class MetricsRegistry {
+    private static final String NAME = "vera";
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricRegistry get() {
+        return SharedMetricRegistries.getOrCreate(NAME);
+    }
+}
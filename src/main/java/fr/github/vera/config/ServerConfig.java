@@ -0,0 +1,42 @@
+package fr.github.vera.config;
+
+// Paramètres du listener HTTP Grizzly (une valeur à 0 conserve le défaut Grizzly)
+public record ServerConfig(
+        String host,
+        int port,
+        int selectorThreads,
+        int workerThreads,
+        int keepAliveMaxRequests,
+        int keepAliveIdleTimeoutSeconds,
+        int maxHeaderSize,
+        int socketReadBufferSize,
+        int socketWriteBufferSize,
+        boolean http2Enabled,
+        int http2MaxConcurrentStreams,
+        int shutdownReadinessDelaySeconds,
+        int shutdownGracePeriodSeconds) {
+
+    public static ServerConfig load() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        return new ServerConfig(
+                properties.getProperty("server.host"),
+                properties.getIntProperty("server.port", 8080),
+                properties.getIntProperty("server.selector.threads", 0),
+                properties.getIntProperty("server.worker.threads", 0),
+                properties.getIntProperty("server.keepalive.max-requests", 256),
+                properties.getIntProperty("server.keepalive.idle-timeout", 30),
+                properties.getIntProperty("server.max-header-size", 8192),
+                properties.getIntProperty("server.socket.read-buffer", 0),
+                properties.getIntProperty("server.socket.write-buffer", 0),
+                properties.getBooleanProperty("server.http2.enabled", false),
+                properties.getIntProperty("server.http2.max-concurrent-streams", 100),
+                properties.getIntProperty("server.shutdown.readiness-delay", 0),
+                properties.getIntProperty("server.shutdown.grace-period", 30)
+        );
+    }
+
+    public String baseUri() {
+        String effectiveHost = host == null || host.isBlank() ? "0.0.0.0" : host;
+        return "http://" + effectiveHost + ":" + port + "/";
+    }
+}
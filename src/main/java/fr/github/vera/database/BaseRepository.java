@@ -2,7 +2,9 @@ package fr.github.vera.database;
 
 import fr.github.vera.model.Identifiable;
 import fr.github.vera.repository.IRepository;
+import org.postgresql.util.PGobject;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -68,13 +70,55 @@ public abstract class BaseRepository<T extends Identifiable<I>, I> extends BaseR
         return executeQueryWithParams(sql, rs -> rs.next() ? Optional.of(mapResultSet(rs)) : Optional.empty(), Optional.empty(), "GET BY ID " + tableName, id);
     }
 
+    // Une seule requête pour un lot d'identifiants (DataLoader) ; les identifiants introuvables sont absents du résultat
+    @Override
+    public List<T> findAllByIds(Collection<I> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Tableau typé (Integer[], String[]) : le driver en déduit le type du paramètre de ANY(?)
+        Object[] values = ids.toArray((Object[]) Array.newInstance(ids.iterator().next().getClass(), 0));
+        String sql = "SELECT * FROM " + tableName + " WHERE id = ANY(?)";
+        // Erreur propagée : une liste vide signifierait « aucun identifiant trouvé » pour le DataLoader
+        return executeQueryWithParamsOrThrow(sql, this::mapResultSetList,
+                "GET BY IDS " + tableName.toUpperCase(), (Object) values);
+    }
+
     @Override
     public List<T> findAll(int limit, int offset) {
-        String sql = "SELECT * FROM " + tableName + " LIMIT ? OFFSET ?";
-        return executeQueryWithParams(sql, this::mapResultSetList, new ArrayList<>(),
+        return findAll(limit, offset, null);
+    }
+
+    @Override
+    public List<T> findAll(int limit, int offset, Projection<T> projection) {
+        String sql = "SELECT " + columns(projection) + " FROM " + tableName + " LIMIT ? OFFSET ?";
+        return executeQueryWithParams(sql, rows(projection), new ArrayList<>(),
                 "GET ALL PAGINATED " + tableName.toUpperCase(), limit, offset);
     }
 
+    @Override
+    public Projection<T> projection(String fields) {
+        return Projection.parse(entityClass, fields);
+    }
+
+    // Liste de sélection : toutes les colonnes, ou celles de la projection
+    protected String columns(Projection<T> projection) {
+        return projection == null ? "*" : projection.selectList();
+    }
+
+    protected ResultSetMapper<List<T>> rows(Projection<T> projection) {
+        if (projection == null) {
+            return this::mapResultSetList;
+        }
+        return rs -> {
+            List<T> list = new ArrayList<>();
+            while (rs.next()) {
+                list.add(mapColumns(rs, projection.fields()));
+            }
+            return list;
+        };
+    }
+
     @Override
     public int count() {
         String sql = "SELECT COUNT(*) FROM " + tableName;
@@ -84,7 +128,11 @@ public abstract class BaseRepository<T extends Identifiable<I>, I> extends BaseR
     @Override
     public boolean delete(I id) {
         String sql = "DELETE FROM " + tableName + " WHERE id = ?";
-        return executeUpdate(sql, "DELETE " + tableName.toUpperCase(), id) != 0;
+        boolean deleted = executeUpdate(sql, "DELETE " + tableName.toUpperCase(), id) != 0;
+        if (deleted) {
+            publishInvalidation(tableName, id);
+        }
+        return deleted;
     }
 
     public List<T> mapResultSetList(ResultSet rs) throws SQLException {
@@ -138,6 +186,7 @@ public abstract class BaseRepository<T extends Identifiable<I>, I> extends BaseR
 
         if (builder.hasUpdates()) {
             executeUpdate(builder.buildSql(), "UPDATE " + clazz.getSimpleName(), builder.buildParams());
+            publishInvalidation(tableName, idValue);
         }
         return entity;
     }
@@ -162,9 +211,9 @@ public abstract class BaseRepository<T extends Identifiable<I>, I> extends BaseR
                     Object value = field.get(entity);
                     // Pour les insertions, on peut inclure les valeurs null si nécessaire
                     if (value != null) {
-                        builder.set(columnAnnotation.name(), value);
+                        builder.set(columnAnnotation.name(), toParameter(columnAnnotation, value));
                     }
-                } catch (IllegalAccessException e) {
+                } catch (IllegalAccessException | SQLException e) {
                     logger.error(e.getMessage());
                 }
             }
@@ -184,16 +233,29 @@ public abstract class BaseRepository<T extends Identifiable<I>, I> extends BaseR
         return entity;
     }
 
+    private Object toParameter(Column column, Object value) throws SQLException {
+        if (!column.jsonb()) {
+            return value;
+        }
+        PGobject json = new PGobject();
+        json.setType("jsonb");
+        json.setValue(value.toString());
+        return json;
+    }
+
     private void setEntityId(T entity, Integer id) {
         entity.setId((I) id);
     }
 
     protected T mapResultSet(ResultSet rs) throws SQLException {
+        return mapColumns(rs, Arrays.asList(entityClass.getDeclaredFields()));
+    }
+
+    // Les champs hors sélection gardent leur valeur par défaut
+    private T mapColumns(ResultSet rs, Iterable<Field> fields) throws SQLException {
         try {
             T entity = entityClass.getDeclaredConstructor().newInstance();
 
-            Field[] fields = entityClass.getDeclaredFields();
-
             for (Field field : fields) {
                 Column columnAnnotation = field.getAnnotation(Column.class);
                 if (columnAnnotation != null) {
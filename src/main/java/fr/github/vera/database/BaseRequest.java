@@ -2,82 +2,131 @@ package fr.github.vera.database;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 
 public abstract class BaseRequest {
     protected static final Logger logger = LogManager.getLogger(BaseRequest.class);
 
     private final DatabaseManager databaseManager = DatabaseManager.getInstance();
+    private final PoolType defaultPool;
 
     protected BaseRequest() {
+        DatabasePool annotation = getClass().getAnnotation(DatabasePool.class);
+        this.defaultPool = annotation != null ? annotation.value() : PoolType.OLTP;
     }
 
-    private void logMetrics(String sql, long startTime) {
-        long executionTime = System.currentTimeMillis() - startTime;
-        if (executionTime > 100) {
-            logger.warn("Slow SQL Query detected: {} executed in {}ms", sql, executionTime);
-        } else {
-            logger.debug("SQL Query executed in {}ms: {}", executionTime, sql);
+    // Pool imposé par la requête HTTP ou la tâche de fond en cours, sinon celui du repository
+    private PoolType pool() {
+        PoolType current = DatabaseContext.currentPool();
+        return current != null ? current : defaultPool;
+    }
+
+    // Durée mesurée en nanoTime ; au-delà du seuil, la requête est confiée au SlowQueryMonitor
+    private void logMetrics(String context, String sql, Object[] params, long startTime) {
+        long elapsedNanos = System.nanoTime() - startTime;
+        if (!SlowQueryMonitor.getInstance().record(context, sql, params, elapsedNanos)) {
+            logger.debug("SQL Query executed in {}ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sql);
         }
     }
 
     protected <T> T executeQuery(String sql, ResultSetMapper<T> mapper, T defaultValue, String context) {
-        long startTime = System.currentTimeMillis();
+        QueryRegistry.register(sql, context);
+        long startTime = System.nanoTime();
         try {
-            return databaseManager.executeWithConnection(conn -> {
-                try (PreparedStatement stmt = conn.prepareStatement(sql);
+            return databaseManager.executeWithConnection(pool(), conn -> {
+                try (PreparedStatement stmt = prepare(conn, sql, Statement.NO_GENERATED_KEYS);
                      ResultSet rs = stmt.executeQuery()) {
 
                     T result = mapper.map(rs);
-                    logMetrics(sql, startTime);
+                    logMetrics(context, sql, new Object[0], startTime);
                     return result;
 
                 } catch (SQLException e) {
+                    DatabaseContext.checkDeadline();
                     logger.error("Erreur SQL [{}]: {}", sql, e.getMessage(), e);
                     return defaultValue;
                 }
             }, context);
 
         } catch (Exception e) {
+            DatabaseContext.checkDeadline();
             logger.error("Erreur base de données lors de [{}]: {}", sql, e.getMessage(), e);
             return defaultValue;
         }
     }
 
     protected <T> T executeQueryWithParams(String sql, ResultSetMapper<T> mapper, T defaultValue, String context, Object... params) {
-        long startTime = System.currentTimeMillis();
+        return query(false, sql, mapper, defaultValue, context, params);
+    }
+
+    // Lecture explicitement tolérante au retard de réplication (historique, statistiques) : servie par une
+    // réplique à jour si configurée, sinon par le primaire. Les lectures dans une transaction restent au primaire.
+    protected <T> T executeReadOnlyQueryWithParams(String sql, ResultSetMapper<T> mapper, T defaultValue, String context, Object... params) {
+        return query(true, sql, mapper, defaultValue, context, params);
+    }
+
+    // Lecture dont l'échec doit être visible de l'appelant (DataLoader ne met pas un échec en cache) :
+    // contrairement à executeQueryWithParams, l'erreur est propagée au lieu d'être remplacée par une valeur par défaut
+    protected <T> T executeQueryWithParamsOrThrow(String sql, ResultSetMapper<T> mapper, String context, Object... params) {
         try {
-            return databaseManager.executeWithConnection(conn -> {
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return runQuery(false, sql, mapper, context, params);
 
-                    // Paramètres
-                    for (int i = 0; i < params.length; i++) {
-                        stmt.setObject(i + 1, params[i]);
-                    }
+        } catch (Exception e) {
+            DatabaseContext.checkDeadline();
+            logger.error("Error during {}: {}", context, e.getMessage());
+            throw new RuntimeException("Database error during " + context, e);
+        }
+    }
 
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        T result = mapper.map(rs);
-                        logMetrics(sql, startTime);
-                        return result;
-                    }
-                }
-            }, context);
+    private <T> T query(boolean readOnly, String sql, ResultSetMapper<T> mapper, T defaultValue, String context, Object... params) {
+        try {
+            return runQuery(readOnly, sql, mapper, context, params);
 
         } catch (Exception e) {
+            DatabaseContext.checkDeadline();
             logger.error("Erreur lors de la requête [{}]: {}", sql, e.getMessage(), e);
             return defaultValue;
         }
     }
 
+    private <T> T runQuery(boolean readOnly, String sql, ResultSetMapper<T> mapper, String context, Object... params) {
+        QueryRegistry.register(sql, context);
+        long startTime = System.nanoTime();
+        DatabaseManager.DatabaseAction<T> action = conn -> {
+            try (PreparedStatement stmt = prepare(conn, sql, Statement.NO_GENERATED_KEYS)) {
+
+                // Paramètres
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    T result = mapper.map(rs);
+                    logMetrics(context, sql, params, startTime);
+                    return result;
+                }
+            }
+        };
+        return readOnly
+                ? databaseManager.executeWithReadConnection(pool(), action, context)
+                : databaseManager.executeWithConnection(pool(), action, context);
+    }
+
     protected int executeUpdate(String sql, String context, Object... params) {
-        long startTime = System.currentTimeMillis();
+        QueryRegistry.register(sql, context);
+        DatabaseContext.markWrite();
+        long startTime = System.nanoTime();
         try {
-            return databaseManager.executeWithConnection(conn -> {
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return databaseManager.executeWithConnection(pool(), conn -> {
+                try (PreparedStatement stmt = prepare(conn, sql, Statement.NO_GENERATED_KEYS)) {
 
                     // Paramètres
                     for (int i = 0; i < params.length; i++) {
@@ -85,26 +134,31 @@ public abstract class BaseRequest {
                     }
 
                     int rowsAffected = stmt.executeUpdate();
-                    logMetrics(sql, startTime);
+                    logMetrics(context, sql, params, startTime);
                     return rowsAffected;
                 }
             }, context);
 
         } catch (Exception e) {
+            DatabaseContext.checkDeadline();
             logger.error("Erreur lors de la requête [{}]: {}", sql, e.getMessage(), e);
             return 0;
         }
     }
 
     protected Integer executeUpdateWithGeneratedKeys(String sql, String context, Object... params) {
+        QueryRegistry.register(sql, context);
+        DatabaseContext.markWrite();
+        long startTime = System.nanoTime();
         try {
-            return databaseManager.executeWithConnection(conn -> {
-                try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            return databaseManager.executeWithConnection(pool(), conn -> {
+                try (PreparedStatement ps = prepare(conn, sql, Statement.RETURN_GENERATED_KEYS)) {
                     for (int i = 0; i < params.length; i++) {
                         ps.setObject(i + 1, params[i]);
                     }
 
                     int affectedRows = ps.executeUpdate();
+                    logMetrics(context, sql, params, startTime);
                     logger.debug("{} - {} row(s) affected", context, affectedRows);
 
                     if (affectedRows == 0) {
@@ -124,11 +178,130 @@ public abstract class BaseRequest {
 
 
         } catch (Exception e) {
+            DatabaseContext.checkDeadline();
+            logger.error("Error during {}: {}", context, e.getMessage());
+            throw new RuntimeException("Database error during " + context, e);
+        }
+    }
+
+    // DDL et maintenance (ALTER, DROP, ANALYZE...) : contrairement à executeUpdate, l'erreur est propagée
+    protected void executeStatement(String sql, String context) {
+        DatabaseContext.markWrite();
+        long startTime = System.nanoTime();
+        try {
+            databaseManager.executeWithConnection(pool(), conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    applyQueryTimeout(stmt);
+                    stmt.execute(sql);
+                    logMetrics(context, sql, null, startTime);
+                    return null;
+                }
+            }, context);
+
+        } catch (Exception e) {
+            DatabaseContext.checkDeadline();
+            logger.error("Error during {}: {}", context, e.getMessage());
+            throw new RuntimeException("Database error during " + context, e);
+        }
+    }
+
+    // COPY ... FROM STDIN (FORMAT csv) en streaming ; retourne le nombre de lignes chargées
+    protected long executeCopyIn(String copySql, CopyWriter writer, String context) {
+        DatabaseContext.markWrite();
+        long startTime = System.nanoTime();
+        try {
+            return databaseManager.executeWithConnection(pool(), conn -> {
+                CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+                try {
+                    CopyBuffer buffer = new CopyBuffer(copyIn);
+                    writer.write(buffer);
+                    buffer.flush();
+                    long rows = copyIn.endCopy();
+                    logMetrics(context, copySql, null, startTime);
+                    return rows;
+                } catch (Exception e) {
+                    if (copyIn.isActive()) {
+                        copyIn.cancelCopy();
+                    }
+                    throw new SQLException("COPY interrompu: " + e.getMessage(), e);
+                }
+            }, context);
+
+        } catch (Exception e) {
+            DatabaseContext.checkDeadline();
+            logger.error("Error during {}: {}", context, e.getMessage());
+            throw new RuntimeException("Database error during " + context, e);
+        }
+    }
+
+    // Plusieurs ordres sur une même connexion, validés ensemble ; rollback et propagation en cas d'erreur
+    protected <T> T executeInTransaction(TransactionWork<T> work, String context) {
+        DatabaseContext.markWrite();
+        long startTime = System.nanoTime();
+        try {
+            return databaseManager.executeWithConnection(pool(), conn -> {
+                conn.setAutoCommit(false);
+                try {
+                    applyStatementTimeout(conn);
+                    T result = work.execute(conn);
+                    conn.commit();
+                    logMetrics(context, null, null, startTime);
+                    return result;
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw new SQLException("Transaction annulée: " + e.getMessage(), e);
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }, context);
+
+        } catch (Exception e) {
+            DatabaseContext.checkDeadline();
             logger.error("Error during {}: {}", context, e.getMessage());
             throw new RuntimeException("Database error during " + context, e);
         }
     }
 
+    // Invalide les caches en mémoire de toutes les instances ; à appeler une fois l'écriture validée
+    protected void publishInvalidation(String entity, Object id) {
+        InvalidationBus.getInstance().publish(entity, id);
+    }
+
+    // Les ordres ne peuvent pas dépasser l'échéance de la requête HTTP en cours
+    private static PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+        applyQueryTimeout(stmt);
+        return stmt;
+    }
+
+    private static void applyQueryTimeout(Statement stmt) throws SQLException {
+        int seconds = DatabaseContext.queryTimeoutSeconds();
+        if (seconds > 0) {
+            stmt.setQueryTimeout(seconds);
+        }
+    }
+
+    // En transaction, borne à la milliseconde valable pour tous les ordres de la transaction
+    private static void applyStatementTimeout(Connection conn) throws SQLException {
+        RequestDeadline deadline = DatabaseContext.currentDeadline();
+        if (deadline == null) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LOCAL statement_timeout = " + Math.max(1, deadline.remainingMillis()));
+        }
+    }
+
+    @FunctionalInterface
+    protected interface TransactionWork<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    protected interface CopyWriter {
+        void write(CopyBuffer buffer) throws SQLException;
+    }
+
     @FunctionalInterface
     protected interface ResultSetMapper<T> {
         T map(ResultSet rs) throws SQLException;
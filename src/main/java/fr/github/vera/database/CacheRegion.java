@@ -0,0 +1,12 @@
+package fr.github.vera.database;
+
+// Cache en mémoire invalidé par InvalidationBus, sur cette instance comme sur les autres.
+// entity : table modifiée ; id : identifiant de la ligne, sous forme texte (transporté par NOTIFY)
+public interface CacheRegion {
+    String name();
+
+    void invalidate(String entity, String id);
+
+    // Notifications perdues (reconnexion de l'écoute, file saturée) : tout le contenu est suspect
+    void invalidateAll();
+}
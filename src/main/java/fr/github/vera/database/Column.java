@@ -11,4 +11,7 @@ public @interface Column {
     String name();
 
     boolean updatable() default true;
+
+    // Colonne JSONB : la valeur (texte JSON) est liée en tant que jsonb et non varchar
+    boolean jsonb() default false;
 }
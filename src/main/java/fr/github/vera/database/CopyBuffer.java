@@ -0,0 +1,69 @@
+package fr.github.vera.database;
+
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+// Tampon CSV pour COPY ... FROM STDIN (FORMAT csv) : les lignes sont envoyées par blocs de 64 Ko
+public class CopyBuffer {
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    private long rows;
+
+    CopyBuffer(CopyIn copyIn) {
+        this.copyIn = copyIn;
+    }
+
+    public void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            appendValue(values[i]);
+        }
+        buffer.append('\n');
+        rows++;
+
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    void flush() throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // NULL = champ vide non quoté ; les chaînes sont toujours quotées ("" pour échapper un guillemet)
+    private void appendValue(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            buffer.append(value);
+            return;
+        }
+
+        String text = value.toString();
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+}
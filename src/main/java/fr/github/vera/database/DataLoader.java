@@ -0,0 +1,114 @@
+package fr.github.vera.database;
+
+import com.codahale.metrics.Histogram;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.model.Identifiable;
+import fr.github.vera.repository.IRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Regroupe les chargements par identifiant d'une requête HTTP en une requête WHERE id = ANY(?) (findAllByIds)
+// et garde les entités chargées en cache jusqu'à la fin de la requête, ou jusqu'à sa première écriture.
+// load() met l'identifiant en attente ; dispatch(), get() et loadMany() exécutent les chargements en attente.
+public final class DataLoader<T extends Identifiable<I>, I> {
+    private static final int MAX_BATCH_SIZE =
+            Math.max(1, ConfigProperties.getInstance().getIntProperty("db.loader.max-batch-size", 500));
+    private static final Histogram BATCH_SIZES = MetricsRegistry.get().histogram("db.loader.batch-size");
+
+    private final IRepository<T, I> repository;
+    private final Map<I, CompletableFuture<Optional<T>>> cache = new HashMap<>();
+    private final Map<I, CompletableFuture<Optional<T>>> pending = new LinkedHashMap<>();
+
+    private DataLoader(IRepository<T, I> repository) {
+        this.repository = repository;
+    }
+
+    // Loader partagé par la requête en cours pour ce repository ; hors requête HTTP, un loader non partagé
+    public static <T extends Identifiable<I>, I> DataLoader<T, I> forRequest(IRepository<T, I> repository) {
+        return DatabaseContext.loader(repository.getClass(), () -> new DataLoader<>(repository));
+    }
+
+    public synchronized CompletableFuture<Optional<T>> load(I id) {
+        CompletableFuture<Optional<T>> future = cache.get(id);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            cache.put(id, future);
+            pending.put(id, future);
+        }
+        return future;
+    }
+
+    public Optional<T> get(I id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        CompletableFuture<Optional<T>> future = load(id);
+        dispatch();
+        return await(future);
+    }
+
+    // Entités trouvées, dans l'ordre des identifiants demandés ; les identifiants introuvables sont absents
+    public Map<I, T> loadMany(Collection<I> ids) {
+        Map<I, CompletableFuture<Optional<T>>> futures = new LinkedHashMap<>();
+        for (I id : ids) {
+            if (id != null && !futures.containsKey(id)) {
+                futures.put(id, load(id));
+            }
+        }
+        dispatch();
+
+        Map<I, T> entities = new LinkedHashMap<>();
+        futures.forEach((id, future) -> await(future).ifPresent(entity -> entities.put(id, entity)));
+        return entities;
+    }
+
+    public void dispatch() {
+        Map<I, CompletableFuture<Optional<T>>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+
+        List<I> ids = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            List<I> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_BATCH_SIZE));
+            BATCH_SIZES.update(chunk.size());
+            try {
+                Map<I, T> found = new HashMap<>();
+                for (T entity : repository.findAllByIds(chunk)) {
+                    found.put(entity.getId(), entity);
+                }
+                chunk.forEach(id -> batch.get(id).complete(Optional.ofNullable(found.get(id))));
+            } catch (RuntimeException e) {
+                // Un échec n'est pas mis en cache : un appel suivant relance la requête
+                synchronized (this) {
+                    chunk.forEach(cache::remove);
+                }
+                chunk.forEach(id -> batch.get(id).completeExceptionally(e));
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package fr.github.vera.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Contexte de la requête HTTP en cours pour le routage primaire / réplique (lecture de ses propres écritures).
+// Après une écriture, les lectures de la même requête et celles du même utilisateur pendant
+// db.replica.sticky-window-ms vont au primaire : une réplique en retard ne doit pas les masquer.
+// Porte aussi le pool de connexions imposé au thread (annotation @DatabasePool, tâches de fond)
+// l'échéance de la requête (RequestDeadlineFilter) et ses DataLoader. capture() transporte ce contexte
+// vers les threads de DatabaseExecutor (requêtes asynchrones).
+public final class DatabaseContext {
+    private static final ThreadLocal<State> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<PoolType> POOL = new ThreadLocal<>();
+    private static final ThreadLocal<RequestDeadline> DEADLINE = new ThreadLocal<>();
+    private static final Map<String, Long> LAST_WRITES = new ConcurrentHashMap<>();
+    private static final int PURGE_THRESHOLD = 10_000;
+    private static volatile long stickyWindowNanos = TimeUnit.SECONDS.toNanos(5);
+
+    private DatabaseContext() {
+    }
+
+    static void setStickyWindowMillis(long millis) {
+        stickyWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+    }
+
+    // stickyKey : utilisateur authentifié, null pour une requête anonyme (collage limité à la requête)
+    public static void begin(String stickyKey) {
+        // Par sécurité : InFlightRequestFilter et BaseResource.resume nettoient déjà le thread
+        end();
+        CURRENT.set(new State(stickyKey));
+    }
+
+    public static void end() {
+        CURRENT.remove();
+        POOL.remove();
+        DEADLINE.remove();
+    }
+
+    public static void setDeadline(RequestDeadline deadline) {
+        DEADLINE.set(deadline);
+    }
+
+    static RequestDeadline currentDeadline() {
+        return DEADLINE.get();
+    }
+
+    // DeadlineExceededException si l'échéance est passée ou la requête annulée (client déconnecté)
+    static void checkDeadline() {
+        RequestDeadline deadline = DEADLINE.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    // Budget restant arrondi à la seconde supérieure pour Statement.setQueryTimeout ; 0 : pas d'échéance
+    static int queryTimeoutSeconds() {
+        RequestDeadline deadline = DEADLINE.get();
+        if (deadline == null) {
+            return 0;
+        }
+        return (int) Math.max(1, (deadline.remainingMillis() + 999) / 1000);
+    }
+
+    public static void usePool(PoolType pool) {
+        POOL.set(pool);
+    }
+
+    // null : pool du repository
+    static PoolType currentPool() {
+        return POOL.get();
+    }
+
+    // Exécute une tâche de fond sur un pool donné, puis rétablit le pool précédent du thread
+    public static <T> T callInPool(PoolType pool, Supplier<T> work) {
+        PoolType previous = POOL.get();
+        POOL.set(pool);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                POOL.remove();
+            } else {
+                POOL.set(previous);
+            }
+        }
+    }
+
+    public static void runInPool(PoolType pool, Runnable work) {
+        callInPool(pool, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Contexte du thread courant, à réinstaller sur le thread qui exécute la requête asynchrone
+    public static Snapshot capture() {
+        return new Snapshot(CURRENT.get(), POOL.get(), DEADLINE.get());
+    }
+
+    // Loader de la requête en cours (un par clé) ; sans contexte, un loader à usage unique
+    @SuppressWarnings("unchecked")
+    static <L> L loader(Object key, Supplier<L> factory) {
+        State state = CURRENT.get();
+        if (state == null) {
+            return factory.get();
+        }
+        return (L) state.loaders.computeIfAbsent(key, ignored -> factory.get());
+    }
+
+    static void markWrite() {
+        State state = CURRENT.get();
+        if (state == null) {
+            return;
+        }
+        state.wrote = true;
+        // Les entités en cache peuvent avoir été modifiées par l'écriture
+        state.loaders.clear();
+        if (state.stickyKey != null) {
+            if (LAST_WRITES.size() > PURGE_THRESHOLD) {
+                purgeExpired();
+            }
+            LAST_WRITES.put(state.stickyKey, System.nanoTime());
+        }
+    }
+
+    static boolean requiresPrimary() {
+        State state = CURRENT.get();
+        if (state == null) {
+            return false;
+        }
+        if (state.wrote) {
+            return true;
+        }
+        if (state.stickyKey == null) {
+            return false;
+        }
+        Long lastWrite = LAST_WRITES.get(state.stickyKey);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < stickyWindowNanos) {
+            return true;
+        }
+        LAST_WRITES.remove(state.stickyKey, lastWrite);
+        return false;
+    }
+
+    private static void purgeExpired() {
+        long now = System.nanoTime();
+        LAST_WRITES.values().removeIf(lastWrite -> now - lastWrite >= stickyWindowNanos);
+    }
+
+    // L'état est partagé entre les requêtes parallèles d'une même requête HTTP
+    private static final class State {
+        private final String stickyKey;
+        private final Map<Object, Object> loaders = new ConcurrentHashMap<>();
+        private volatile boolean wrote;
+
+        private State(String stickyKey) {
+            this.stickyKey = stickyKey;
+        }
+    }
+
+    public static final class Snapshot {
+        private final State state;
+        private final PoolType pool;
+        private final RequestDeadline deadline;
+
+        private Snapshot(State state, PoolType pool, RequestDeadline deadline) {
+            this.state = state;
+            this.pool = pool;
+            this.deadline = deadline;
+        }
+
+        RequestDeadline deadline() {
+            return deadline;
+        }
+
+        public <T> T call(Supplier<T> work) {
+            set(CURRENT, state);
+            set(POOL, pool);
+            set(DEADLINE, deadline);
+            try {
+                return work.get();
+            } finally {
+                end();
+            }
+        }
+
+        private static <V> void set(ThreadLocal<V> local, V value) {
+            if (value == null) {
+                local.remove();
+            } else {
+                local.set(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fr.github.vera.database;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.exception.DeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Exécute les requêtes des repositories de façon asynchrone (CompletableFuture) sur des threads virtuels.
+// Un sémaphore (db.async.max-concurrency) borne les ordres simultanés : au-delà, les tâches attendent sur
+// leur thread virtuel, sans bloquer de thread du serveur. Le contexte de la requête HTTP (pool, routage
+// primaire / réplique, échéance) est transporté sur le thread d'exécution.
+public final class DatabaseExecutor {
+    private static final DatabaseExecutor INSTANCE = new DatabaseExecutor();
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Timer waitTimer;
+
+    private DatabaseExecutor() {
+        int maxConcurrency = Math.max(1, ConfigProperties.getInstance().getIntProperty("db.async.max-concurrency", 32));
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-async-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency);
+
+        MetricRegistry registry = MetricsRegistry.get();
+        registry.gauge("db.async.active", () -> () -> maxConcurrency - permits.availablePermits());
+        registry.gauge("db.async.waiting", () -> permits::getQueueLength);
+        this.waitTimer = registry.timer("db.async.wait");
+    }
+
+    public static DatabaseExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        DatabaseContext.Snapshot context = DatabaseContext.capture();
+        return CompletableFuture.supplyAsync(() -> context.call(() -> {
+            acquire(context.deadline());
+            try {
+                return work.get();
+            } finally {
+                permits.release();
+            }
+        }), executor);
+    }
+
+    // L'attente d'un créneau est comptée dans le délai de la requête
+    private void acquire(RequestDeadline deadline) {
+        long start = System.nanoTime();
+        try {
+            if (deadline == null) {
+                permits.acquire();
+            } else {
+                deadline.check();
+                if (!permits.tryAcquire(Math.max(0, deadline.remainingMillis()), TimeUnit.MILLISECONDS)) {
+                    throw new DeadlineExceededException("Délai de la requête dépassé en attente d'un créneau base de données");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente d'un créneau base de données interrompue", e);
+        } finally {
+            waitTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -2,19 +2,26 @@ package fr.github.vera.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.database.migration.SchemaMigrator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DatabaseManager {
     private static final ConfigProperties CONFIG_PROPERTIES = ConfigProperties.getInstance();
@@ -22,7 +29,15 @@ public class DatabaseManager {
     private static final Object lock = new Object();
     // Singleton instance
     private static volatile DatabaseManager instance;
+    // Pool OLTP (par défaut) ; les pools REPORTING et BACKGROUND sont dans pools s'ils sont configurés
     private HikariDataSource dataSource;
+    private final Map<PoolType, HikariDataSource> pools = new EnumMap<>(PoolType.class);
+    private PoolAutosizer autosizer;
+    // Répliques en lecture (db.replica.urls) ; vide : toutes les lectures vont au primaire
+    private volatile List<ReplicaPool> replicas = List.of();
+    private final AtomicInteger replicaCursor = new AtomicInteger();
+    private ScheduledExecutorService replicaLagMonitor;
+    private long replicaMaxLagMillis;
     private boolean initialized = false;
     private boolean initializing = false;
 
@@ -58,10 +73,17 @@ public class DatabaseManager {
 
         try {
             loadPostgreSQLDriver();
-            this.dataSource = createDataSource();
+            this.dataSource = createDataSource(CONFIG_PROPERTIES.getProperty("db.url"), PoolType.OLTP.poolName(),
+                    PoolType.OLTP.settings(), false);
+            if (dataSource != null) {
+                pools.put(PoolType.OLTP, dataSource);
+            }
             testConnection();
             initializeDatabaseSchema();
-            registerShutdownHook();
+            initializeWorkloadPools();
+            initializeReplicas();
+            initializeAutosizer();
+            InvalidationBus.getInstance().start(this);
             this.initialized = true;
             logger.debug("DatabaseManager initialisé avec succès");
         } finally {
@@ -78,28 +100,31 @@ public class DatabaseManager {
         }
     }
 
-    private HikariDataSource createDataSource() {
+    private HikariDataSource createDataSource(String url, String poolName, PoolType.PoolSettings settings, boolean readOnly) {
         try {
             HikariConfig config = new HikariConfig();
 
             // Configuration PostgreSQL depuis les propriétés
-            config.setJdbcUrl(CONFIG_PROPERTIES.getProperty("db.url"));
+            config.setJdbcUrl(url);
             config.setUsername(CONFIG_PROPERTIES.getProperty("db.username"));
             config.setPassword(CONFIG_PROPERTIES.getProperty("db.password"));
             config.setDriverClassName("org.postgresql.Driver");
 
             // Configuration du pool de connexions
-            config.setMaximumPoolSize(Integer.parseInt(CONFIG_PROPERTIES.getProperty("db.pool.size")));
-            config.setMinimumIdle(Integer.parseInt(CONFIG_PROPERTIES.getProperty("db.pool.size")));
-            config.setConnectionTimeout(Long.parseLong(CONFIG_PROPERTIES.getProperty("db.connection.timeout")));
+            config.setMaximumPoolSize(settings.size());
+            config.setMinimumIdle(settings.minIdle());
+            config.setConnectionTimeout(settings.connectionTimeoutMs());
             config.setIdleTimeout(Long.parseLong(CONFIG_PROPERTIES.getProperty("db.idle.timeout")));
             config.setMaxLifetime(Long.parseLong(CONFIG_PROPERTIES.getProperty("db.max.lifetime")));
-            config.setPoolName("PostgreSQL-HikariCP-Pool");
+            config.setPoolName(poolName);
+            config.setReadOnly(readOnly);
+            // Expose l'attente de connexion, l'usage et les timeouts du pool (/admin/metric)
+            config.setMetricRegistry(MetricsRegistry.get());
 
             // Optimisations spécifiques à PostgreSQL
             config.addDataSourceProperty("ApplicationName", "api-vera");
             config.addDataSourceProperty("tcpKeepAlive", "true");
-            config.addDataSourceProperty("socketTimeout", "30");
+            config.addDataSourceProperty("socketTimeout", String.valueOf(settings.socketTimeoutSeconds()));
             config.addDataSourceProperty("connectTimeout", "10");
 
             // Performance tuning
@@ -110,6 +135,9 @@ public class DatabaseManager {
             // Encodage
             config.addDataSourceProperty("characterEncoding", "UTF-8");
 
+            // Format des snapshots d'historique, lu par les triggers (delta + checkpoints ou état complet)
+            config.addDataSourceProperty("options", historySnapshotOptions());
+
             // Validation des connexions
             config.setConnectionTestQuery("SELECT 1");
             config.setValidationTimeout(5000);
@@ -123,6 +151,108 @@ public class DatabaseManager {
         return null;
     }
 
+    private void initializeWorkloadPools() {
+        for (PoolType type : PoolType.values()) {
+            if (type == PoolType.OLTP) {
+                continue;
+            }
+            PoolType.PoolSettings settings = type.settings();
+            if (settings.size() <= 0) {
+                logger.debug("Pas de pool {} dédié, requêtes servies par le pool OLTP", type);
+                continue;
+            }
+            HikariDataSource pool = createDataSource(CONFIG_PROPERTIES.getProperty("db.url"), type.poolName(), settings, false);
+            if (pool != null) {
+                pools.put(type, pool);
+                logger.debug("Pool {} créé ({} connexions)", type, settings.size());
+            }
+        }
+    }
+
+    private void initializeAutosizer() {
+        if (!CONFIG_PROPERTIES.getBooleanProperty("db.pool.autosize.enabled", false)) {
+            return;
+        }
+        Map<PoolType, PoolType.PoolSettings> settings = new EnumMap<>(PoolType.class);
+        pools.keySet().forEach(type -> settings.put(type, type.settings()));
+        this.autosizer = new PoolAutosizer(this, Map.copyOf(pools), settings);
+        autosizer.start();
+    }
+
+    private void initializeReplicas() {
+        String urls = CONFIG_PROPERTIES.getProperty("db.replica.urls");
+        if (urls == null || urls.isBlank()) {
+            return;
+        }
+        int poolSize = CONFIG_PROPERTIES.getIntProperty("db.replica.pool.size", 10);
+        // Les lectures routées vers les répliques sont les plus longues (historique, statistiques)
+        PoolType.PoolSettings replicaSettings = new PoolType.PoolSettings(poolSize, poolSize, poolSize,
+                PoolType.OLTP.settings().connectionTimeoutMs(),
+                CONFIG_PROPERTIES.getIntProperty("db.replica.socket-timeout-seconds", 300));
+        long checkIntervalMillis = Math.max(100, CONFIG_PROPERTIES.getIntProperty("db.replica.lag-check-interval-ms", 1000));
+        this.replicaMaxLagMillis = CONFIG_PROPERTIES.getIntProperty("db.replica.max-lag-ms", 5000);
+        DatabaseContext.setStickyWindowMillis(CONFIG_PROPERTIES.getIntProperty("db.replica.sticky-window-ms", 5000));
+
+        List<ReplicaPool> pools = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "PostgreSQL-HikariCP-Replica-" + (pools.size() + 1);
+            HikariDataSource replicaDataSource = createDataSource(url.trim(), name, replicaSettings, true);
+            if (replicaDataSource == null) {
+                logger.warn("Réplique {} ignorée ({})", name, url.trim());
+                continue;
+            }
+            ReplicaPool replica = new ReplicaPool(name, replicaDataSource);
+            refreshReplicaLag(replica);
+            pools.add(replica);
+        }
+        this.replicas = List.copyOf(pools);
+        if (pools.isEmpty()) {
+            return;
+        }
+
+        for (ReplicaPool replica : pools) {
+            MetricsRegistry.get().gauge("db.replica." + replica.name() + ".lag-ms", () -> replica::lagMillis);
+        }
+        this.replicaLagMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-monitor-thread");
+            t.setDaemon(true);
+            return t;
+        });
+        replicaLagMonitor.scheduleWithFixedDelay(() -> replicas.forEach(this::refreshReplicaLag),
+                checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("{} réplique(s) en lecture configurée(s), retard max {} ms", pools.size(), replicaMaxLagMillis);
+    }
+
+    private void refreshReplicaLag(ReplicaPool replica) {
+        boolean wasUsable = replica.isUsable(replicaMaxLagMillis);
+        try {
+            replica.refreshLag();
+        } catch (SQLException e) {
+            logger.debug("Mesure du retard de {} impossible: {}", replica.name(), e.getMessage());
+        }
+        boolean usable = replica.isUsable(replicaMaxLagMillis);
+        if (wasUsable && !usable) {
+            logger.warn("Réplique {} écartée (retard {} ms), lectures redirigées vers le primaire",
+                    replica.name(), replica.lagMillis());
+        } else if (!wasUsable && usable) {
+            logger.info("Réplique {} disponible (retard {} ms)", replica.name(), replica.lagMillis());
+        }
+    }
+
+    private String historySnapshotOptions() {
+        String configured = CONFIG_PROPERTIES.getProperty("history.snapshot.mode");
+        String mode = configured == null || configured.isBlank() ? "delta" : configured.trim().toLowerCase();
+        if (!mode.equals("delta") && !mode.equals("full")) {
+            logger.warn("history.snapshot.mode invalide ({}), utilisation de 'delta'", mode);
+            mode = "delta";
+        }
+        int interval = Math.max(1, CONFIG_PROPERTIES.getIntProperty("history.snapshot.checkpoint-interval", 20));
+        return "-c vera.history_snapshot_mode=" + mode + " -c vera.history_checkpoint_interval=" + interval;
+    }
+
     private void testConnection() {
         try (Connection testConnection = getConnection()) {
             if (!testConnection.isValid(5)) {
@@ -139,17 +269,35 @@ public class DatabaseManager {
         }
     }
 
+    // Connexion hors pool gardée ouverte par une tâche de fond (LISTEN) : ne consomme pas de place dans
+    // les pools ; sans socketTimeout, l'appelant borne lui-même ses attentes
+    Connection openDedicatedConnection(String applicationName) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", CONFIG_PROPERTIES.getProperty("db.username"));
+        properties.setProperty("password", CONFIG_PROPERTIES.getProperty("db.password"));
+        properties.setProperty("ApplicationName", applicationName);
+        properties.setProperty("tcpKeepAlive", "true");
+        properties.setProperty("connectTimeout", "10");
+        return DriverManager.getConnection(CONFIG_PROPERTIES.getProperty("db.url"), properties);
+    }
+
     public Connection getConnection() {
-        if ((!initialized && !initializing) || dataSource == null) {
+        return getConnection(PoolType.OLTP);
+    }
+
+    // Pool non configuré : repli sur le pool OLTP
+    public Connection getConnection(PoolType type) {
+        HikariDataSource source = pools.getOrDefault(type, dataSource);
+        if ((!initialized && !initializing) || source == null) {
             logger.warn("DatabaseManager non initialisé - appelez initialize() d'abord");
         }
 
-        if (dataSource.isClosed()) {
+        if (source.isClosed()) {
             logger.warn("DataSource fermé - impossible d'obtenir une connexion");
         }
 
         try {
-            Connection connection = dataSource.getConnection();
+            Connection connection = source.getConnection();
             if (connection == null) {
                 logger.warn("Le pool a retourné une connexion null");
             }
@@ -171,23 +319,120 @@ public class DatabaseManager {
         return null;
     }
 
+    // Connexion pour une lecture tolérant un léger retard : réplique à jour (tourniquet), sinon le primaire.
+    // Le primaire est imposé si la requête HTTP en cours ou l'utilisateur vient d'écrire (DatabaseContext).
+    public Connection getReadConnection(PoolType fallback) {
+        List<ReplicaPool> current = replicas;
+        if (current.isEmpty() || DatabaseContext.requiresPrimary()) {
+            return getConnection(fallback);
+        }
+        int start = Math.floorMod(replicaCursor.getAndIncrement(), current.size());
+        for (int i = 0; i < current.size(); i++) {
+            ReplicaPool replica = current.get((start + i) % current.size());
+            if (!replica.isUsable(replicaMaxLagMillis)) {
+                continue;
+            }
+            try {
+                return replica.dataSource().getConnection();
+            } catch (SQLException e) {
+                // Écartée jusqu'à la prochaine mesure réussie du retard
+                replica.markUnavailable();
+                logger.warn("Connexion à la réplique {} impossible: {}", replica.name(), e.getMessage());
+            }
+        }
+        return getConnection(fallback);
+    }
+
+    // État des répliques pour /admin/health (lagMs = -1 : injoignable ou non mesurée)
+    public List<Map<String, Object>> getReplicaStatus() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (ReplicaPool replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", replica.name());
+            entry.put("lagMs", replica.lagMillis());
+            entry.put("usable", replica.isUsable(replicaMaxLagMillis));
+            status.add(entry);
+        }
+        return status;
+    }
+
     public String getPoolStats() {
         if (dataSource != null && !dataSource.isClosed()) {
-            return String.format("PostgreSQL Pool Stats - Active: %d, Idle: %d, Total: %d, Waiting: %d",
-                    dataSource.getHikariPoolMXBean().getActiveConnections(),
-                    dataSource.getHikariPoolMXBean().getIdleConnections(),
-                    dataSource.getHikariPoolMXBean().getTotalConnections(),
-                    dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection()
-            );
+            StringBuilder stats = new StringBuilder();
+            pools.forEach((type, pool) -> {
+                if (!pool.isClosed()) {
+                    stats.append(String.format("PostgreSQL Pool Stats [%s] - Active: %d, Idle: %d, Total: %d, Waiting: %d, Max: %d%n",
+                            type,
+                            pool.getHikariPoolMXBean().getActiveConnections(),
+                            pool.getHikariPoolMXBean().getIdleConnections(),
+                            pool.getHikariPoolMXBean().getTotalConnections(),
+                            pool.getHikariPoolMXBean().getThreadsAwaitingConnection(),
+                            pool.getHikariConfigMXBean().getMaximumPoolSize()));
+                }
+            });
+            return stats.toString().trim();
         }
         return "Pool PostgreSQL non disponible";
     }
 
+    // Occupation de chaque pool pour /admin/health
+    public Map<String, Map<String, Object>> getPoolStatus() {
+        Map<String, Map<String, Object>> status = new LinkedHashMap<>();
+        pools.forEach((type, pool) -> {
+            if (pool.isClosed()) {
+                return;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("active", pool.getHikariPoolMXBean().getActiveConnections());
+            entry.put("idle", pool.getHikariPoolMXBean().getIdleConnections());
+            entry.put("waiting", pool.getHikariPoolMXBean().getThreadsAwaitingConnection());
+            entry.put("maximumPoolSize", pool.getHikariConfigMXBean().getMaximumPoolSize());
+            status.put(type.name().toLowerCase(), entry);
+        });
+        return status;
+    }
+
+    // Statistiques du pool sans emprunter de connexion (null si le pool est indisponible)
+    public HikariPoolMXBean getPoolMXBean() {
+        HikariDataSource current = dataSource;
+        if (current == null || current.isClosed()) {
+            return null;
+        }
+        return current.getHikariPoolMXBean();
+    }
+
     public synchronized void shutdown() {
         cleanup();
     }
 
     private void cleanup() {
+        InvalidationBus.getInstance().stop();
+        if (autosizer != null) {
+            autosizer.stop();
+            autosizer = null;
+        }
+        pools.forEach((type, pool) -> {
+            if (type != PoolType.OLTP && !pool.isClosed()) {
+                try {
+                    pool.close();
+                } catch (Exception e) {
+                    logger.warn("Erreur lors de la fermeture du pool {}: {}", type, e.getMessage());
+                }
+            }
+        });
+        pools.clear();
+        if (replicaLagMonitor != null) {
+            replicaLagMonitor.shutdownNow();
+            replicaLagMonitor = null;
+        }
+        for (ReplicaPool replica : replicas) {
+            try {
+                replica.dataSource().close();
+            } catch (Exception e) {
+                logger.warn("Erreur lors de la fermeture de la réplique {}: {}", replica.name(), e.getMessage());
+            }
+        }
+        replicas = List.of();
         if (dataSource != null && !dataSource.isClosed()) {
             try {
                 logger.debug("Fermeture du pool de connexions PostgreSQL: {}", getPoolStats());
@@ -201,135 +446,45 @@ public class DatabaseManager {
         dataSource = null;
     }
 
-    private void registerShutdownHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            logger.debug("Shutdown hook - Fermeture du DatabaseManager PostgreSQL");
-            shutdown();
-        }));
-    }
-
     private void initializeDatabaseSchema() {
         try {
-            // Vérifier si les tables existent déjà
-            if (!isDatabaseInitialized()) {
-                logger.info("Initialisation du schéma de base de données...");
-                executeSqlScript();
-                logger.info("Schéma de base de données initialisé avec succès");
-            } else {
-                logger.debug("Base de données déjà initialisée");
-            }
+            new SchemaMigrator(this).migrate();
         } catch (Exception e) {
-            throw new RuntimeException("Erreur lors de l'initialisation du schéma", e);
+            throw new RuntimeException("Erreur lors de la migration du schéma", e);
         }
     }
 
     public <T> T executeWithConnection(DatabaseAction<T> action, String context) {
-        try (Connection conn = getConnection()) {
-            return action.execute(conn);
+        return executeWithConnection(PoolType.OLTP, action, context);
+    }
+
+    public <T> T executeWithConnection(PoolType pool, DatabaseAction<T> action, String context) {
+        try (Connection conn = getConnection(pool)) {
+            return executeWithDeadline(conn, action);
         } catch (Exception e) {
             throw new RuntimeException("Erreur inattendue lors de " + context, e);
         }
     }
 
-    private boolean isDatabaseInitialized() {
-        String checkTableSql = "SELECT EXISTS (SELECT FROM information_schema.tables WHERE table_name = 'users')";
-
-        return executeWithConnection(connection -> {
-            try (var statement = connection.createStatement();
-                 var resultSet = statement.executeQuery(checkTableSql)) {
-                return resultSet.next() && resultSet.getBoolean(1);
-            }
-        }, "vérification initialisation BDD");
-    }
-
-    private void executeSqlScript() {
-        executeWithConnection(connection -> {
-            try {
-                String script = loadScriptFromResources("/database/init.sql");
-                List<String> sqlCommands = splitSqlScript(script);
-
-                for (String sqlCommand : sqlCommands) {
-                    String trimmedSql = sqlCommand.trim();
-                    if (!trimmedSql.isEmpty() && !trimmedSql.startsWith("--")) {
-                        try (var statement = connection.createStatement()) {
-                            statement.execute(trimmedSql);
-                            logger.debug("SQL exécuté: {}", trimmedSql.substring(0, Math.min(50, trimmedSql.length())) + "...");
-                        }
-                    }
-                }
-                return null;
-            } catch (Exception e) {
-                throw new SQLException("Erreur lors de l'exécution du script SQL", e);
-            }
-        }, "exécution script d'initialisation");
-    }
-
-    private List<String> splitSqlScript(String script) {
-        List<String> commands = new ArrayList<>();
-        StringBuilder currentCommand = new StringBuilder();
-        boolean inDollarQuote = false;
-        String dollarQuoteTag = null;
-
-        String[] lines = script.split("\n");
-
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-
-            // Ignorer les commentaires complets
-            if (trimmedLine.startsWith("--") && !inDollarQuote) {
-                continue;
-            }
-
-            // Détecter les dollar quotes
-            if (trimmedLine.contains("$$")) {
-                if (!inDollarQuote) {
-                    inDollarQuote = true;
-                    dollarQuoteTag = "$$";
-                } else if (trimmedLine.contains(dollarQuoteTag)) {
-                    inDollarQuote = false;
-                }
-            }
-
-            currentCommand.append(line).append("\n");
-
-            // Si on trouve un ; en dehors d'un dollar quote, c'est la fin de la commande
-            if (!inDollarQuote && line.contains(";")) {
-                commands.add(currentCommand.toString());
-                currentCommand = new StringBuilder();
-            }
-        }
-
-        // Ajouter la dernière commande si elle existe
-        if (!currentCommand.isEmpty()) {
-            commands.add(currentCommand.toString());
+    public <T> T executeWithReadConnection(PoolType fallback, DatabaseAction<T> action, String context) {
+        try (Connection conn = getReadConnection(fallback)) {
+            return executeWithDeadline(conn, action);
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur inattendue lors de " + context, e);
         }
-
-        return commands;
     }
 
-    private String loadScriptFromResources(String path) {
+    // Connexion enregistrée auprès de l'échéance de la requête HTTP en cours, pour pouvoir l'annuler
+    private <T> T executeWithDeadline(Connection conn, DatabaseAction<T> action) throws SQLException {
+        RequestDeadline deadline = DatabaseContext.currentDeadline();
+        if (deadline == null) {
+            return action.execute(conn);
+        }
+        deadline.attach(conn);
         try {
-            // Utilise getResourceAsStream au lieu de getResource
-            InputStream inputStream = getClass().getResourceAsStream(path);
-            if (inputStream == null) {
-                // Essaye aussi avec le ClassLoader
-                inputStream = getClass().getClassLoader().getResourceAsStream(path);
-                if (inputStream == null) {
-                    throw new FileNotFoundException("Script SQL non trouvé dans les ressources: " + path);
-                }
-            }
-
-            // Lit le contenu depuis l'InputStream
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-                StringBuilder content = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
-                }
-                return content.toString();
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Impossible de charger le script SQL: " + path, e);
+            return action.execute(conn);
+        } finally {
+            deadline.detach(conn);
         }
     }
 
@@ -0,0 +1,14 @@
+package fr.github.vera.database;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Pool utilisé par un repository (classe) ou par une ressource REST (classe ou méthode).
+// Le pool de la requête HTTP en cours prime sur celui du repository.
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface DatabasePool {
+    PoolType value();
+}
@@ -0,0 +1,348 @@
+package fr.github.vera.database;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Invalidation des caches en mémoire entre instances via PostgreSQL LISTEN / NOTIFY.
+// Les repositories publient (table, id) après validation : les régions de cette instance sont invalidées
+// immédiatement, les autres instances le sont par pg_notify. Les événements sont dédoublonnés et envoyés par
+// lots toutes les db.invalidation.flush-interval-ms ; au-delà de db.invalidation.max-pending, un seul
+// « tout invalider » les remplace. Chaque instance écoute sur une connexion dédiée, hors pool ; après une
+// reconnexion, les notifications manquées sont inconnues et toutes les régions sont vidées.
+// broadcast() transporte sur le même canal des événements destinés aux seules autres instances (deltas de
+// résultats en direct) : ni dédoublonnés ni remplacés par « tout invalider », ils sont abandonnés au-delà de max-pending
+// ou si l'envoi échoue ; les autres instances reçoivent alors « entité:* » pour se resynchroniser.
+public final class InvalidationBus {
+    private static final Logger logger = LogManager.getLogger(InvalidationBus.class);
+    private static final InvalidationBus INSTANCE = new InvalidationBus();
+    // NOTIFY refuse les payloads de 8000 octets et plus
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final String ALL = "*";
+
+    private final String origin = UUID.randomUUID().toString();
+    private final List<CacheRegion> regions = new CopyOnWriteArrayList<>();
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final List<String> messages = new ArrayList<>();
+    // Entités dont des messages ont été abandonnés depuis le dernier envoi
+    private final Set<String> lostMessages = new LinkedHashSet<>();
+    private final boolean enabled;
+    private final String channel;
+    private final int flushIntervalMs;
+    private final int maxPending;
+    private final int reconnectDelayMs;
+    private final Meter published;
+    private final Meter notifications;
+    private final Meter received;
+    private final Meter flushes;
+    private final Meter droppedMessages;
+    private DatabaseManager databaseManager;
+    private ScheduledExecutorService flusher;
+    private Thread listener;
+    private volatile boolean running;
+    private volatile boolean listening;
+    private volatile Connection listenConnection;
+
+    private InvalidationBus() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.enabled = properties.getBooleanProperty("db.invalidation.enabled", true);
+        String configured = properties.getProperty("db.invalidation.channel");
+        this.channel = configured == null || configured.isBlank() ? "vera_cache_invalidation" : configured.trim();
+        this.flushIntervalMs = Math.max(1, properties.getIntProperty("db.invalidation.flush-interval-ms", 50));
+        this.maxPending = Math.max(1, properties.getIntProperty("db.invalidation.max-pending", 1000));
+        this.reconnectDelayMs = Math.max(100, properties.getIntProperty("db.invalidation.reconnect-delay-ms", 2000));
+
+        MetricRegistry registry = MetricsRegistry.get();
+        this.published = registry.meter("cache.invalidation.published");
+        this.notifications = registry.meter("cache.invalidation.notifications");
+        this.received = registry.meter("cache.invalidation.received");
+        this.flushes = registry.meter("cache.invalidation.full-flushes");
+        this.droppedMessages = registry.meter("cache.invalidation.dropped-messages");
+        registry.gauge("cache.invalidation.pending", () -> this::pendingCount);
+        registry.gauge("cache.invalidation.listening", () -> () -> listening ? 1 : 0);
+    }
+
+    public static InvalidationBus getInstance() {
+        return INSTANCE;
+    }
+
+    public void register(CacheRegion region) {
+        regions.add(region);
+        logger.debug("Région de cache {} enregistrée pour l'invalidation", region.name());
+    }
+
+    // À appeler une fois l'écriture validée : une invalidation envoyée avant le commit laisserait
+    // une autre instance recharger l'ancienne valeur
+    public void publish(String entity, Object id) {
+        if (id == null) {
+            return;
+        }
+        String key = id.toString();
+        dispatch(entity, key);
+        if (!running) {
+            return;
+        }
+        published.mark();
+        synchronized (pending) {
+            if (pending.contains(ALL)) {
+                return;
+            }
+            pending.add(entity + ":" + key);
+            if (pending.size() > maxPending) {
+                pending.clear();
+                pending.add(ALL);
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Événement pour les autres instances uniquement : l'appelant l'a déjà pris en compte localement
+    public void broadcast(String entity, String id) {
+        if (!running) {
+            return;
+        }
+        synchronized (pending) {
+            if (messages.size() >= maxPending) {
+                droppedMessages.mark();
+                lostMessages.add(entity);
+                return;
+            }
+            messages.add(entity + ":" + id);
+        }
+    }
+
+    synchronized void start(DatabaseManager databaseManager) {
+        if (!enabled) {
+            logger.info("Invalidation des caches entre instances désactivée (db.invalidation.enabled=false)");
+            return;
+        }
+        if (running) {
+            return;
+        }
+        this.databaseManager = databaseManager;
+        this.running = true;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cache-invalidation-flush-thread");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        this.listener = new Thread(this::listen, "cache-invalidation-listener-thread");
+        listener.setDaemon(true);
+        listener.start();
+        logger.info("Invalidation des caches entre instances active (canal {}, lots toutes les {} ms)", channel, flushIntervalMs);
+    }
+
+    // Avant la fermeture des pools : les derniers événements sont encore envoyés
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.shutdownNow();
+        flush();
+        closeListenConnection();
+        listener.interrupt();
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size() + messages.size();
+        }
+    }
+
+    private void flush() {
+        List<String> batch;
+        List<String> sentMessages;
+        synchronized (pending) {
+            if (pending.isEmpty() && messages.isEmpty() && lostMessages.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            sentMessages = new ArrayList<>(messages);
+            messages.clear();
+            lostMessages.forEach(entity -> sentMessages.add(entity + ":" + ALL));
+            lostMessages.clear();
+        }
+        List<String> events = new ArrayList<>(batch);
+        events.addAll(sentMessages);
+        List<String> payloads = payloads(events);
+        try {
+            databaseManager.executeWithConnection(PoolType.OLTP, conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT pg_notify(?, ?)")) {
+                    for (String payload : payloads) {
+                        stmt.setString(1, channel);
+                        stmt.setString(2, payload);
+                        stmt.execute();
+                    }
+                }
+                return null;
+            }, "envoi des invalidations de cache");
+            notifications.mark(payloads.size());
+        } catch (Exception e) {
+            // Invalidations remises en file pour le prochain envoi (file bornée par max-pending). Les messages ne le
+            // sont pas : une partie a pu être envoyée, les renvoyer compterait deux fois les mêmes deltas
+            logger.warn("Envoi de {} invalidation(s) de cache impossible : {}", events.size(), e.getMessage());
+            droppedMessages.mark(sentMessages.size());
+            synchronized (pending) {
+                sentMessages.forEach(message -> lostMessages.add(message.substring(0, message.indexOf(':'))));
+                if (!batch.isEmpty() && !pending.contains(ALL)) {
+                    pending.addAll(batch);
+                    if (pending.size() > maxPending) {
+                        pending.clear();
+                        pending.add(ALL);
+                    }
+                }
+            }
+        }
+    }
+
+    // Une ligne d'en-tête (instance d'origine) puis une ligne par événement, découpé sous la limite de NOTIFY
+    private List<String> payloads(List<String> events) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder(origin);
+        int bytes = origin.length();
+        for (String event : events) {
+            int eventBytes = event.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (bytes + eventBytes > MAX_PAYLOAD_BYTES && current.length() > origin.length()) {
+                payloads.add(current.toString());
+                current = new StringBuilder(origin);
+                bytes = origin.length();
+            }
+            current.append('\n').append(event);
+            bytes += eventBytes;
+        }
+        payloads.add(current.toString());
+        return payloads;
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection conn = databaseManager.openDedicatedConnection("api-vera-invalidation")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + quoteIdentifier(channel));
+                }
+                listenConnection = conn;
+                listening = true;
+                if (connectedBefore) {
+                    // Écoute rétablie avant le vidage : aucune invalidation ne peut plus être manquée
+                    logger.warn("Écoute des invalidations rétablie, vidage de {} région(s) de cache", regions.size());
+                    invalidateAll();
+                } else {
+                    logger.debug("Écoute des invalidations de cache sur le canal {}", channel);
+                }
+                connectedBefore = true;
+
+                PGConnection pgConnection = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] batch = pgConnection.getNotifications(1000);
+                    if (batch != null) {
+                        for (PGNotification notification : batch) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    logger.warn("Écoute des invalidations de cache interrompue, reconnexion dans {} ms : {}",
+                            reconnectDelayMs, e.getMessage());
+                }
+            } finally {
+                listening = false;
+                listenConnection = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines.length == 0 || lines[0].equals(origin)) {
+            // Déjà appliqué localement par publish()
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            received.mark();
+            String line = lines[i];
+            if (line.equals(ALL)) {
+                logger.info("Invalidation complète des caches demandée par une autre instance");
+                invalidateAll();
+                return;
+            }
+            int separator = line.indexOf(':');
+            if (separator > 0) {
+                dispatch(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+    }
+
+    private void dispatch(String entity, String id) {
+        for (CacheRegion region : regions) {
+            try {
+                region.invalidate(entity, id);
+            } catch (RuntimeException e) {
+                logger.error("Invalidation de {}:{} dans la région {} en échec: {}", entity, id, region.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        flushes.mark();
+        for (CacheRegion region : regions) {
+            try {
+                region.invalidateAll();
+            } catch (RuntimeException e) {
+                logger.error("Vidage de la région {} en échec: {}", region.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    // Débloque getNotifications à l'arrêt
+    private void closeListenConnection() {
+        Connection conn = listenConnection;
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.debug("Fermeture de la connexion d'écoute: {}", e.getMessage());
+        }
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,126 @@
+package fr.github.vera.database;
+
+import com.codahale.metrics.Snapshot;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Ajuste maximumPoolSize de chaque pool (HikariConfigMXBean) entre sa taille configurée et son plafond :
+// agrandi quand des threads attendent une connexion et que PostgreSQL a de la marge sous max_connections,
+// réduit d'une connexion quand le pool reste à moitié inactif sans attente
+final class PoolAutosizer {
+    private static final Logger logger = LogManager.getLogger(PoolAutosizer.class);
+    // Connexions clientes encore possibles, toutes instances de l'application comprises
+    private static final String HEADROOM_SQL = """
+            SELECT current_setting('max_connections')::int
+                 - current_setting('superuser_reserved_connections')::int
+                 - (SELECT count(*) FROM pg_stat_activity WHERE backend_type = 'client backend')::int
+            """;
+
+    private final DatabaseManager databaseManager;
+    private final Map<PoolType, HikariDataSource> pools;
+    private final Map<PoolType, PoolType.PoolSettings> settings;
+    private final long intervalSeconds;
+    private final double targetWaitMs;
+    private final int reservedConnections;
+    private final ScheduledExecutorService scheduler;
+
+    PoolAutosizer(DatabaseManager databaseManager, Map<PoolType, HikariDataSource> pools,
+                  Map<PoolType, PoolType.PoolSettings> settings) {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.databaseManager = databaseManager;
+        this.pools = pools;
+        this.settings = settings;
+        this.intervalSeconds = Math.max(5, properties.getIntProperty("db.pool.autosize.interval-seconds", 30));
+        this.targetWaitMs = properties.getIntProperty("db.pool.autosize.target-wait-ms", 10);
+        this.reservedConnections = properties.getIntProperty("db.pool.autosize.reserved-connections", 10);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-autosizer-thread");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        pools.forEach((type, pool) -> MetricsRegistry.get().gauge("db.pool." + type.name().toLowerCase() + ".max-size",
+                () -> () -> pool.getHikariConfigMXBean().getMaximumPoolSize()));
+        scheduler.scheduleWithFixedDelay(this::adjust, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("Autosizer des pools actif (intervalle {} s, attente cible {} ms)", intervalSeconds, targetWaitMs);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void adjust() {
+        try {
+            int headroom = databaseHeadroom() - reservedConnections;
+            for (Map.Entry<PoolType, HikariDataSource> entry : pools.entrySet()) {
+                if (!entry.getValue().isClosed()) {
+                    headroom -= adjust(entry.getKey(), entry.getValue(), headroom);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Ajustement des pools impossible: {}", e.getMessage());
+        }
+    }
+
+    // Retourne le nombre de connexions ajoutées (négatif si le pool a été réduit)
+    private int adjust(PoolType type, HikariDataSource pool, int headroom) {
+        HikariPoolMXBean stats = pool.getHikariPoolMXBean();
+        HikariConfigMXBean config = pool.getHikariConfigMXBean();
+        PoolType.PoolSettings bounds = settings.get(type);
+        int current = config.getMaximumPoolSize();
+        int waiting = stats.getThreadsAwaitingConnection();
+        double waitP95Ms = waitP95Millis(type);
+
+        int target = current;
+        if ((waiting > 0 || waitP95Ms > targetWaitMs) && current < bounds.maxSize() && headroom > 0) {
+            int step = Math.max(1, current / 4);
+            target = Math.min(bounds.maxSize(), current + Math.min(step, headroom));
+        } else if (waiting == 0 && waitP95Ms < targetWaitMs && current > bounds.size()
+                && stats.getIdleConnections() > current / 2) {
+            target = current - 1;
+        }
+        if (target == current) {
+            return 0;
+        }
+
+        // minimumIdle ne peut pas dépasser le maximum
+        if (config.getMinimumIdle() > target) {
+            config.setMinimumIdle(target);
+        } else if (type == PoolType.OLTP && target > current && config.getMinimumIdle() == current) {
+            config.setMinimumIdle(target);
+        }
+        config.setMaximumPoolSize(target);
+        logger.info("Pool {} : maximumPoolSize {} -> {} (attente p95 {} ms, {} thread(s) en attente, marge base {})",
+                type, current, target, Math.round(waitP95Ms), waiting, headroom);
+        return target - current;
+    }
+
+    // Timer d'attente de connexion publié par Hikari (en nanosecondes)
+    private double waitP95Millis(PoolType type) {
+        Snapshot snapshot = MetricsRegistry.get().timer(type.poolName() + ".pool.Wait").getSnapshot();
+        return snapshot.get95thPercentile() / 1_000_000.0;
+    }
+
+    private int databaseHeadroom() {
+        return databaseManager.executeWithConnection(PoolType.BACKGROUND, conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(HEADROOM_SQL)) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }, "marge de connexions PostgreSQL");
+    }
+}
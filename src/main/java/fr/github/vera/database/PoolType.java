@@ -0,0 +1,42 @@
+package fr.github.vera.database;
+
+import fr.github.vera.config.ConfigProperties;
+
+import java.util.Locale;
+
+// Pools de connexions par type de charge : une longue lecture d'historique ou un import
+// ne doit pas priver la connexion ou la saisie de réponses de connexions
+public enum PoolType {
+    // Requêtes courtes des utilisateurs (défaut), clés historiques db.pool.size / db.connection.timeout
+    OLTP,
+    // Historique, statistiques, analyses admin : requêtes longues, peu nombreuses
+    REPORTING,
+    // Imports, rétention, tâches planifiées
+    BACKGROUND;
+
+    public String poolName() {
+        return this == OLTP
+                ? "PostgreSQL-HikariCP-Pool"
+                : "PostgreSQL-HikariCP-" + name().charAt(0) + name().substring(1).toLowerCase(Locale.ROOT);
+    }
+
+    // size = 0 : pas de pool dédié, les requêtes passent par le pool OLTP
+    PoolSettings settings() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        int size = properties.getIntProperty(key("size"), this == OLTP ? 10 : 0);
+        return new PoolSettings(
+                size,
+                this == OLTP ? size : Math.min(size, 1),
+                Math.max(size, properties.getIntProperty(key("max-size"), size * 2)),
+                properties.getIntProperty(this == OLTP ? "db.connection.timeout" : key("connection-timeout"), 30_000),
+                properties.getIntProperty(key("socket-timeout-seconds"), 30));
+    }
+
+    private String key(String suffix) {
+        return this == OLTP ? "db.pool." + suffix : "db.pool." + name().toLowerCase(Locale.ROOT) + "." + suffix;
+    }
+
+    // maxSize : plafond de l'autosizer ; socketTimeoutSeconds = 0 : pas de limite
+    record PoolSettings(int size, int minIdle, int maxSize, int connectionTimeoutMs, int socketTimeoutSeconds) {
+    }
+}
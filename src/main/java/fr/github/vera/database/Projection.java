@@ -0,0 +1,114 @@
+package fr.github.vera.database;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.github.vera.config.JerseyConfig;
+import fr.github.vera.exception.InvalidDataException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Propriétés d'une entité demandées par ?fields= (noms des propriétés JSON, id toujours inclus) :
+// seules ces colonnes sont sélectionnées, lues par le mapping et renvoyées dans la réponse.
+// Seules les propriétés portées par une @Column visible en JSON peuvent être demandées.
+public final class Projection<T> {
+    private static final ObjectMapper MAPPER = JerseyConfig.createObjectMapper();
+    private static final Map<Class<?>, Map<String, Field>> SELECTABLE = new ConcurrentHashMap<>();
+
+    private final Map<String, Field> fields;
+
+    private Projection(Map<String, Field> fields) {
+        this.fields = fields;
+    }
+
+    // null si aucun champ n'est demandé : entité complète
+    public static <T> Projection<T> parse(Class<T> entityClass, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Map<String, Field> selectable = selectable(entityClass);
+        Map<String, Field> selected = new LinkedHashMap<>();
+        if (selectable.containsKey("id")) {
+            selected.put("id", selectable.get("id"));
+        }
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            Field field = selectable.get(property);
+            if (field == null) {
+                throw new InvalidDataException("Champ inconnu dans fields : " + property
+                        + " (autorisés : " + String.join(", ", new TreeMap<>(selectable).keySet()) + ")");
+            }
+            selected.put(property, field);
+        }
+        return new Projection<>(selected);
+    }
+
+    public String selectList() {
+        return fields.values().stream()
+                .map(field -> field.getAnnotation(Column.class).name())
+                .collect(Collectors.joining(", "));
+    }
+
+    Iterable<Field> fields() {
+        return fields.values();
+    }
+
+    public ObjectNode toJson(T entity) {
+        ObjectNode node = MAPPER.valueToTree(entity);
+        node.retain(fields.keySet());
+        return node;
+    }
+
+    public List<ObjectNode> toJson(List<T> entities) {
+        List<ObjectNode> nodes = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            nodes.add(toJson(entity));
+        }
+        return nodes;
+    }
+
+    // Propriétés JSON de l'entité adossées à une colonne, calculées une fois par classe
+    private static Map<String, Field> selectable(Class<?> entityClass) {
+        return SELECTABLE.computeIfAbsent(entityClass, type -> {
+            Map<String, Field> columns = new LinkedHashMap<>();
+            BeanDescription description = MAPPER.getSerializationConfig().introspect(MAPPER.constructType(type));
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                Field field = columnField(type, property.getInternalName());
+                if (field != null) {
+                    field.setAccessible(true);
+                    columns.put(property.getName(), field);
+                }
+            }
+            return Collections.unmodifiableMap(columns);
+        });
+    }
+
+    // Champ de même nom que la propriété, ou isX pour un booléen exposé par l'accesseur isX()
+    private static Field columnField(Class<?> type, String property) {
+        String booleanField = "is" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String candidate : List.of(property, booleanField)) {
+            try {
+                Field field = type.getDeclaredField(candidate);
+                if (field.isAnnotationPresent(Column.class) && !field.isAnnotationPresent(JsonIgnore.class)) {
+                    return field;
+                }
+            } catch (NoSuchFieldException e) {
+                // Candidat suivant
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package fr.github.vera.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Requêtes SQL exécutées par les repositories depuis le démarrage (texte -> contexte), analysées par /admin/index-advisor.
+// Borné : le SQL construit dynamiquement (listes IN de taille variable) ne peut pas faire grossir le registre indéfiniment.
+public final class QueryRegistry {
+    private static final int MAX_QUERIES = 1000;
+    private static final Map<String, String> QUERIES = new ConcurrentHashMap<>();
+
+    private QueryRegistry() {
+    }
+
+    static void register(String sql, String context) {
+        if (QUERIES.size() < MAX_QUERIES || QUERIES.containsKey(sql)) {
+            QUERIES.putIfAbsent(sql, context);
+        }
+    }
+
+    public static Map<String, String> snapshot() {
+        return Map.copyOf(QUERIES);
+    }
+}
@@ -0,0 +1,62 @@
+package fr.github.vera.database;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Pool d'une réplique en lecture et son dernier retard mesuré ; inutilisable tant qu'aucune mesure n'a réussi
+final class ReplicaPool {
+    // Réplique à jour (rien à rejouer) : retard nul même si la dernière transaction rejouée est ancienne
+    private static final String LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE((EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint, -1)
+            END
+            """;
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private volatile long lagMillis = -1;
+
+    ReplicaPool(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    String name() {
+        return name;
+    }
+
+    HikariDataSource dataSource() {
+        return dataSource;
+    }
+
+    // -1 : inconnu (réplique injoignable ou pas encore mesurée)
+    long lagMillis() {
+        return lagMillis;
+    }
+
+    boolean isUsable(long maxLagMillis) {
+        long lag = lagMillis;
+        return lag >= 0 && lag <= maxLagMillis && !dataSource.isClosed();
+    }
+
+    void markUnavailable() {
+        lagMillis = -1;
+    }
+
+    void refreshLag() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LAG_SQL)) {
+            lagMillis = rs.next() ? rs.getLong(1) : -1;
+        } catch (SQLException e) {
+            lagMillis = -1;
+            throw e;
+        }
+    }
+}
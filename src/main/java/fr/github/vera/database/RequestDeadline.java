@@ -0,0 +1,96 @@
+package fr.github.vera.database;
+
+import fr.github.vera.exception.DeadlineExceededException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Échéance d'une requête HTTP. Les connexions en cours d'utilisation (plusieurs si la requête lance des
+// ordres en parallèle via DatabaseExecutor) sont enregistrées pour que leurs ordres SQL soient annulés
+// (cancel PostgreSQL) dès l'échéance ou la déconnexion du client, et les connexions rendues au pool.
+public final class RequestDeadline {
+    private static final Logger logger = LogManager.getLogger(RequestDeadline.class);
+    private static final ScheduledThreadPoolExecutor WATCHDOG = createWatchdog();
+
+    private final long deadlineNanos;
+    private final ScheduledFuture<?> timer;
+    private final Set<Connection> connections = new HashSet<>();
+    private volatile String cancelReason;
+
+    public RequestDeadline(long budgetMillis) {
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.timer = WATCHDOG.schedule(() -> cancel("Délai de la requête dépassé (" + budgetMillis + " ms)"),
+                budgetMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor createWatchdog() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "request-deadline-thread");
+            t.setDaemon(true);
+            return t;
+        });
+        // Les échéances des requêtes terminées à temps ne doivent pas s'accumuler dans la file
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    // Appelé par le watchdog ou à la fermeture de la connexion du client (autre thread)
+    public synchronized void cancel(String reason) {
+        if (cancelReason != null) {
+            return;
+        }
+        cancelReason = reason;
+        if (!connections.isEmpty()) {
+            logger.warn("Annulation de {} ordre(s) SQL en cours : {}", connections.size(), reason);
+            connections.forEach(RequestDeadline::cancelQuery);
+        }
+    }
+
+    public void check() {
+        String reason = cancelReason;
+        if (reason == null && remainingMillis() <= 0) {
+            reason = "Délai de la requête dépassé";
+        }
+        if (reason != null) {
+            throw new DeadlineExceededException(reason);
+        }
+    }
+
+    public boolean isExceeded() {
+        return cancelReason != null || remainingMillis() <= 0;
+    }
+
+    // La connexion n'est rendue au pool qu'après detach : une annulation ne peut pas toucher un autre emprunteur
+    synchronized void attach(Connection conn) {
+        check();
+        connections.add(conn);
+    }
+
+    synchronized void detach(Connection conn) {
+        connections.remove(conn);
+    }
+
+    public void close() {
+        timer.cancel(false);
+    }
+
+    private static void cancelQuery(Connection conn) {
+        try {
+            conn.unwrap(PGConnection.class).cancelQuery();
+        } catch (SQLException e) {
+            logger.warn("Annulation de l'ordre SQL impossible: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package fr.github.vera.database;
+
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.model.SlowQuerySample;
+import fr.github.vera.model.SlowQueryStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Requêtes lentes (au-delà de db.slow-query.threshold-ms) regroupées par empreinte : SQL normalisé sans
+// littéraux, listes de ? repliées. Les pires empreintes et les dernières exécutions sont gardées en mémoire
+// (taille bornée) ; un échantillon des SELECT lents est rejoué avec EXPLAIN (ANALYZE, BUFFERS).
+public final class SlowQueryMonitor {
+    private static final Logger logger = LogManager.getLogger(SlowQueryMonitor.class);
+    private static final SlowQueryMonitor INSTANCE = new SlowQueryMonitor();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$])\\d+(?:\\.\\d+)?");
+    private static final Pattern POSITIONAL_PARAMETER = Pattern.compile("\\$\\d+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern REPEATED_ROWS = Pattern.compile("(\\(\\?(?:\\.\\.\\.)?\\))(?:\\s*,\\s*\\1)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern WRITE_KEYWORD = Pattern.compile("\\b(insert|update|delete|merge|for\\s+update|for\\s+share)\\b");
+    // Un même plan au plus une fois par minute et par empreinte
+    private static final long EXPLAIN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final long thresholdNanos;
+    private final int maxFingerprints;
+    private final int explainSamplePercent;
+    private final int explainTimeoutMs;
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final SlowQuerySample[] recent;
+    private final ThreadPoolExecutor explainExecutor;
+    private int recentNext;
+
+    private SlowQueryMonitor() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIntProperty("db.slow-query.threshold-ms", 100));
+        this.maxFingerprints = Math.max(1, properties.getIntProperty("db.slow-query.max-fingerprints", 100));
+        this.recent = new SlowQuerySample[Math.max(1, properties.getIntProperty("db.slow-query.recent-size", 200))];
+        this.explainSamplePercent = Math.clamp(properties.getIntProperty("db.slow-query.explain-sample-percent", 0), 0, 100);
+        this.explainTimeoutMs = properties.getIntProperty("db.slow-query.explain-timeout-ms", 10_000);
+        // Un seul EXPLAIN ANALYZE à la fois, les suivants sont abandonnés si la file est pleine
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(8), r -> {
+            Thread t = new Thread(r, "slow-query-explain-thread");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        MetricsRegistry.get().gauge("db.slow-query.fingerprints", () -> aggregates::size);
+    }
+
+    public static SlowQueryMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    // sql null : transaction (plusieurs ordres), regroupée par contexte et jamais rejouée.
+    // Retourne true si l'exécution a été retenue comme lente.
+    boolean record(String context, String sql, Object[] params, long elapsedNanos) {
+        if (elapsedNanos < thresholdNanos) {
+            return false;
+        }
+        double durationMs = elapsedNanos / 1_000_000.0;
+        String normalized = sql == null ? "TRANSACTION " + context : normalize(sql);
+        String fingerprint = fingerprint(normalized);
+        logger.warn("Slow SQL Query detected [{}] {}: {} executed in {}ms", fingerprint, context,
+                sql == null ? normalized : sql, Math.round(durationMs));
+
+        Aggregate existing = aggregates.get(fingerprint);
+        Aggregate aggregate = existing != null
+                ? existing
+                : admit(fingerprint, normalized, context, parameterShape(params), elapsedNanos);
+        if (aggregate != null) {
+            aggregate.add(elapsedNanos);
+        }
+        addRecent(new SlowQuerySample(fingerprint, context, durationMs, LocalDateTime.now()));
+
+        if (aggregate != null && sql != null && params != null && shouldExplain(aggregate, normalized)) {
+            Object[] values = params.clone();
+            explainExecutor.execute(() -> explain(aggregate, sql, values));
+        }
+        return true;
+    }
+
+    public List<SlowQueryStats> getWorstQueries() {
+        return aggregates.values().stream()
+                .map(Aggregate::toStats)
+                .sorted(Comparator.comparingDouble(SlowQueryStats::maxMs).reversed())
+                .toList();
+    }
+
+    public Optional<SlowQueryStats> getQuery(String fingerprint) {
+        return Optional.ofNullable(aggregates.get(fingerprint)).map(Aggregate::toStats);
+    }
+
+    // Plus récentes en premier
+    public synchronized List<SlowQuerySample> getRecentSamples() {
+        List<SlowQuerySample> samples = new ArrayList<>(recent.length);
+        for (int i = 1; i <= recent.length; i++) {
+            SlowQuerySample sample = recent[Math.floorMod(recentNext - i, recent.length)];
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    public synchronized void reset() {
+        aggregates.clear();
+        Arrays.fill(recent, null);
+        recentNext = 0;
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = POSITIONAL_PARAMETER.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?...)");
+        return REPEATED_ROWS.matcher(normalized).replaceAll("$1, ...");
+    }
+
+    private static String fingerprint(String normalized) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> parameterShape(Object[] params) {
+        if (params == null) {
+            return List.of();
+        }
+        return Arrays.stream(params)
+                .map(param -> param == null ? "null" : param.getClass().getSimpleName())
+                .toList();
+    }
+
+    // Registre plein : la nouvelle empreinte ne remplace la moins lente que si elle est plus lente qu'elle
+    private synchronized Aggregate admit(String fingerprint, String normalized, String context,
+                                         List<String> shape, long elapsedNanos) {
+        Aggregate existing = aggregates.get(fingerprint);
+        if (existing != null) {
+            return existing;
+        }
+        if (aggregates.size() >= maxFingerprints) {
+            Aggregate fastest = aggregates.values().stream()
+                    .min(Comparator.comparingLong(Aggregate::maxNanos))
+                    .orElse(null);
+            if (fastest == null || fastest.maxNanos() >= elapsedNanos) {
+                return null;
+            }
+            aggregates.remove(fastest.fingerprint);
+        }
+        Aggregate aggregate = new Aggregate(fingerprint, normalized, context, shape);
+        aggregates.put(fingerprint, aggregate);
+        return aggregate;
+    }
+
+    private synchronized void addRecent(SlowQuerySample sample) {
+        recent[recentNext] = sample;
+        recentNext = (recentNext + 1) % recent.length;
+    }
+
+    // EXPLAIN ANALYZE exécute la requête : seules les lectures pures sont rejouées
+    private boolean shouldExplain(Aggregate aggregate, String normalized) {
+        if (explainSamplePercent == 0 || ThreadLocalRandom.current().nextInt(100) >= explainSamplePercent) {
+            return false;
+        }
+        String lower = normalized.toLowerCase(Locale.ROOT);
+        if (!(lower.startsWith("select") || lower.startsWith("with")) || WRITE_KEYWORD.matcher(lower).find()) {
+            return false;
+        }
+        return aggregate.claimExplain();
+    }
+
+    // Connexion distincte (pool BACKGROUND), transaction en lecture seule annulée, borne de durée : sans effet sur la base
+    private void explain(Aggregate aggregate, String sql, Object[] params) {
+        try {
+            String plan = DatabaseManager.getInstance().executeWithConnection(PoolType.BACKGROUND, conn -> {
+                conn.setAutoCommit(false);
+                conn.setReadOnly(true);
+                try {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("SET LOCAL statement_timeout = " + explainTimeoutMs);
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql)) {
+                        for (int i = 0; i < params.length; i++) {
+                            stmt.setObject(i + 1, params[i]);
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            return rs.next() ? rs.getString(1) : null;
+                        }
+                    }
+                } finally {
+                    conn.rollback();
+                    conn.setReadOnly(false);
+                    conn.setAutoCommit(true);
+                }
+            }, "EXPLAIN ANALYZE");
+            aggregate.setPlan(plan);
+            logger.info("Plan de la requête lente {} capturé", aggregate.fingerprint);
+        } catch (Exception e) {
+            logger.warn("EXPLAIN ANALYZE de la requête lente {} impossible: {}", aggregate.fingerprint, e.getMessage());
+        }
+    }
+
+    private static final class Aggregate {
+        private final String fingerprint;
+        private final String sql;
+        private final String context;
+        private final List<String> parameterShape;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private LocalDateTime lastSeen;
+        private String lastPlan;
+        private LocalDateTime lastPlanAt;
+        private long lastExplainNanos;
+        private boolean explained;
+
+        private Aggregate(String fingerprint, String sql, String context, List<String> parameterShape) {
+            this.fingerprint = fingerprint;
+            this.sql = sql;
+            this.context = context;
+            this.parameterShape = parameterShape;
+        }
+
+        private synchronized void add(long elapsedNanos) {
+            count++;
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+            lastSeen = LocalDateTime.now();
+        }
+
+        private synchronized long maxNanos() {
+            return maxNanos;
+        }
+
+        private synchronized boolean claimExplain() {
+            long now = System.nanoTime();
+            if (explained && now - lastExplainNanos < EXPLAIN_INTERVAL_NANOS) {
+                return false;
+            }
+            explained = true;
+            lastExplainNanos = now;
+            return true;
+        }
+
+        private synchronized void setPlan(String plan) {
+            lastPlan = plan;
+            lastPlanAt = LocalDateTime.now();
+        }
+
+        private synchronized SlowQueryStats toStats() {
+            return new SlowQueryStats(fingerprint, sql, context, parameterShape, count,
+                    totalNanos / 1_000_000.0,
+                    count == 0 ? 0 : totalNanos / 1_000_000.0 / count,
+                    maxNanos / 1_000_000.0,
+                    lastSeen, lastPlan, lastPlanAt);
+        }
+    }
+}
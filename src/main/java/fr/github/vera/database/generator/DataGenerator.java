@@ -0,0 +1,410 @@
+package fr.github.vera.database.generator;
+
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.database.BaseRequest;
+import fr.github.vera.database.CopyBuffer;
+import fr.github.vera.repository.HistoryPartitionRepository;
+import fr.github.vera.security.PasswordEncoder;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Génère un jeu de données réaliste et déterministe via COPY (CSV), avec plusieurs connexions en parallèle.
+// Les identifiants sont réservés dans les séquences, ce qui permet de calculer les clés étrangères sans relire la base.
+public class DataGenerator extends BaseRequest {
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int MINUTES_PER_YEAR = 365 * 24 * 60;
+    private static final int ROWS_PER_CHUNK = 200_000;
+    // Même valeur que celle transmise aux triggers (DatabaseManager) : le replay attend un checkpoint toutes les N versions
+    private static final int CHECKPOINT_INTERVAL =
+            Math.max(1, ConfigProperties.getInstance().getIntProperty("history.snapshot.checkpoint-interval", 20));
+    // Survey sur un an + historique et réponses jusqu'à 3 mois après
+    private static final int GENERATED_MONTHS = 16;
+    private static final String[] ANONYMIZATIONS = {"none", "low", "medium", "high"};
+    private static final String[] OPTIONS = {"Très satisfait", "Satisfait", "Neutre", "Insatisfait", "Très insatisfait"};
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Claire", "David", "Emma", "Farid", "Gaëlle", "Hugo", "Inès", "Jules"};
+    private static final String[] SURNAMES = {"Martin", "Bernard", "Leroy", "Moreau", "Petit", "Durand", "Dubois", "Lefebvre"};
+    private static final String[] HISTORY_TRIGGERS = {
+            "survey:survey_history_trigger",
+            "survey:survey_status_history_trigger",
+            "question:question_history_trigger"
+    };
+
+    private final GeneratorConfig config;
+
+    public DataGenerator(GeneratorConfig config) {
+        this.config = config;
+    }
+
+    public static String emailFor(long userId) {
+        return "user" + userId + "@generated.vera";
+    }
+
+    public GenerationResult generate() {
+        long start = System.currentTimeMillis();
+        logger.info("Génération : {} utilisateurs, {} surveys, {} questions, {} réponses (graine {}, {} writer(s))",
+                config.users(), config.surveys(), config.totalQuestions(), config.totalAnswers(),
+                config.seed(), config.parallelism());
+
+        IdRange users = reserve("users", config.users());
+        IdRange surveys = reserve("survey", config.surveys());
+        IdRange questions = reserve("question", config.totalQuestions());
+        IdRange answers = reserve("answer", config.totalAnswers());
+
+        ensureHistoryPartitions();
+
+        // Les triggers d'historique sont désactivés : l'historique est généré directement
+        toggleHistoryTriggers(false);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.parallelism()), r -> {
+            Thread t = new Thread(r, "data-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            copyUsers(users);
+            copySurveys(surveys, users);
+            copyQuestions(questions, surveys, executor);
+
+            AtomicLong historyRows = new AtomicLong();
+            AtomicLong historyQuestionRows = new AtomicLong();
+            List<Future<?>> tasks = new ArrayList<>();
+            tasks.addAll(submitAnswerChunks(answers, questions, executor));
+            tasks.addAll(submitHistoryChunks(surveys, questions, users, historyRows, historyQuestionRows, executor));
+            awaitAll(tasks);
+
+            analyze();
+            long duration = System.currentTimeMillis() - start;
+            logger.info("✓ Génération terminée en {} s", duration / 1000);
+            return new GenerationResult(users, surveys, questions, answers,
+                    historyRows.get(), historyQuestionRows.get(), duration);
+        } finally {
+            executor.shutdownNow();
+            toggleHistoryTriggers(true);
+        }
+    }
+
+    // === RÉSERVATION DES IDENTIFIANTS ===
+
+    private IdRange reserve(String table, long count) {
+        if (count == 0) {
+            return IdRange.empty();
+        }
+        // Le verrou EXCLUSIVE bloque les INSERT concurrents (et donc leurs nextval) jusqu'au commit ; la séquence
+        // n'avance jamais à reculons, même si des lignes ont été insérées avec un identifiant explicite
+        String sql = "SELECT setval(seq, GREATEST(nextval(seq), (SELECT COALESCE(MAX(id), 0) + 1 FROM " + table + ")) + ? - 1) " +
+                "FROM pg_get_serial_sequence('" + table + "', 'id') AS seq";
+        long last = executeInTransaction(conn -> {
+            try (Statement lock = conn.createStatement()) {
+                lock.execute("LOCK TABLE " + table + " IN EXCLUSIVE MODE");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, count);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalStateException("Impossible de réserver des identifiants pour " + table);
+                    }
+                    return rs.getLong(1);
+                }
+            }
+        }, "RESERVE IDS " + table.toUpperCase());
+        return new IdRange(last - count + 1, count);
+    }
+
+    // Sans partition pour ces mois, tout l'historique généré tomberait dans la partition DEFAULT
+    private void ensureHistoryPartitions() {
+        HistoryPartitionRepository partitions = new HistoryPartitionRepository();
+        for (String table : HistoryPartitionRepository.PARTITIONED_TABLES) {
+            if (partitions.isPartitioned(table)) {
+                partitions.ensurePartitions(table, YearMonth.from(BASE_DATE), GENERATED_MONTHS);
+            }
+        }
+    }
+
+    private void toggleHistoryTriggers(boolean enable) {
+        for (String entry : HISTORY_TRIGGERS) {
+            String[] parts = entry.split(":");
+            executeStatement("ALTER TABLE " + parts[0] + (enable ? " ENABLE" : " DISABLE") + " TRIGGER " + parts[1],
+                    (enable ? "ENABLE " : "DISABLE ") + parts[1].toUpperCase());
+        }
+        logger.info("Triggers d'historique {}", enable ? "réactivés" : "désactivés");
+    }
+
+    // === TABLES PARENTES (séquentielles, pour respecter les clés étrangères) ===
+
+    private void copyUsers(IdRange users) {
+        // Un seul hash Argon2 pour tous les comptes générés
+        String passwordHash = new PasswordEncoder().hashPassword(config.password());
+        SplittableRandom random = random("users", 0);
+
+        long rows = executeCopyIn(
+                "COPY users (id, name, surname, email, password, is_admin, created_at) FROM STDIN (FORMAT csv)",
+                buffer -> {
+                    for (long i = 0; i < users.count(); i++) {
+                        long id = users.id(i);
+                        buffer.row(id,
+                                pick(FIRST_NAMES, random),
+                                pick(SURNAMES, random),
+                                emailFor(id),
+                                passwordHash,
+                                i == 0,
+                                BASE_DATE.plusMinutes(random.nextInt(MINUTES_PER_YEAR)));
+                    }
+                }, "COPY USERS");
+        logger.info("✓ {} utilisateurs", rows);
+    }
+
+    private void copySurveys(IdRange surveys, IdRange users) {
+        SplittableRandom random = random("survey", 0);
+        long rows = executeCopyIn(
+                "COPY survey (id, name, anonymization, description, id_user, is_quiz, is_active, allow_editing, " +
+                        "is_public, created_at, updated_at, share_token) FROM STDIN (FORMAT csv)",
+                buffer -> {
+                    for (long i = 0; i < surveys.count(); i++) {
+                        long id = surveys.id(i);
+                        LocalDateTime createdAt = surveyCreatedAt(i);
+                        buffer.row(id,
+                                "Questionnaire " + id,
+                                pick(ANONYMIZATIONS, random),
+                                "Questionnaire généré n°" + id,
+                                surveyOwner(i, users),
+                                isQuiz(i),
+                                random.nextInt(10) != 0,
+                                random.nextBoolean(),
+                                random.nextInt(3) == 0,
+                                createdAt,
+                                createdAt.plusDays(random.nextInt(30)),
+                                "gen-" + id + "-" + Long.toHexString(random.nextLong()));
+                    }
+                }, "COPY SURVEYS");
+        logger.info("✓ {} surveys", rows);
+    }
+
+    private void copyQuestions(IdRange questions, IdRange surveys, ExecutorService executor) {
+        List<Future<?>> tasks = new ArrayList<>();
+        long chunkSize = ROWS_PER_CHUNK;
+        for (long chunkStart = 0; chunkStart < questions.count(); chunkStart += chunkSize) {
+            long from = chunkStart;
+            long to = Math.min(questions.count(), chunkStart + chunkSize);
+            int chunk = (int) (chunkStart / chunkSize);
+            tasks.add(executor.submit(() -> executeCopyIn(
+                    "COPY question (id, title, description, id_survey, is_mandatory, correct_answer, display_order, " +
+                            "created_at) FROM STDIN (FORMAT csv)",
+                    buffer -> {
+                        SplittableRandom random = random("question", chunk);
+                        for (long q = from; q < to; q++) {
+                            long surveyIndex = q / config.questionsPerSurvey();
+                            int order = (int) (q % config.questionsPerSurvey()) + 1;
+                            buffer.row(questions.id(q),
+                                    "Question " + order,
+                                    "Question générée pour le survey " + surveys.id(surveyIndex),
+                                    surveys.id(surveyIndex),
+                                    random.nextBoolean(),
+                                    isQuiz(surveyIndex) ? jsonString(correctOption(q)) : null,
+                                    order,
+                                    surveyCreatedAt(surveyIndex).plusMinutes(order));
+                        }
+                    }, "COPY QUESTIONS")));
+        }
+        awaitAll(tasks);
+        logger.info("✓ {} questions", questions.count());
+    }
+
+    // === TABLES VOLUMINEUSES (parallèles) ===
+
+    private List<Future<?>> submitAnswerChunks(IdRange answers, IdRange questions, ExecutorService executor) {
+        List<Future<?>> tasks = new ArrayList<>();
+        int answersPerQuestion = config.answersPerQuestion();
+        if (answersPerQuestion == 0) {
+            return tasks;
+        }
+
+        long questionsPerChunk = Math.max(1, ROWS_PER_CHUNK / answersPerQuestion);
+        AtomicLong loaded = new AtomicLong();
+        for (long chunkStart = 0; chunkStart < questions.count(); chunkStart += questionsPerChunk) {
+            long from = chunkStart;
+            long to = Math.min(questions.count(), chunkStart + questionsPerChunk);
+            int chunk = (int) (chunkStart / questionsPerChunk);
+
+            tasks.add(executor.submit(() -> {
+                long rows = executeCopyIn(
+                        "COPY answer (id, id_question, is_anonymous, original_answer, anonymous_answer, respondent_id, " +
+                                "is_correct, submitted_at) FROM STDIN (FORMAT csv)",
+                        buffer -> writeAnswers(buffer, answers, questions, from, to, random("answer", chunk)),
+                        "COPY ANSWERS");
+                long total = loaded.addAndGet(rows);
+                logger.info("Réponses : {} / {}", total, answers.count());
+            }));
+        }
+        return tasks;
+    }
+
+    private void writeAnswers(CopyBuffer buffer, IdRange answers, IdRange questions, long fromQuestion,
+                              long toQuestion, SplittableRandom random) throws SQLException {
+        int answersPerQuestion = config.answersPerQuestion();
+        for (long q = fromQuestion; q < toQuestion; q++) {
+            long surveyIndex = q / config.questionsPerSurvey();
+            boolean quiz = isQuiz(surveyIndex);
+            LocalDateTime surveyCreatedAt = surveyCreatedAt(surveyIndex);
+            String correct = quiz ? correctOption(q) : null;
+
+            for (int k = 0; k < answersPerQuestion; k++) {
+                String option = OPTIONS[random.nextInt(OPTIONS.length)];
+                boolean anonymous = random.nextInt(4) == 0;
+                buffer.row(answers.id(q * answersPerQuestion + k),
+                        questions.id(q),
+                        anonymous,
+                        jsonString(option),
+                        anonymous ? jsonString("Anonymisé") : null,
+                        "resp-" + surveyIndex + "-" + k,
+                        quiz ? option.equals(correct) : null,
+                        surveyCreatedAt.plusMinutes(1 + random.nextInt(60 * 24 * 90)));
+            }
+        }
+    }
+
+    private List<Future<?>> submitHistoryChunks(IdRange surveys, IdRange questions, IdRange users,
+                                                AtomicLong historyRows, AtomicLong historyQuestionRows,
+                                                ExecutorService executor) {
+        List<Future<?>> tasks = new ArrayList<>();
+        long surveysPerChunk = Math.max(1, ROWS_PER_CHUNK / Math.max(1, config.historyPerSurvey()));
+
+        for (long chunkStart = 0; chunkStart < surveys.count(); chunkStart += surveysPerChunk) {
+            long from = chunkStart;
+            long to = Math.min(surveys.count(), chunkStart + surveysPerChunk);
+            int chunk = (int) (chunkStart / surveysPerChunk);
+
+            tasks.add(executor.submit(() -> historyRows.addAndGet(executeCopyIn(
+                    "COPY history (id_survey, action, snapshot, id_user, created_at, version, is_checkpoint) " +
+                            "FROM STDIN (FORMAT csv)",
+                    buffer -> writeSurveyHistory(buffer, surveys, users, from, to, random("history", chunk)),
+                    "COPY HISTORY"))));
+
+            tasks.add(executor.submit(() -> historyQuestionRows.addAndGet(executeCopyIn(
+                    "COPY history_question (id_question, id_survey, action, snapshot, id_user, created_at, version, " +
+                            "is_checkpoint) " +
+                            "FROM STDIN (FORMAT csv)",
+                    buffer -> writeQuestionHistory(buffer, surveys, questions, users, from, to),
+                    "COPY HISTORY QUESTION"))));
+        }
+        return tasks;
+    }
+
+    private void writeSurveyHistory(CopyBuffer buffer, IdRange surveys, IdRange users, long from, long to,
+                                    SplittableRandom random) throws SQLException {
+        for (long s = from; s < to; s++) {
+            long surveyId = surveys.id(s);
+            long owner = surveyOwner(s, users);
+            LocalDateTime at = surveyCreatedAt(s);
+            String description = "Questionnaire généré n°" + surveyId;
+            boolean active = false;
+
+            buffer.row(surveyId, "create", surveyState(surveyId, s, description, active), owner, at, 1, true);
+            for (int v = 1; v < config.historyPerSurvey(); v++) {
+                at = at.plusHours(1 + random.nextInt(72));
+                int version = v + 1;
+                // Même rythme de checkpoints que les triggers : état complet toutes les N versions
+                boolean checkpoint = (version - 1) % CHECKPOINT_INTERVAL == 0;
+                String action;
+                String delta;
+                if (v % 3 == 0) {
+                    active = v % 2 == 1;
+                    action = active ? "publish" : "unpublish";
+                    delta = "{\"is_active\": " + active + "}";
+                } else {
+                    description = "Version " + v;
+                    action = "update";
+                    delta = "{\"description\": " + jsonString(description) + "}";
+                }
+                buffer.row(surveyId, action, checkpoint ? surveyState(surveyId, s, description, active) : delta,
+                        owner, at, version, checkpoint);
+            }
+        }
+    }
+
+    private String surveyState(long surveyId, long surveyIndex, String description, boolean active) {
+        return "{\"name\": \"Questionnaire " + surveyId + "\", \"description\": " + jsonString(description)
+                + ", \"is_quiz\": " + isQuiz(surveyIndex) + ", \"is_active\": " + active + "}";
+    }
+
+    private void writeQuestionHistory(CopyBuffer buffer, IdRange surveys, IdRange questions, IdRange users,
+                                      long fromSurvey, long toSurvey) throws SQLException {
+        int perSurvey = config.questionsPerSurvey();
+        for (long s = fromSurvey; s < toSurvey; s++) {
+            for (int order = 1; order <= perSurvey; order++) {
+                long q = s * perSurvey + order - 1;
+                buffer.row(questions.id(q), surveys.id(s), "create",
+                        "{\"title\": \"Question " + order + "\", \"display_order\": " + order + "}",
+                        surveyOwner(s, users), surveyCreatedAt(s).plusMinutes(order), 1, true);
+            }
+        }
+    }
+
+    private void analyze() {
+        for (String table : new String[]{"users", "survey", "question", "answer", "history", "history_question"}) {
+            executeStatement("ANALYZE " + table, "ANALYZE " + table.toUpperCase());
+        }
+    }
+
+    // === VALEURS DÉTERMINISTES ===
+
+    // Les attributs partagés entre tables dépendent uniquement de l'index, pas de l'ordre de génération
+    private LocalDateTime surveyCreatedAt(long surveyIndex) {
+        return BASE_DATE.plusMinutes(Math.floorMod(mix(config.seed(), surveyIndex), MINUTES_PER_YEAR));
+    }
+
+    private long surveyOwner(long surveyIndex, IdRange users) {
+        return users.id(Math.floorMod(mix(config.seed() + 1, surveyIndex), users.count()));
+    }
+
+    private boolean isQuiz(long surveyIndex) {
+        return surveyIndex % 3 == 0;
+    }
+
+    private String correctOption(long questionIndex) {
+        return OPTIONS[Math.floorMod(mix(config.seed() + 2, questionIndex), OPTIONS.length)];
+    }
+
+    private SplittableRandom random(String table, int chunk) {
+        return new SplittableRandom(mix(config.seed() ^ table.hashCode(), chunk));
+    }
+
+    // SplitMix64
+    private static long mix(long seed, long value) {
+        long z = seed + value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String jsonString(String value) {
+        return "\"" + value + "\"";
+    }
+
+    private static void awaitAll(List<Future<?>> tasks) {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération interrompue", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Échec de la génération: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package fr.github.vera.database.generator;
+
+import fr.github.vera.database.DatabaseManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// Point d'entrée : java -cp api-vera.jar fr.github.vera.database.generator.DataGeneratorCli --surveys=100000 ...
+// La connexion est celle de l'application (app.properties / variables d'environnement)
+public class DataGeneratorCli {
+    private static final Logger logger = LogManager.getLogger(DataGeneratorCli.class);
+
+    public static void main(String[] args) {
+        GeneratorConfig defaults = GeneratorConfig.defaults();
+        long seed = defaults.seed();
+        int users = defaults.users();
+        int surveys = defaults.surveys();
+        int questionsPerSurvey = defaults.questionsPerSurvey();
+        int answersPerQuestion = defaults.answersPerQuestion();
+        int historyPerSurvey = defaults.historyPerSurvey();
+        int parallelism = defaults.parallelism();
+        String password = defaults.password();
+
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                usage("Argument invalide: " + arg);
+                return;
+            }
+            String value = parts[1];
+            switch (parts[0]) {
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--users" -> users = Integer.parseInt(value);
+                case "--surveys" -> surveys = Integer.parseInt(value);
+                case "--questions-per-survey" -> questionsPerSurvey = Integer.parseInt(value);
+                case "--answers-per-question" -> answersPerQuestion = Integer.parseInt(value);
+                case "--history-per-survey" -> historyPerSurvey = Integer.parseInt(value);
+                case "--parallelism" -> parallelism = Integer.parseInt(value);
+                case "--password" -> password = value;
+                default -> {
+                    usage("Option inconnue: " + parts[0]);
+                    return;
+                }
+            }
+        }
+
+        if (users < 1 || (surveys > 0 && questionsPerSurvey < 1)) {
+            usage("Il faut au moins un utilisateur et une question par survey");
+            return;
+        }
+
+        GeneratorConfig config = new GeneratorConfig(seed, users, surveys, questionsPerSurvey,
+                answersPerQuestion, historyPerSurvey, parallelism, password);
+
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        int status = 0;
+        try {
+            databaseManager.initialize();
+            GenerationResult result = new DataGenerator(config).generate();
+            logger.info("Utilisateurs {}..{}, surveys {}..{}, {} réponses, {} lignes d'historique",
+                    result.users().start(), result.users().end(),
+                    result.surveys().start(), result.surveys().end(),
+                    result.answers().count(), result.historyRows() + result.historyQuestionRows());
+        } catch (Exception e) {
+            logger.error("Échec de la génération", e);
+            status = 1;
+        } finally {
+            databaseManager.shutdown();
+        }
+        System.exit(status);
+    }
+
+    private static void usage(String error) {
+        logger.error(error);
+        logger.error("Options: --users= --surveys= --questions-per-survey= --answers-per-question= " +
+                "--history-per-survey= --parallelism= --seed= --password=");
+        System.exit(2);
+    }
+}
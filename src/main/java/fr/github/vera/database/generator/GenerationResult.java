@@ -0,0 +1,11 @@
+package fr.github.vera.database.generator;
+
+public record GenerationResult(
+        IdRange users,
+        IdRange surveys,
+        IdRange questions,
+        IdRange answers,
+        long historyRows,
+        long historyQuestionRows,
+        long durationMillis) {
+}
@@ -0,0 +1,31 @@
+package fr.github.vera.database.generator;
+
+// Volume et graine du jeu de données synthétique (answers = surveys × questionsPerSurvey × answersPerQuestion)
+public record GeneratorConfig(
+        long seed,
+        int users,
+        int surveys,
+        int questionsPerSurvey,
+        int answersPerQuestion,
+        int historyPerSurvey,
+        int parallelism,
+        String password) {
+
+    public static GeneratorConfig defaults() {
+        return new GeneratorConfig(42L, 1_000, 10_000, 10, 100, 5,
+                Math.min(4, Runtime.getRuntime().availableProcessors()), "Generated-2025!");
+    }
+
+    public long totalQuestions() {
+        return (long) surveys * questionsPerSurvey;
+    }
+
+    public long totalAnswers() {
+        return totalQuestions() * answersPerQuestion;
+    }
+
+    public GeneratorConfig withScale(int users, int surveys, int questionsPerSurvey, int answersPerQuestion) {
+        return new GeneratorConfig(seed, users, surveys, questionsPerSurvey, answersPerQuestion,
+                historyPerSurvey, parallelism, password);
+    }
+}
@@ -0,0 +1,17 @@
+package fr.github.vera.database.generator;
+
+// Plage d'identifiants réservée dans la séquence d'une table
+public record IdRange(long start, long count) {
+
+    public static IdRange empty() {
+        return new IdRange(0, 0);
+    }
+
+    public long id(long index) {
+        return start + index;
+    }
+
+    public long end() {
+        return start + count - 1;
+    }
+}
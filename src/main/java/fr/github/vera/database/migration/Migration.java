@@ -0,0 +1,74 @@
+package fr.github.vera.database.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Script de migration V<version>__<description>.sql chargé depuis le classpath
+public record Migration(int version, String description, String script, String checksum,
+                        boolean transactional, List<String> statements) {
+
+    static final String RESOURCE_DIR = "/database/migration/";
+    private static final Pattern NAME = Pattern.compile("V(\\d+)__([A-Za-z0-9_]+)\\.sql");
+    private static final String NO_TRANSACTION = "-- vera:no-transaction";
+
+    public static Migration load(String script) {
+        Matcher matcher = NAME.matcher(script);
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Nom de migration invalide : " + script + " (attendu V<version>__<description>.sql)");
+        }
+
+        // Fins de ligne normalisées : le checksum ne dépend pas du checkout (CRLF/LF)
+        String content = read(RESOURCE_DIR + script).replace("\r\n", "\n");
+        return new Migration(
+                Integer.parseInt(matcher.group(1)),
+                matcher.group(2).replace('_', ' '),
+                script,
+                sha256(content),
+                !hasNoTransactionHeader(content),
+                SqlScriptSplitter.split(content));
+    }
+
+    // La directive n'est lue que dans les commentaires d'en-tête, avant le premier ordre SQL
+    private static boolean hasNoTransactionHeader(String content) {
+        for (String line : content.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.startsWith("--")) {
+                return false;
+            }
+            if (trimmed.equalsIgnoreCase(NO_TRANSACTION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String read(String path) {
+        try (InputStream input = Migration.class.getResourceAsStream(path)) {
+            if (input == null) {
+                throw new IllegalStateException("Ressource de migration introuvable : " + path);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture impossible : " + path, e);
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package fr.github.vera.database.migration;
+
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.database.DatabaseManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Applique au démarrage les migrations de database/migration/migrations.txt absentes de schema_version.
+// Un verrou consultatif (session) sérialise les instances qui démarrent en même temps : la seconde attend,
+// puis ne trouve plus rien à appliquer.
+public class SchemaMigrator {
+    private static final Logger logger = LogManager.getLogger(SchemaMigrator.class);
+    private static final String INDEX = Migration.RESOURCE_DIR + "migrations.txt";
+    private static final String LOCK_KEY = "vera.schema_migration";
+
+    private final DatabaseManager databaseManager;
+    private final int lockTimeoutSeconds;
+    private final boolean baselineExisting;
+    private final boolean validateChecksums;
+
+    public SchemaMigrator(DatabaseManager databaseManager) {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.databaseManager = databaseManager;
+        this.lockTimeoutSeconds = properties.getIntProperty("db.migration.lock-timeout-seconds", 300);
+        this.baselineExisting = properties.getBooleanProperty("db.migration.baseline-existing", true);
+        this.validateChecksums = properties.getBooleanProperty("db.migration.validate-checksums", true);
+    }
+
+    public void migrate() {
+        List<Migration> migrations = loadMigrations();
+        databaseManager.executeWithConnection(conn -> {
+            // Pas de socketTimeout pendant les migrations : un CREATE INDEX peut durer bien plus de 30 s
+            int networkTimeout = conn.getNetworkTimeout();
+            conn.setNetworkTimeout(Runnable::run, 0);
+            acquireLock(conn);
+            try {
+                createVersionTable(conn);
+                Map<Integer, String> applied = findApplied(conn);
+                if (applied.isEmpty() && baselineExisting && tableExists(conn, "users")) {
+                    baseline(conn, migrations.getFirst());
+                    applied = findApplied(conn);
+                }
+                validate(migrations, applied);
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    if (!applied.containsKey(migration.version())) {
+                        apply(conn, migration);
+                        count++;
+                    }
+                }
+                if (count == 0) {
+                    logger.debug("Schéma à jour (version {})", migrations.getLast().version());
+                } else {
+                    logger.info("{} migration(s) appliquée(s), schéma en version {}", count, migrations.getLast().version());
+                }
+                return null;
+            } finally {
+                releaseLock(conn);
+                conn.setNetworkTimeout(Runnable::run, networkTimeout);
+            }
+        }, "migration du schéma");
+    }
+
+    static List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String line : Migration.read(INDEX).split("\n")) {
+            String script = line.trim();
+            if (script.isEmpty() || script.startsWith("#")) {
+                continue;
+            }
+            Migration migration = Migration.load(script);
+            if (!migrations.isEmpty() && migration.version() <= migrations.getLast().version()) {
+                throw new IllegalStateException("Migrations non ordonnées dans " + INDEX + " : " + script);
+            }
+            migrations.add(migration);
+        }
+        if (migrations.isEmpty()) {
+            throw new IllegalStateException("Aucune migration déclarée dans " + INDEX);
+        }
+        return migrations;
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        long deadline = System.currentTimeMillis() + lockTimeoutSeconds * 1000L;
+        boolean waiting = false;
+        while (!queryBoolean(conn, "SELECT pg_try_advisory_lock(hashtext(?))")) {
+            if (!waiting) {
+                logger.info("Migration en cours sur une autre instance, attente du verrou (max {} s)", lockTimeoutSeconds);
+                waiting = true;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new SQLException("Verrou de migration non obtenu après " + lockTimeoutSeconds + " s");
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Attente du verrou de migration interrompue", e);
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try {
+            queryBoolean(conn, "SELECT pg_advisory_unlock(hashtext(?))");
+        } catch (SQLException e) {
+            // Le verrou est de toute façon libéré à la fermeture de la session
+            logger.warn("Libération du verrou de migration impossible : {}", e.getMessage());
+        }
+    }
+
+    private boolean queryBoolean(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, LOCK_KEY);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description VARCHAR(255) NOT NULL,
+                        script VARCHAR(255) NOT NULL,
+                        checksum CHAR(64) NOT NULL,
+                        execution_ms BIGINT NOT NULL,
+                        applied_at TIMESTAMP NOT NULL DEFAULT NOW()
+                    )
+                    """);
+        }
+    }
+
+    private Map<Integer, String> findApplied(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private boolean tableExists(Connection conn, String table) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    // Base créée avant les migrations versionnées : marquée en version de référence seulement si elle en a la forme.
+    // Les scripts de database/upgrade (partitionnement, réécriture de tables) s'exécutent application arrêtée :
+    // s'il en manque, le démarrage est refusé plutôt que d'échouer plus tard sur des colonnes ou fonctions absentes
+    private void baseline(Connection conn, Migration baseline) throws SQLException {
+        List<String> missing = new ArrayList<>();
+        if (!queryCheck(conn, "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('history'))"
+                + " AND EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('history_question'))")) {
+            missing.add("001_partition_history.sql");
+        }
+        if (!queryCheck(conn, "SELECT EXISTS (SELECT 1 FROM information_schema.columns"
+                + " WHERE table_name = 'history' AND column_name = 'version'"
+                + " AND table_schema = current_schema())"
+                + " AND EXISTS (SELECT 1 FROM pg_proc WHERE proname = 'record_survey_history')")) {
+            missing.add("002_history_delta_snapshots.sql");
+        }
+        if (!queryCheck(conn, "SELECT EXISTS (SELECT 1 FROM information_schema.columns"
+                + " WHERE table_name = 'answer' AND column_name = 'original_answer' AND data_type = 'jsonb'"
+                + " AND table_schema = current_schema())")) {
+            missing.add("003_jsonb_answers.sql");
+        }
+        if (!missing.isEmpty()) {
+            throw new SQLException("Base existante sans schema_version et sans le schéma de la version " + baseline.version()
+                    + " : appliquer d'abord, application arrêtée, database/upgrade/" + String.join(", ", missing)
+                    + " (psql -v ON_ERROR_STOP=1 -f <script>), puis redémarrer");
+        }
+
+        logger.warn("Base existante sans schema_version : marquée en version {} sans exécution", baseline.version());
+        record(conn, baseline, 0);
+    }
+
+    private boolean queryCheck(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private void validate(List<Migration> migrations, Map<Integer, String> applied) {
+        List<String> mismatches = new ArrayList<>();
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version());
+            if (checksum != null && !checksum.equals(migration.checksum())) {
+                mismatches.add(migration.script());
+            }
+        }
+        int latest = migrations.getLast().version();
+        applied.keySet().stream()
+                .filter(version -> version > latest)
+                .forEach(version -> logger.warn("Version {} appliquée en base mais inconnue de cette application", version));
+
+        if (mismatches.isEmpty()) {
+            return;
+        }
+        if (validateChecksums) {
+            throw new IllegalStateException("Migrations modifiées après application (checksum différent) : " + mismatches);
+        }
+        logger.warn("Checksums différents ignorés (db.migration.validate-checksums=false) : {}", mismatches);
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("Migration {} - {}{}", migration.version(), migration.description(),
+                migration.transactional() ? "" : " (hors transaction)");
+        long start = System.currentTimeMillis();
+
+        if (!migration.transactional()) {
+            // Ordre par ordre en autocommit (CREATE INDEX CONCURRENTLY) : le script doit être rejouable
+            for (String sql : migration.statements()) {
+                execute(conn, migration, sql);
+            }
+            record(conn, migration, System.currentTimeMillis() - start);
+            return;
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            for (String sql : migration.statements()) {
+                execute(conn, migration, sql);
+            }
+            record(conn, migration, System.currentTimeMillis() - start);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void execute(Connection conn, Migration migration, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            String excerpt = sql.length() > 200 ? sql.substring(0, 200) + "..." : sql;
+            throw new SQLException("Échec de " + migration.script() + " sur : " + excerpt, e);
+        }
+    }
+
+    private void record(Connection conn, Migration migration, long executionMs) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version());
+            stmt.setString(2, migration.description());
+            stmt.setString(3, migration.script());
+            stmt.setString(4, migration.checksum());
+            stmt.setLong(5, executionMs);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package fr.github.vera.database.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Découpe un script SQL en ordres sur les ';' de premier niveau.
+// Ignore les ';' dans les chaînes ('...', E'...'), identifiants ("..."), commentaires (--, /* */)
+// et corps dollar-quotés ($$...$$, $fn$...$fn$).
+public final class SqlScriptSplitter {
+
+    private SqlScriptSplitter() {
+    }
+
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean hasCode = false;
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+            int end;
+
+            if (c == '-' && next == '-') {
+                end = indexOrEnd(script, "\n", i);
+            } else if (c == '/' && next == '*') {
+                end = skipBlockComment(script, i);
+            } else if (c == '\'') {
+                end = skipQuoted(script, i, '\'', isEscapeString(script, i));
+                hasCode = true;
+            } else if (c == '"') {
+                end = skipQuoted(script, i, '"', false);
+                hasCode = true;
+            } else if (c == '$' && dollarTag(script, i) != null) {
+                String tag = dollarTag(script, i);
+                int close = script.indexOf(tag, i + tag.length());
+                if (close < 0) {
+                    throw new IllegalArgumentException("Dollar quote " + tag + " non fermé");
+                }
+                end = close + tag.length();
+                hasCode = true;
+            } else if (c == ';') {
+                if (hasCode) {
+                    statements.add(current.toString().trim());
+                }
+                current.setLength(0);
+                hasCode = false;
+                i++;
+                continue;
+            } else {
+                end = i + 1;
+                hasCode |= !Character.isWhitespace(c);
+            }
+
+            current.append(script, i, end);
+            i = end;
+        }
+
+        if (hasCode) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static int indexOrEnd(String script, String token, int from) {
+        int index = script.indexOf(token, from);
+        return index < 0 ? script.length() : index + token.length();
+    }
+
+    // Les commentaires de bloc PostgreSQL peuvent être imbriqués
+    private static int skipBlockComment(String script, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < script.length() - 1) {
+            if (script.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (script.startsWith("*/", i)) {
+                depth--;
+                i += 2;
+                if (depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("Commentaire /* non fermé");
+    }
+
+    // Le quote doublé ('' ou "") est un échappement ; dans E'...' l'antislash échappe aussi
+    private static int skipQuoted(String script, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("Chaîne " + quote + " non fermée");
+    }
+
+    private static boolean isEscapeString(String script, int quoteIndex) {
+        if (quoteIndex == 0) {
+            return false;
+        }
+        char prefix = script.charAt(quoteIndex - 1);
+        return (prefix == 'E' || prefix == 'e')
+                && (quoteIndex < 2 || !isIdentifierPart(script.charAt(quoteIndex - 2)));
+    }
+
+    // $tag$ avec tag vide ou identifiant ; $1 (paramètre) et a$b (identifiant) ne sont pas des dollar quotes
+    private static String dollarTag(String script, int start) {
+        if (start > 0 && isIdentifierPart(script.charAt(start - 1))) {
+            return null;
+        }
+        int i = start + 1;
+        if (i < script.length() && Character.isDigit(script.charAt(i))) {
+            return null;
+        }
+        while (i < script.length() && isIdentifierPart(script.charAt(i))) {
+            i++;
+        }
+        if (i < script.length() && script.charAt(i) == '$') {
+            return script.substring(start, i + 1);
+        }
+        return null;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
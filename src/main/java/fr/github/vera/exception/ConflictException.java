@@ -0,0 +1,9 @@
+package fr.github.vera.exception;
+
+import jakarta.ws.rs.core.Response;
+
+public class ConflictException extends ValidationException {
+    public ConflictException(String message) {
+        super(message, Response.Status.CONFLICT.getStatusCode());
+    }
+}
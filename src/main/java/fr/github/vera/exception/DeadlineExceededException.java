@@ -0,0 +1,10 @@
+package fr.github.vera.exception;
+
+import jakarta.ws.rs.core.Response;
+
+// Délai de la requête épuisé (ou client parti) : les ordres SQL en cours ont été annulés
+public class DeadlineExceededException extends ValidationException {
+    public DeadlineExceededException(String message) {
+        super(message, Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+    }
+}
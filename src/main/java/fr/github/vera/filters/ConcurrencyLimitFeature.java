@@ -0,0 +1,67 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.limit.ConcurrencyLimiters;
+import fr.github.vera.limit.LimitBudget;
+import fr.github.vera.resources.HealthResource;
+import fr.github.vera.resources.SwaggerUIResource;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+
+// Applique le limiteur de concurrence aux seules méthodes qui touchent la base de données
+@Provider
+public class ConcurrencyLimitFeature implements DynamicFeature {
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Class<?> resourceClass = resourceInfo.getResourceClass();
+        Method method = resourceInfo.getResourceMethod();
+        ConcurrencyLimiters limiters = ConcurrencyLimiters.getInstance();
+
+        if (!limiters.isEnabled() || !isDatabaseBound(resourceClass)) {
+            return;
+        }
+
+        LimitBudget budget = resolveBudget(resourceClass, method);
+        // Routes lentes par conception (pool REPORTING ou BACKGROUND) : comptées dans le budget, mais leur
+        // latence n'alimente pas l'AIMD, sinon quelques rapports feraient reculer la limite des écritures
+        boolean sampled = resolvePool(resourceClass, method) == PoolType.OLTP;
+        // Après l'authentification : une requête rejetée pour 401/403 ne consomme pas de budget
+        context.register(new ConcurrencyLimitFilter(budget, limiters.get(budget), sampled), Priorities.AUTHORIZATION + 100);
+    }
+
+    private PoolType resolvePool(Class<?> resourceClass, Method method) {
+        if (method.isAnnotationPresent(DatabasePool.class)) {
+            return method.getAnnotation(DatabasePool.class).value();
+        }
+        DatabasePool pool = resourceClass.getAnnotation(DatabasePool.class);
+        return pool == null ? PoolType.OLTP : pool.value();
+    }
+
+    private boolean isDatabaseBound(Class<?> resourceClass) {
+        return resourceClass != null
+                && resourceClass.getPackageName().equals("fr.github.vera.resources")
+                && resourceClass != HealthResource.class
+                && resourceClass != SwaggerUIResource.class;
+    }
+
+    private LimitBudget resolveBudget(Class<?> resourceClass, Method method) {
+        Secured secured = method.isAnnotationPresent(Secured.class)
+                ? method.getAnnotation(Secured.class)
+                : resourceClass.getAnnotation(Secured.class);
+        if (secured != null && secured.adminOnly()) {
+            return LimitBudget.ADMIN;
+        }
+
+        if (method.isAnnotationPresent(Public.class) || resourceClass.isAnnotationPresent(Public.class)) {
+            return LimitBudget.PUBLIC;
+        }
+        return LimitBudget.AUTHENTICATED;
+    }
+}
@@ -0,0 +1,55 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.limit.AdaptiveConcurrencyLimiter;
+import fr.github.vera.limit.ConcurrencyLimiters;
+import fr.github.vera.limit.LimitBudget;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+// Enregistré par ConcurrencyLimitFeature (pas de @Provider : une instance par budget)
+public class ConcurrencyLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String START_PROPERTY = "concurrencyLimitStart";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final LimitBudget budget;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean sampled;
+
+    public ConcurrencyLimitFilter(LimitBudget budget, AdaptiveConcurrencyLimiter limiter, boolean sampled) {
+        this.budget = budget;
+        this.limiter = limiter;
+        this.sampled = sampled;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!limiter.tryAcquire()) {
+            ConcurrencyLimiters.getInstance().markRejected(budget);
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .entity(new fr.github.vera.response.Response<>("Serveur surchargé, réessayez plus tard"))
+                    .build());
+            return;
+        }
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (start instanceof Long startNanos) {
+            requestContext.removeProperty(START_PROPERTY);
+            if (!sampled) {
+                limiter.releaseWithoutSample();
+                return;
+            }
+            // Les 5xx (pool épuisé, timeout SQL) sont le signal de congestion
+            boolean failed = responseContext.getStatus() >= 500;
+            limiter.release(System.nanoTime() - startNanos, failed);
+        }
+    }
+}
@@ -69,14 +69,14 @@ public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilt
     }
 
     private void addCorsHeaders(Response.ResponseBuilder response) {
-        response.header("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, x-requested-with, x-csrf-token")
+        response.header("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, x-requested-with, x-csrf-token, x-request-timeout")
                 .header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD, PATCH")
                 .header("Access-Control-Max-Age", "3600")
                 .header("Access-Control-Expose-Headers", "authorization");
     }
 
     private void addStandardHeaders(ContainerResponseContext response) {
-        response.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, x-requested-with, x-csrf-token");
+        response.getHeaders().add("Access-Control-Allow-Headers", "origin, content-type, accept, authorization, x-requested-with, x-csrf-token, x-request-timeout");
         response.getHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD, PATCH");
         response.getHeaders().add("Access-Control-Max-Age", "3600");
         response.getHeaders().add("Access-Control-Expose-Headers", "authorization");
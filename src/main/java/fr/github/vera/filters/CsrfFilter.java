@@ -25,6 +25,8 @@ public class CsrfFilter implements ContainerRequestFilter, ContainerResponseFilt
     private static final String CLIENT_TYPE_HEADER = "X-Client-Type";
     private static final String WEB_CLIENT = "web";
     private static final Map<String, String> tokenStore = new ConcurrentHashMap<>();
+    // SecureRandom est thread-safe : une seule instance évite de le réinitialiser à chaque requête
+    private static final SecureRandom RANDOM = new SecureRandom();
 
 
     @Context
@@ -93,10 +95,9 @@ public class CsrfFilter implements ContainerRequestFilter, ContainerResponseFilt
         return null;
     }
 
-    private String generateToken() {
-        SecureRandom random = new SecureRandom();
+    static String generateToken() {
         byte[] bytes = new byte[32];
-        random.nextBytes(bytes);
+        RANDOM.nextBytes(bytes);
         return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
@@ -0,0 +1,54 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.database.DatabasePool;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+import java.security.Principal;
+
+// Ouvre le contexte de routage primaire / réplique de la requête, une fois l'utilisateur authentifié,
+// et applique le pool de connexions de la ressource (@DatabasePool sur la méthode ou la classe)
+@Provider
+@Priority(Priorities.USER)
+public class DatabaseContextFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Principal principal = requestContext.getSecurityContext() == null
+                ? null
+                : requestContext.getSecurityContext().getUserPrincipal();
+        DatabaseContext.begin(principal == null ? null : principal.getName());
+
+        DatabasePool pool = findPool();
+        if (pool != null) {
+            DatabaseContext.usePool(pool.value());
+        }
+    }
+
+    private DatabasePool findPool() {
+        Method method = resourceInfo.getResourceMethod();
+        if (method != null && method.isAnnotationPresent(DatabasePool.class)) {
+            return method.getAnnotation(DatabasePool.class);
+        }
+        Class<?> resourceClass = resourceInfo.getResourceClass();
+        return resourceClass != null ? resourceClass.getAnnotation(DatabasePool.class) : null;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        // Les threads du serveur sont réutilisés : le contexte ne doit pas fuir vers la requête suivante
+        DatabaseContext.end();
+    }
+}
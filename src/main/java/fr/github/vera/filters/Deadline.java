@@ -0,0 +1,13 @@
+package fr.github.vera.filters;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Délai par défaut d'une route (ms), à la place de request.deadline.default-ms ; X-Request-Timeout peut le réduire
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Deadline {
+    long value();
+}
@@ -0,0 +1,54 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.server.ApplicationLifecycle;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+@Provider
+@PreMatching
+@Priority(1)
+public class InFlightRequestFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String TRACKED = "inFlightTracked";
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final String HEALTH_PATH = "health";
+
+    private final ApplicationLifecycle lifecycle = ApplicationLifecycle.getInstance();
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        // Premier filtre de la requête : le thread peut porter le contexte base de données d'une requête
+        // suspendue (@Suspended), dont les filtres de réponse se sont exécutés sur un autre thread
+        DatabaseContext.end();
+
+        // Les sondes de santé doivent continuer à répondre NOT_READY pendant le drain
+        if (requestContext.getUriInfo().getPath().startsWith(HEALTH_PATH)) {
+            return;
+        }
+
+        if (!lifecycle.tryEnter()) {
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .header(HttpHeaders.CONNECTION, "close")
+                    .entity(new fr.github.vera.response.Response<>("Serveur en cours d'arrêt"))
+                    .build());
+            return;
+        }
+        requestContext.setProperty(TRACKED, true);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (Boolean.TRUE.equals(requestContext.getProperty(TRACKED))) {
+            requestContext.removeProperty(TRACKED);
+            lifecycle.exit();
+        }
+    }
+}
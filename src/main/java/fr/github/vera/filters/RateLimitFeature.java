@@ -0,0 +1,58 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.limit.RateLimitKey;
+import fr.github.vera.limit.RateLimited;
+import fr.github.vera.limit.RateLimiters;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+@Provider
+public class RateLimitFeature implements DynamicFeature {
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        if (!RateLimiters.getInstance().isEnabled()) {
+            return;
+        }
+
+        Method method = resourceInfo.getResourceMethod();
+        RateLimited rateLimited = method.isAnnotationPresent(RateLimited.class)
+                ? method.getAnnotation(RateLimited.class)
+                : resourceInfo.getResourceClass().getAnnotation(RateLimited.class);
+        if (rateLimited == null || !appliesTo(rateLimited, method)) {
+            return;
+        }
+
+        // IP / token : rejet avant l'authentification (et avant Argon2) ; utilisateur : après
+        int priority = rateLimited.key() == RateLimitKey.USER
+                ? Priorities.AUTHORIZATION + 50
+                : Priorities.AUTHENTICATION - 100;
+        context.register(new RateLimitFilter(rateLimited), priority);
+    }
+
+    private boolean appliesTo(RateLimited rateLimited, Method method) {
+        if (rateLimited.httpMethods().length == 0) {
+            return true;
+        }
+        String httpMethod = resolveHttpMethod(method);
+        return httpMethod != null && Arrays.stream(rateLimited.httpMethods()).anyMatch(httpMethod::equalsIgnoreCase);
+    }
+
+    private String resolveHttpMethod(Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            HttpMethod httpMethod = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (httpMethod != null) {
+                return httpMethod.value();
+            }
+        }
+        return null;
+    }
+}
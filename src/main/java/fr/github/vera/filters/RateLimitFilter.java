@@ -0,0 +1,84 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.limit.RateLimitDecision;
+import fr.github.vera.limit.RateLimitKey;
+import fr.github.vera.limit.RateLimited;
+import fr.github.vera.limit.RateLimiters;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import org.glassfish.grizzly.http.server.Request;
+
+import java.security.Principal;
+
+// Enregistré par RateLimitFeature pour chaque méthode annotée @RateLimited
+public class RateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String DECISION_PROPERTY = "rateLimitDecision";
+    private static final String TOKEN_PARAM = "token";
+
+    private final RateLimited config;
+
+    @Inject
+    private Provider<Request> requestProvider;
+
+    public RateLimitFilter(RateLimited config) {
+        this.config = config;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        RateLimitDecision decision = RateLimiters.getInstance().tryConsume(config, resolveClientKey(requestContext));
+        requestContext.setProperty(DECISION_PROPERTY, decision);
+
+        if (!decision.allowed()) {
+            requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Math.max(1, decision.resetSeconds()))
+                    .entity(new fr.github.vera.response.Response<>("Trop de requêtes, réessayez plus tard"))
+                    .build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (requestContext.getProperty(DECISION_PROPERTY) instanceof RateLimitDecision decision) {
+            MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+            headers.putSingle("X-RateLimit-Limit", decision.limit());
+            headers.putSingle("X-RateLimit-Remaining", decision.remaining());
+            headers.putSingle("X-RateLimit-Reset", decision.resetSeconds());
+        }
+    }
+
+    private String resolveClientKey(ContainerRequestContext requestContext) {
+        if (config.key() == RateLimitKey.USER) {
+            Principal principal = requestContext.getSecurityContext() != null
+                    ? requestContext.getSecurityContext().getUserPrincipal()
+                    : null;
+            if (principal != null) {
+                return "user:" + principal.getName();
+            }
+        } else if (config.key() == RateLimitKey.TOKEN) {
+            String token = requestContext.getUriInfo().getPathParameters().getFirst(TOKEN_PARAM);
+            if (token != null) {
+                return "token:" + token;
+            }
+        }
+        return "ip:" + resolveClientIp(requestContext);
+    }
+
+    private String resolveClientIp(ContainerRequestContext requestContext) {
+        if (RateLimiters.getInstance().isTrustForwardedFor()) {
+            String forwardedFor = requestContext.getHeaderString("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+        Request request = requestProvider != null ? requestProvider.get() : null;
+        return request != null ? request.getRemoteAddr() : "unknown";
+    }
+}
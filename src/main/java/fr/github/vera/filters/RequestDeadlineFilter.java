@@ -0,0 +1,120 @@
+package fr.github.vera.filters;
+
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.database.RequestDeadline;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Response;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.Closeable;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.ICloseType;
+import org.glassfish.grizzly.http.server.Request;
+
+import java.lang.reflect.Method;
+
+// Échéance de la requête : @Deadline de la route, sinon request.deadline.default-ms, plafonnée par
+// request.deadline.max-ms ; X-Request-Timeout (ms) peut seulement la réduire. Les ordres SQL sont annulés à l'échéance ou si le client
+// ferme la connexion, pour libérer le pool au plus vite. Après DatabaseContextFilter, qui ouvre le contexte.
+@jakarta.ws.rs.ext.Provider
+@Priority(Priorities.USER + 10)
+public class RequestDeadlineFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    public static final String HEADER = "X-Request-Timeout";
+    private static final Logger logger = LogManager.getLogger(RequestDeadlineFilter.class);
+    private static final String DEADLINE_PROPERTY = "requestDeadline";
+    private static final String CLOSE_LISTENER_PROPERTY = "requestDeadlineCloseListener";
+
+    private final long defaultMillis;
+    private final long maxMillis;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Inject
+    private Provider<Request> requestProvider;
+
+    public RequestDeadlineFilter() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.defaultMillis = properties.getIntProperty("request.deadline.default-ms", 30_000);
+        this.maxMillis = properties.getIntProperty("request.deadline.max-ms", 300_000);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        long budget = Math.min(routeBudget(), maxMillis);
+        String header = requestContext.getHeaderString(HEADER);
+        if (header != null && !header.isBlank()) {
+            long requested;
+            try {
+                requested = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                requested = 0;
+            }
+            // Un délai nul ou négatif désactiverait l'annulation des requêtes SQL : refusé
+            if (requested <= 0) {
+                requestContext.abortWith(Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new fr.github.vera.response.Response<>(HEADER + " invalide (millisecondes positives attendues)"))
+                        .build());
+                return;
+            }
+            budget = budget <= 0 ? requested : Math.min(budget, requested);
+        }
+        // Délai de route désactivé par configuration (0) et aucun délai demandé par le client
+        if (budget <= 0) {
+            return;
+        }
+
+        RequestDeadline deadline = new RequestDeadline(budget);
+        DatabaseContext.setDeadline(deadline);
+        requestContext.setProperty(DEADLINE_PROPERTY, deadline);
+        watchClientConnection(requestContext, deadline);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (requestContext.getProperty(DEADLINE_PROPERTY) instanceof RequestDeadline deadline) {
+            deadline.close();
+        }
+        if (requestContext.getProperty(CLOSE_LISTENER_PROPERTY) instanceof CloseListener<?, ?> listener) {
+            // Connexion keep-alive réutilisée par les requêtes suivantes : le listener ne doit pas s'y accumuler
+            connection().removeCloseListener(listener);
+        }
+    }
+
+    private long routeBudget() {
+        Method method = resourceInfo.getResourceMethod();
+        if (method != null && method.isAnnotationPresent(Deadline.class)) {
+            return method.getAnnotation(Deadline.class).value();
+        }
+        Class<?> resourceClass = resourceInfo.getResourceClass();
+        if (resourceClass != null && resourceClass.isAnnotationPresent(Deadline.class)) {
+            return resourceClass.getAnnotation(Deadline.class).value();
+        }
+        return defaultMillis;
+    }
+
+    private void watchClientConnection(ContainerRequestContext requestContext, RequestDeadline deadline) {
+        try {
+            CloseListener<Closeable, ICloseType> listener = (closeable, type) -> deadline.cancel("Client déconnecté");
+            connection().addCloseListener(listener);
+            requestContext.setProperty(CLOSE_LISTENER_PROPERTY, listener);
+        } catch (RuntimeException e) {
+            logger.debug("Surveillance de la connexion client impossible: {}", e.getMessage());
+        }
+    }
+
+    private Connection<?> connection() {
+        return requestProvider.get().getContext().getConnection();
+    }
+}
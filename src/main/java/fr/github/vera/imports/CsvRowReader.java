@@ -0,0 +1,181 @@
+package fr.github.vera.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// CSV RFC 4180 avec en-tête : question_id, respondent_id, answer, [is_anonymous], [submitted_at]
+// Les champs quotés peuvent contenir des virgules, des retours à la ligne et des "" échappés
+public class CsvRowReader implements ImportRowReader {
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+
+    private final BufferedReader reader;
+    private final int questionIndex;
+    private final int respondentIndex;
+    private final int answerIndex;
+    private final int anonymousIndex;
+    private final int submittedAtIndex;
+    private long line = 0;
+    private boolean eof = false;
+
+    public CsvRowReader(InputStream input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IOException("Fichier CSV vide");
+        }
+        if (!header.isEmpty() && header.getFirst().startsWith("\uFEFF")) {
+            header.set(0, header.getFirst().substring(1));
+        }
+        List<String> columns = header.stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+
+        this.questionIndex = columns.indexOf("question_id");
+        this.respondentIndex = columns.indexOf("respondent_id");
+        this.answerIndex = columns.indexOf("answer");
+        this.anonymousIndex = columns.indexOf("is_anonymous");
+        this.submittedAtIndex = columns.indexOf("submitted_at");
+
+        if (questionIndex < 0 || respondentIndex < 0 || answerIndex < 0) {
+            throw new IOException("En-tête CSV invalide, colonnes requises: question_id, respondent_id, answer");
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        while (true) {
+            long startLine = line + 1;
+            List<String> fields;
+            try {
+                fields = readRecord();
+            } catch (RecordTooLongException e) {
+                return ImportRow.invalid(startLine, e.getMessage());
+            }
+            if (fields == null) {
+                return null;
+            }
+            // Lignes vides ignorées
+            if (fields.size() == 1 && fields.getFirst().isEmpty()) {
+                continue;
+            }
+
+            return new ImportRow(startLine,
+                    field(fields, questionIndex),
+                    field(fields, respondentIndex),
+                    field(fields, answerIndex),
+                    false,
+                    field(fields, anonymousIndex),
+                    field(fields, submittedAtIndex),
+                    null);
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    // Lit un enregistrement complet (plusieurs lignes physiques si un champ quoté contient un saut de ligne)
+    private List<String> readRecord() throws IOException {
+        if (eof) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int length = 0;
+
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                eof = true;
+                if (!any) {
+                    return null;
+                }
+                line++;
+                fields.add(field.toString());
+                return fields;
+            }
+            any = true;
+
+            if (++length > MAX_RECORD_LENGTH) {
+                skipRecord(quoted);
+                throw new RecordTooLongException("Enregistrement de plus de " + MAX_RECORD_LENGTH + " caractères");
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> quoted = true;
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+                case '\r' -> {
+                    // \r\n : le \n termine l'enregistrement
+                }
+                case '\n' -> {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                }
+                default -> field.append((char) c);
+            }
+        }
+    }
+
+    private void skipRecord(boolean quoted) throws IOException {
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\n') {
+                line++;
+                if (!quoted) {
+                    return;
+                }
+            }
+        }
+        eof = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static class RecordTooLongException extends IOException {
+        RecordTooLongException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package fr.github.vera.imports;
+
+public record ImportError(long line, String message) {
+}
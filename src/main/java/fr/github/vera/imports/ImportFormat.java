@@ -0,0 +1,43 @@
+package fr.github.vera.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+public enum ImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static ImportFormat fromMediaType(String contentType) {
+        if (contentType != null) {
+            String type = contentType.split(";")[0].trim();
+            for (ImportFormat format : values()) {
+                if (format.mediaType.equalsIgnoreCase(type)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Format d'import non supporté: " + contentType);
+    }
+
+    public ImportRowReader open(InputStream input) {
+        try {
+            return switch (this) {
+                case CSV -> new CsvRowReader(input);
+                case NDJSON -> new NdjsonRowReader(input);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package fr.github.vera.imports;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// État d'un import, consulté pendant son exécution (les compteurs sont mis à jour par le thread d'import)
+public class ImportJob {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    public enum Status {PENDING, RUNNING, COMPLETED, FAILED, CANCELLED}
+
+    private final String id = UUID.randomUUID().toString();
+    private final Integer surveyId;
+    private final ImportFormat format;
+    private final String submittedBy;
+    private final long bytesTotal;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicLong chunksCommitted = new AtomicLong();
+    private final List<ImportError> errors = new ArrayList<>();
+
+    private volatile boolean errorReportTruncated = false;
+    private volatile Status status = Status.PENDING;
+    private volatile String message;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public ImportJob(Integer surveyId, ImportFormat format, String submittedBy, long bytesTotal) {
+        this.surveyId = surveyId;
+        this.format = format;
+        this.submittedBy = submittedBy;
+        this.bytesTotal = bytesTotal;
+    }
+
+    // === TRANSITIONS ===
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    public void complete() {
+        finish(Status.COMPLETED, null);
+    }
+
+    public void fail(String reason) {
+        finish(Status.FAILED, reason);
+    }
+
+    public void cancel(String reason) {
+        finish(Status.CANCELLED, reason);
+    }
+
+    private void finish(Status finalStatus, String reason) {
+        message = reason;
+        finishedAt = LocalDateTime.now();
+        status = finalStatus;
+    }
+
+    // === PROGRESSION ===
+
+    public void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void chunkCommitted(long rows) {
+        rowsImported.addAndGet(rows);
+        chunksCommitted.incrementAndGet();
+    }
+
+    public void reject(long line, String reason) {
+        reject(line, 1, reason);
+    }
+
+    public void reject(long line, long rows, String reason) {
+        rowsRejected.addAndGet(rows);
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(line, reason));
+            } else {
+                errorReportTruncated = true;
+            }
+        }
+    }
+
+    public List<ImportError> errorReport() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    public boolean isFinished() {
+        return status != Status.PENDING && status != Status.RUNNING;
+    }
+
+    // === GETTERS (sérialisés dans le statut du job) ===
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getSurveyId() {
+        return surveyId;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public double getProgress() {
+        if (status == Status.COMPLETED) {
+            return 100.0;
+        }
+        return bytesTotal == 0 ? 0 : Math.min(100.0, bytesRead.get() * 100.0 / bytesTotal);
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsImported() {
+        return rowsImported.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public long getChunksCommitted() {
+        return chunksCommitted.get();
+    }
+
+    public boolean isErrorReportTruncated() {
+        return errorReportTruncated;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,17 @@
+package fr.github.vera.imports;
+
+// Ligne brute du fichier importé ; error est renseigné quand la ligne est illisible
+public record ImportRow(
+        long line,
+        String questionId,
+        String respondentId,
+        String answer,
+        boolean answerIsJson,
+        String anonymous,
+        String submittedAt,
+        String error) {
+
+    public static ImportRow invalid(long line, String error) {
+        return new ImportRow(line, null, null, null, false, null, null, error);
+    }
+}
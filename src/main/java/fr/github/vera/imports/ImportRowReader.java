@@ -0,0 +1,10 @@
+package fr.github.vera.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Lecture en flux : une ligne à la fois, null en fin de fichier
+public interface ImportRowReader extends Closeable {
+
+    ImportRow next() throws IOException;
+}
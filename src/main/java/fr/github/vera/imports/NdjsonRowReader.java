@@ -0,0 +1,69 @@
+package fr.github.vera.imports;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// Un objet JSON par ligne : {"questionId": 1, "respondentId": "r1", "answer": ..., "isAnonymous": false, "submittedAt": "..."}
+// La réponse peut être n'importe quelle valeur JSON, elle est stockée telle quelle
+public class NdjsonRowReader implements ImportRowReader {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private long line = 0;
+
+    public NdjsonRowReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(text);
+            } catch (IOException e) {
+                return ImportRow.invalid(line, "JSON invalide: " + e.getOriginalMessage());
+            }
+            if (node == null || !node.isObject()) {
+                return ImportRow.invalid(line, "Un objet JSON est attendu");
+            }
+
+            JsonNode answer = first(node, "answer", "originalAnswer");
+            return new ImportRow(line,
+                    text(first(node, "questionId", "question_id")),
+                    text(first(node, "respondentId", "respondent_id")),
+                    answer == null || answer.isNull() ? null : answer.toString(),
+                    true,
+                    text(first(node, "isAnonymous", "is_anonymous")),
+                    text(first(node, "submittedAt", "submitted_at")),
+                    null);
+        }
+        return null;
+    }
+
+    private static JsonNode first(JsonNode node, String name, String alias) {
+        JsonNode value = node.get(name);
+        return value != null ? value : node.get(alias);
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
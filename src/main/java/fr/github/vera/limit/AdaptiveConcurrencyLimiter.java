@@ -0,0 +1,75 @@
+package fr.github.vera.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limiteur AIMD : la limite augmente de 1 tant que les requêtes restent rapides,
+// et est réduite multiplicativement dès qu'une requête dépasse le seuil de latence ou échoue
+public class AdaptiveConcurrencyLimiter {
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdMillis, double backoffRatio) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.backoffRatio = backoffRatio;
+        this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    // Ne bloque jamais : refuse immédiatement si la limite courante est atteinte
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        onSample(latencyNanos, failed, current);
+    }
+
+    // Requête lente par conception (rapports, tâches de fond) : elle occupe une place mais sa latence
+    // ne dit rien de la congestion et ne doit pas faire baisser la limite des autres routes du budget
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long latencyNanos, boolean failed, int inFlightAtCompletion) {
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+        } else if (inFlightAtCompletion * 2 >= estimatedLimit) {
+            // On n'augmente que si la limite est réellement sollicitée (+1 par « fenêtre » de limit requêtes)
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
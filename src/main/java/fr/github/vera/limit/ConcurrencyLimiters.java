@@ -0,0 +1,59 @@
+package fr.github.vera.limit;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Un limiteur par budget, configuré depuis app.properties (limit.<budget>.*)
+public final class ConcurrencyLimiters {
+    private static final ConcurrencyLimiters INSTANCE = new ConcurrencyLimiters();
+
+    private final boolean enabled;
+    private final Map<LimitBudget, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(LimitBudget.class);
+    private final Map<LimitBudget, Meter> rejected = new EnumMap<>(LimitBudget.class);
+
+    private ConcurrencyLimiters() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        MetricRegistry registry = MetricsRegistry.get();
+
+        this.enabled = properties.getBooleanProperty("limit.enabled", true);
+        int latencyThreshold = properties.getIntProperty("limit.latency-threshold-ms", 500);
+        double backoffRatio = properties.getIntProperty("limit.backoff-percent", 90) / 100.0;
+
+        for (LimitBudget budget : LimitBudget.values()) {
+            String prefix = "limit." + budget.getKey() + ".";
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    budget.getKey(),
+                    properties.getIntProperty(prefix + "initial", 10),
+                    properties.getIntProperty(prefix + "min", 1),
+                    properties.getIntProperty(prefix + "max", 50),
+                    latencyThreshold,
+                    backoffRatio);
+            limiters.put(budget, limiter);
+
+            registry.gauge("limit." + budget.getKey() + ".limit", () -> limiter::getLimit);
+            registry.gauge("limit." + budget.getKey() + ".inflight", () -> limiter::getInFlight);
+            rejected.put(budget, registry.meter("limit." + budget.getKey() + ".rejected"));
+        }
+    }
+
+    public static ConcurrencyLimiters getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public AdaptiveConcurrencyLimiter get(LimitBudget budget) {
+        return limiters.get(budget);
+    }
+
+    public void markRejected(LimitBudget budget) {
+        rejected.get(budget).mark();
+    }
+}
@@ -0,0 +1,86 @@
+package fr.github.vera.limit;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Seaux en mémoire, bornés par une LRU approximative : au-delà de maxKeys, un seul thread échantillonne les dates
+// d'utilisation et oublie les clients les moins récents. Le chemin d'une requête ne prend aucun verrou global.
+public class InMemoryRateLimitBackend implements RateLimitBackend {
+    private static final int EVICTION_SAMPLES = 1024;
+
+    private final Map<String, Entry> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxKeys;
+    private final int evictionTarget;
+
+    public InMemoryRateLimitBackend(int maxKeys) {
+        this.maxKeys = maxKeys;
+        // 10 % de marge : une éviction libère de la place pour plusieurs milliers de nouveaux clients
+        this.evictionTarget = maxKeys - maxKeys / 10;
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String bucketKey, int capacity, double refillPerSecond) {
+        long now = System.nanoTime();
+        Entry entry = buckets.get(bucketKey);
+        if (entry == null) {
+            entry = buckets.computeIfAbsent(bucketKey, key -> new Entry(new TokenBucket(capacity, refillPerSecond, now), now));
+            if (buckets.size() > maxKeys) {
+                evictIfNeeded();
+            }
+        }
+        entry.lastUsed = now;
+        return entry.bucket.tryConsume(now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void evictIfNeeded() {
+        // Les autres threads ne patientent pas : la carte dépasse brièvement maxKeys le temps de l'éviction
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int size = buckets.size();
+            int excess = size - evictionTarget;
+            if (size <= maxKeys || excess <= 0) {
+                return;
+            }
+
+            // Échantillon régulier des dates d'utilisation ; le quantile de l'excédent sert de date de coupure
+            int step = Math.max(1, size / EVICTION_SAMPLES);
+            long[] samples = new long[EVICTION_SAMPLES];
+            int sampled = 0;
+            int index = 0;
+            for (Entry entry : buckets.values()) {
+                if (index++ % step == 0 && sampled < samples.length) {
+                    samples[sampled++] = entry.lastUsed;
+                }
+            }
+            if (sampled == 0) {
+                return;
+            }
+            Arrays.sort(samples, 0, sampled);
+            long cutoff = samples[Math.min(sampled - 1, (int) ((long) excess * sampled / size))];
+
+            // remove(clé, valeur) : un seau recréé entre-temps n'est pas retiré
+            buckets.entrySet().removeIf(e -> e.getValue().lastUsed <= cutoff);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry {
+        private final TokenBucket bucket;
+        private volatile long lastUsed;
+
+        private Entry(TokenBucket bucket, long lastUsed) {
+            this.bucket = bucket;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package fr.github.vera.limit;
+
+// Budgets de concurrence indépendants : un afflux public ne doit pas affamer les utilisateurs connectés
+public enum LimitBudget {
+    ADMIN("admin"),
+    AUTHENTICATED("authenticated"),
+    PUBLIC("public");
+
+    private final String key;
+
+    LimitBudget(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
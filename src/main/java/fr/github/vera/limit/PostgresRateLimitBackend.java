@@ -0,0 +1,36 @@
+package fr.github.vera.limit;
+
+import fr.github.vera.repository.RateLimitBucketRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// État partagé entre plusieurs instances de l'API, via une fonction SQL atomique
+public class PostgresRateLimitBackend implements RateLimitBackend {
+    private static final long CLEANUP_EVERY = 10_000;
+
+    private final RateLimitBucketRepository repository;
+    private final AtomicLong calls = new AtomicLong();
+
+    public PostgresRateLimitBackend(RateLimitBucketRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String bucketKey, int capacity, double refillPerSecond) {
+        if (calls.incrementAndGet() % CLEANUP_EVERY == 0) {
+            repository.deleteIdleBuckets();
+        }
+
+        RateLimitBucketRepository.BucketState state = repository.take(bucketKey, capacity, refillPerSecond);
+        // La base est indisponible : on laisse passer plutôt que de bloquer tout le trafic
+        if (state == null) {
+            return new RateLimitDecision(true, capacity, capacity, 0);
+        }
+
+        boolean allowed = state.allowed();
+        double tokens = state.remaining();
+        double missing = allowed ? capacity - tokens : 1 - tokens;
+        long reset = refillPerSecond > 0 ? (long) Math.ceil(Math.max(0, missing) / refillPerSecond) : 0;
+        return new RateLimitDecision(allowed, capacity, (int) tokens, reset);
+    }
+}
@@ -0,0 +1,5 @@
+package fr.github.vera.limit;
+
+public interface RateLimitBackend {
+    RateLimitDecision tryConsume(String bucketKey, int capacity, double refillPerSecond);
+}
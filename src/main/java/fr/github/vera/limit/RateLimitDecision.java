@@ -0,0 +1,4 @@
+package fr.github.vera.limit;
+
+public record RateLimitDecision(boolean allowed, int limit, int remaining, long resetSeconds) {
+}
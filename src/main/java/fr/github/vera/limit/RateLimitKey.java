@@ -0,0 +1,8 @@
+package fr.github.vera.limit;
+
+// Clé d'identification du client pour un seau de jetons
+public enum RateLimitKey {
+    IP,    // adresse IP du client
+    USER,  // utilisateur authentifié (repli sur l'IP si anonyme)
+    TOKEN  // token de partage présent dans le chemin ({token})
+}
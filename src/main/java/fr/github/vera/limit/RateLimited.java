@@ -0,0 +1,22 @@
+package fr.github.vera.limit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Limite de débit par route : capacity requêtes en rafale, puis refillPerSecond requêtes par seconde
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimited {
+    String name();
+
+    RateLimitKey key() default RateLimitKey.IP;
+
+    int capacity();
+
+    double refillPerSecond();
+
+    // Méthodes HTTP concernées (vide = toutes), utile au niveau de la classe
+    String[] httpMethods() default {};
+}
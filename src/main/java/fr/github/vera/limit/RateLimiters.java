@@ -0,0 +1,58 @@
+package fr.github.vera.limit;
+
+import com.codahale.metrics.Meter;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.repository.RateLimitBucketRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// Point d'accès au backend configuré (ratelimit.backend = memory | postgres)
+public final class RateLimiters {
+    private static final Logger logger = LogManager.getLogger(RateLimiters.class);
+    private static final RateLimiters INSTANCE = new RateLimiters();
+
+    private final boolean enabled;
+    private final boolean trustForwardedFor;
+    private final RateLimitBackend backend;
+    private final Meter rejected;
+
+    private RateLimiters() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.enabled = properties.getBooleanProperty("ratelimit.enabled", true);
+        this.trustForwardedFor = properties.getBooleanProperty("ratelimit.trust-forwarded-for", false);
+
+        String backendName = properties.getProperty("ratelimit.backend");
+        if ("postgres".equalsIgnoreCase(backendName)) {
+            this.backend = new PostgresRateLimitBackend(new RateLimitBucketRepository());
+        } else {
+            InMemoryRateLimitBackend memoryBackend = new InMemoryRateLimitBackend(
+                    properties.getIntProperty("ratelimit.max-keys", 100_000));
+            MetricsRegistry.get().gauge("ratelimit.keys", () -> memoryBackend::size);
+            this.backend = memoryBackend;
+        }
+        this.rejected = MetricsRegistry.get().meter("ratelimit.rejected");
+        logger.debug("Rate limiting {} - backend: {}", enabled ? "actif" : "désactivé", backend.getClass().getSimpleName());
+    }
+
+    public static RateLimiters getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isTrustForwardedFor() {
+        return trustForwardedFor;
+    }
+
+    public RateLimitDecision tryConsume(RateLimited config, String clientKey) {
+        RateLimitDecision decision = backend.tryConsume(config.name() + ":" + clientKey,
+                config.capacity(), config.refillPerSecond());
+        if (!decision.allowed()) {
+            rejected.mark();
+        }
+        return decision;
+    }
+}
@@ -0,0 +1,42 @@
+package fr.github.vera.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Seau de jetons sans verrou : l'état (jetons, date de recharge) est remplacé par CAS
+public class TokenBucket {
+    private final int capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    public RateLimitDecision tryConsume(long nowNanos) {
+        while (true) {
+            State current = state.get();
+            double tokens = Math.min(capacity, current.tokens() + (nowNanos - current.refilledAt()) * refillPerNano);
+            boolean allowed = tokens >= 1;
+            State next = new State(allowed ? tokens - 1 : tokens, nowNanos);
+
+            if (state.compareAndSet(current, next)) {
+                return new RateLimitDecision(allowed, capacity, (int) next.tokens(), secondsUntil(next.tokens(), allowed));
+            }
+        }
+    }
+
+    // Refusé : délai avant le prochain jeton ; accepté : délai avant que le seau soit plein
+    private long secondsUntil(double tokens, boolean allowed) {
+        double missing = allowed ? capacity - tokens : 1 - tokens;
+        if (missing <= 0 || refillPerNano <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(missing / refillPerNano / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private record State(double tokens, long refilledAt) {
+    }
+}
@@ -19,10 +19,10 @@ public class Answer implements Identifiable<Integer> {
     @Column(name = "is_anonymous")
     private boolean isAnonymous;
 
-    @Column(name = "original_answer")
+    @Column(name = "original_answer", jsonb = true)
     private String originalAnswer;
 
-    @Column(name = "anonymous_answer")
+    @Column(name = "anonymous_answer", jsonb = true)
     private String anonymousAnswer;
 
     @Column(name = "respondent_id")
@@ -0,0 +1,19 @@
+package fr.github.vera.model;
+
+// Compteurs de réponses ; le score moyen se déduit de correct / (correct + incorrect)
+public record AnswerCounts(long total, long correct, long incorrect, long anonymous) {
+    public static final AnswerCounts ZERO = new AnswerCounts(0, 0, 0, 0);
+
+    public static AnswerCounts of(Answer answer) {
+        Boolean correct = answer.getIsCorrect();
+        return new AnswerCounts(1,
+                Boolean.TRUE.equals(correct) ? 1 : 0,
+                Boolean.FALSE.equals(correct) ? 1 : 0,
+                answer.isAnonymous() ? 1 : 0);
+    }
+
+    public AnswerCounts plus(AnswerCounts other) {
+        return new AnswerCounts(total + other.total, correct + other.correct,
+                incorrect + other.incorrect, anonymous + other.anonymous);
+    }
+}
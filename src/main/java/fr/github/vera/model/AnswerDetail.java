@@ -0,0 +1,5 @@
+package fr.github.vera.model;
+
+// Réponse accompagnée du titre de sa question (null si la question n'existe plus)
+public record AnswerDetail(Answer answer, String questionTitle) {
+}
@@ -0,0 +1,8 @@
+package fr.github.vera.model;
+
+import java.util.Map;
+
+// Réponses d'un survey ajoutées depuis le dernier événement du flux (ou totaux pour l'événement initial),
+// globalement et par question ; le client additionne les événements successifs
+public record AnswerStatsDelta(Integer surveyId, AnswerCounts survey, Map<Integer, AnswerCounts> questions) {
+}
@@ -0,0 +1,7 @@
+package fr.github.vera.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+// Nombre de réponses pour une valeur ; la valeur est du JSON, renvoyée telle quelle
+public record AnswerValueCount(@JsonRawValue String value, long count) {
+}
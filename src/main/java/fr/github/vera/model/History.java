@@ -5,7 +5,7 @@ import fr.github.vera.database.Table;
 import jakarta.validation.constraints.NotNull;
 
 @Table(name = "history")
-public class History implements Identifiable<Integer> {
+public class History implements Identifiable<Integer>, HistoryEntry {
     @Column(name = "id", updatable = false)
     private Integer id;
 
@@ -17,7 +17,7 @@ public class History implements Identifiable<Integer> {
     @NotNull(message = "Action cannot be null")
     private String action;
 
-    @Column(name = "snapshot")
+    @Column(name = "snapshot", jsonb = true)
     @NotNull(message = "Snapshot cannot be null")
     private String snapshot;
 
@@ -25,6 +25,13 @@ public class History implements Identifiable<Integer> {
     @NotNull(message = "User ID cannot be null")
     private Integer idUser;
 
+    // Position dans la chaîne de l'entité ; un checkpoint contient l'état complet, sinon seulement les champs modifiés
+    @Column(name = "version", updatable = false)
+    private Integer version;
+
+    @Column(name = "is_checkpoint", updatable = false)
+    private Boolean checkpoint;
+
     @Column(name = "created_at", updatable = false)
     private java.time.LocalDateTime createdAt;
 
@@ -82,6 +89,22 @@ public class History implements Identifiable<Integer> {
         this.idUser = idUser;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Boolean getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(Boolean checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
     public java.time.LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -98,6 +121,8 @@ public class History implements Identifiable<Integer> {
                 ", action='" + action + '\'' +
                 ", snapshot='" + snapshot + '\'' +
                 ", idUser=" + idUser +
+                ", version=" + version +
+                ", checkpoint=" + checkpoint +
                 ", createdAt=" + createdAt +
                 '}';
     }
@@ -0,0 +1,5 @@
+package fr.github.vera.model;
+
+// Entrée d'historique accompagnée du nom de son auteur (null si l'utilisateur n'existe plus)
+public record HistoryDetail(HistoryEntry entry, String userName) {
+}
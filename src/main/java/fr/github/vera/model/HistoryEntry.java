@@ -0,0 +1,19 @@
+package fr.github.vera.model;
+
+import java.time.LocalDateTime;
+
+// Entrée d'historique rejouable (survey ou question)
+public interface HistoryEntry {
+
+    String getAction();
+
+    String getSnapshot();
+
+    Integer getIdUser();
+
+    Integer getVersion();
+
+    Boolean getCheckpoint();
+
+    LocalDateTime getCreatedAt();
+}
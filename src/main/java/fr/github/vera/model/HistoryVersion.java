@@ -0,0 +1,15 @@
+package fr.github.vera.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+
+// État complet d'une entité à une version donnée, reconstruit depuis le checkpoint le plus proche
+public record HistoryVersion(
+        int version,
+        String action,
+        Integer userId,
+        LocalDateTime createdAt,
+        int replayedEntries,
+        JsonNode state) {
+}
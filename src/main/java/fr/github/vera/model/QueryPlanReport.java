@@ -0,0 +1,16 @@
+package fr.github.vera.model;
+
+import java.util.List;
+
+// Analyse du plan générique d'une requête enregistrée ; status : OK, SEQ_SCAN (parcours complet d'une grosse table) ou ERROR
+public record QueryPlanReport(
+        String context,
+        String sql,
+        String status,
+        Double totalCost,
+        List<SeqScan> seqScans,
+        String error) {
+
+    public record SeqScan(String relation, long tableRows, String filter) {
+    }
+}
@@ -17,7 +17,7 @@ public class Question implements Identifiable<Integer> {
     private Integer surveyId;
     @Column(name = "is_mandatory")
     private boolean mandatory;
-    @Column(name = "correct_answer")
+    @Column(name = "correct_answer", jsonb = true)
     private String correctAnswer;
     @Column(name = "display_order")
     private Integer displayOrder;
@@ -0,0 +1,7 @@
+package fr.github.vera.model;
+
+import java.time.LocalDateTime;
+
+// Une exécution lente ; les valeurs des paramètres ne sont pas conservées
+public record SlowQuerySample(String fingerprint, String context, double durationMs, LocalDateTime at) {
+}
@@ -0,0 +1,22 @@
+package fr.github.vera.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Agrégat des exécutions lentes d'une même requête (SQL normalisé, valeurs des paramètres ignorées).
+// lastPlan : dernier EXPLAIN (ANALYZE, BUFFERS) échantillonné, en JSON, null si aucun
+public record SlowQueryStats(
+        String fingerprint,
+        String sql,
+        String context,
+        List<String> parameterShape,
+        long count,
+        double totalMs,
+        double meanMs,
+        double maxMs,
+        LocalDateTime lastSeen,
+        @JsonRawValue String lastPlan,
+        LocalDateTime lastPlanAt) {
+}
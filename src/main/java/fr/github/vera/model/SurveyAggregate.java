@@ -0,0 +1,9 @@
+package fr.github.vera.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Survey et questions ordonnées tels qu'affichés au répondant (sans bonnes réponses pour un quiz).
+// version : plus récent updated_at du survey et de ses questions
+public record SurveyAggregate(Survey survey, List<Question> questions, LocalDateTime version) {
+}
@@ -0,0 +1,29 @@
+package fr.github.vera.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Différence entre l'état courant d'un survey et l'état restauré (appliquée ou non selon dryRun)
+public record SurveyRestoreResult(
+        Integer surveyId,
+        LocalDateTime restoredTo,
+        boolean dryRun,
+        boolean applied,
+        int replayedEntries,
+        Map<String, FieldChange> surveyChanges,
+        List<QuestionChange> questionChanges,
+        long deletedAnswers,
+        long durationMs) {
+
+    public record FieldChange(JsonNode current, JsonNode restored) {
+    }
+
+    // change : create (question recréée), update, delete (question ajoutée après la date restaurée) ou untracked
+    // (aucun historique avant la date, par exemple retiré par la rétention : question conservée telle quelle) ;
+    // answers : réponses supprimées avec la question (ON DELETE CASCADE), 0 hors delete
+    public record QuestionChange(Integer questionId, String change, Map<String, FieldChange> fields, long answers) {
+    }
+}
@@ -2,8 +2,13 @@ package fr.github.vera.repository;
 
 import fr.github.vera.database.BaseRepository;
 import fr.github.vera.model.Answer;
+import fr.github.vera.model.AnswerCounts;
+import fr.github.vera.model.AnswerValueCount;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AnswerRepository extends BaseRepository<Answer, Integer> implements IAnswerRepository {
 
@@ -58,10 +63,39 @@ public class AnswerRepository extends BaseRepository<Answer, Integer> implements
                 "FIND CORRECT ANSWERS", questionId);
     }
 
+    @Override
+    public List<Answer> findByAnswerValue(Integer questionId, String valueJson) {
+        // @> : égalité pour un scalaire, appartenance pour un tableau ; servi par idx_answer_original_answer
+        String sql = "SELECT * FROM answer WHERE id_question = ? AND original_answer @> ?::jsonb ORDER BY submitted_at DESC";
+        return executeQueryWithParams(sql, this::mapResultSetList, List.of(),
+                "FIND ANSWERS BY VALUE", questionId, valueJson);
+    }
+
+    @Override
+    public List<AnswerValueCount> getValueDistribution(Integer questionId) {
+        String sql = """
+                SELECT v.value::text AS value, COUNT(*) AS total
+                FROM answer a
+                CROSS JOIN LATERAL jsonb_array_elements(
+                    CASE WHEN jsonb_typeof(a.original_answer) = 'array' THEN a.original_answer
+                         ELSE jsonb_build_array(a.original_answer) END) AS v(value)
+                WHERE a.id_question = ? AND a.original_answer IS NOT NULL
+                GROUP BY v.value
+                ORDER BY total DESC, value
+                """;
+        return executeReadOnlyQueryWithParams(sql, rs -> {
+            List<AnswerValueCount> distribution = new ArrayList<>();
+            while (rs.next()) {
+                distribution.add(new AnswerValueCount(rs.getString("value"), rs.getLong("total")));
+            }
+            return distribution;
+        }, List.of(), "ANSWER VALUE DISTRIBUTION", questionId);
+    }
+
     @Override
     public int countByQuestionId(Integer questionId) {
         String sql = "SELECT COUNT(*) FROM answer WHERE id_question = ?";
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
                 "COUNT ANSWERS BY QUESTION", questionId);
     }
 
@@ -72,38 +106,60 @@ public class AnswerRepository extends BaseRepository<Answer, Integer> implements
                 JOIN question q ON a.id_question = q.id 
                 WHERE q.id_survey = ?
                 """;
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
                 "COUNT ANSWERS BY SURVEY", surveyId);
     }
 
     @Override
     public int countCorrectAnswersByQuestionId(Integer questionId) {
         String sql = "SELECT COUNT(*) FROM answer WHERE id_question = ? AND is_correct = true";
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
                 "COUNT CORRECT ANSWERS", questionId);
     }
 
     @Override
     public int countAnonymousAnswersByQuestionId(Integer questionId) {
         String sql = "SELECT COUNT(*) FROM answer WHERE id_question = ? AND is_anonymous = true";
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
                 "COUNT ANONYMOUS ANSWERS", questionId);
     }
 
     @Override
     public int countByRespondentId(String respondentId) {
         String sql = "SELECT COUNT(*) FROM answer WHERE respondent_id = ?";
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
                 "COUNT ANSWERS BY RESPONDENT", respondentId);
     }
 
+    // Lu sur le primaire : les deltas envoyés ensuite partent de cet état, une réplique en retard en perdrait
+    @Override
+    public Map<Integer, AnswerCounts> countBySurveyIdGroupedByQuestion(Integer surveyId) {
+        String sql = """
+                SELECT a.id_question, COUNT(*),
+                       COUNT(*) FILTER (WHERE a.is_correct),
+                       COUNT(*) FILTER (WHERE NOT a.is_correct),
+                       COUNT(*) FILTER (WHERE a.is_anonymous)
+                FROM answer a
+                JOIN question q ON a.id_question = q.id
+                WHERE q.id_survey = ?
+                GROUP BY a.id_question
+                """;
+        return executeQueryWithParams(sql, rs -> {
+            Map<Integer, AnswerCounts> counts = new HashMap<>();
+            while (rs.next()) {
+                counts.put(rs.getInt(1), new AnswerCounts(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+            }
+            return counts;
+        }, Map.of(), "COUNT ANSWERS BY SURVEY GROUPED BY QUESTION", surveyId);
+    }
+
     @Override
     public Double getAverageScoreByQuestionId(Integer questionId) {
         String sql = """
                 SELECT AVG(CASE WHEN is_correct THEN 1 ELSE 0 END) 
                 FROM answer WHERE id_question = ? AND is_correct IS NOT NULL
                 """;
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getDouble(1) : 0.0, 0.0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getDouble(1) : 0.0, 0.0,
                 "GET AVERAGE SCORE BY QUESTION", questionId);
     }
 
@@ -115,7 +171,7 @@ public class AnswerRepository extends BaseRepository<Answer, Integer> implements
                 JOIN question q ON a.id_question = q.id 
                 WHERE q.id_survey = ? AND a.is_correct IS NOT NULL
                 """;
-        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getDouble(1) : 0.0, 0.0,
+        return executeReadOnlyQueryWithParams(sql, rs -> rs.next() ? rs.getDouble(1) : 0.0, 0.0,
                 "GET AVERAGE SCORE BY SURVEY", surveyId);
     }
 
@@ -147,4 +203,25 @@ public class AnswerRepository extends BaseRepository<Answer, Integer> implements
                 "CHECK RESPONDENT ANSWERED QUESTION", respondentId, questionId);
         return count > 0;
     }
-}
\ No newline at end of file
+
+    // Un COPY par appel : le lot entier est validé ou rejeté dans une seule transaction
+    @Override
+    public long bulkInsert(List<Answer> answers) {
+        if (answers.isEmpty()) {
+            return 0;
+        }
+        String sql = "COPY answer (id_question, is_anonymous, original_answer, anonymous_answer, respondent_id, " +
+                "is_correct, submitted_at) FROM STDIN (FORMAT csv)";
+        return executeCopyIn(sql, buffer -> {
+            for (Answer answer : answers) {
+                buffer.row(answer.getIdQuestion(),
+                        answer.isAnonymous(),
+                        answer.getOriginalAnswer(),
+                        answer.getAnonymousAnswer(),
+                        answer.getRespondentId(),
+                        answer.getIsCorrect(),
+                        answer.getSubmittedAt());
+            }
+        }, "BULK INSERT ANSWERS");
+    }
+}
@@ -0,0 +1,159 @@
+package fr.github.vera.repository;
+
+import fr.github.vera.database.BaseRequest;
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Partitions mensuelles des tables d'historique (history_pYYYYMM couvre [1er du mois, 1er du mois suivant))
+@DatabasePool(PoolType.BACKGROUND)
+public class HistoryPartitionRepository extends BaseRequest {
+    public static final Set<String> PARTITIONED_TABLES = Set.of("history", "history_question");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    public boolean isPartitioned(String table) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))";
+        return executeQueryWithParams(sql, rs -> rs.next() && rs.getBoolean(1), false,
+                "CHECK PARTITIONED " + table.toUpperCase(), table);
+    }
+
+    // Crée les partitions manquantes ; retourne le nombre de partitions créées
+    public int ensurePartitions(String table, YearMonth from, int months) {
+        checkTable(table);
+        String sql = "SELECT ensure_monthly_partitions(?, ?, ?)";
+        return executeQueryWithParams(sql, rs -> rs.next() ? rs.getInt(1) : 0, 0,
+                "ENSURE PARTITIONS " + table.toUpperCase(), table, from.atDay(1), months);
+    }
+
+    public List<MonthlyPartition> findPartitions(String table) {
+        checkTable(table);
+        String sql = """
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?) AND c.relname ~ ('^' || ? || '_p[0-9]{6}$')
+                ORDER BY c.relname
+                """;
+        return executeQueryWithParams(sql, rs -> {
+            List<MonthlyPartition> partitions = new ArrayList<>();
+            while (rs.next()) {
+                String name = rs.getString(1);
+                YearMonth month = YearMonth.parse(name.substring(name.length() - 6), SUFFIX);
+                partitions.add(new MonthlyPartition(name, month));
+            }
+            return partitions;
+        }, List.of(), "FIND PARTITIONS " + table.toUpperCase(), table, table);
+    }
+
+    // DETACH puis DROP (ou conservation de la table détachée pour archivage) : aucun parcours de lignes
+    public void detachPartition(String table, MonthlyPartition partition, boolean drop) {
+        checkTable(table);
+        executeStatement("ALTER TABLE " + table + " DETACH PARTITION " + partition.name(),
+                "DETACH PARTITION " + partition.name().toUpperCase());
+        if (drop) {
+            executeStatement("DROP TABLE IF EXISTS " + partition.name(), "DROP PARTITION " + partition.name().toUpperCase());
+        }
+    }
+
+    // Supprime les partitions entièrement antérieures à la date ; retourne le nombre de partitions supprimées
+    public int dropPartitionsBefore(String table, LocalDate date) {
+        int dropped = 0;
+        for (MonthlyPartition partition : findPartitions(table)) {
+            if (!partition.end().isAfter(date)) {
+                detachPartition(table, partition, true);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    // La partition DEFAULT ne reçoit que des lignes hors des mois créés : elle reste petite
+    public int deleteFromDefaultBefore(String table, LocalDate date) {
+        checkTable(table);
+        String sql = "DELETE FROM " + table + "_default WHERE created_at < ?";
+        return executeUpdate(sql, "PURGE DEFAULT PARTITION " + table.toUpperCase(), date.atStartOfDay());
+    }
+
+    // Entités qui perdent des entrées antérieures à la date et dont la première entrée conservée n'est pas
+    // un checkpoint : leur rejeu dépend de lignes sur le point de disparaître. Erreur propagée : une liste vide
+    // à tort laisserait supprimer ces lignes
+    public List<ChainStart> findChainsCutBefore(String table, LocalDateTime date) {
+        checkTable(table);
+        String entity = entityColumn(table);
+        String sql = "WITH expiring AS (SELECT DISTINCT " + entity + " AS entity_id FROM " + table + " WHERE created_at < ?) " +
+                "SELECT e.entity_id, f.version FROM expiring e " +
+                "CROSS JOIN LATERAL (SELECT version, is_checkpoint FROM " + table + " t " +
+                "WHERE t." + entity + " = e.entity_id AND t.created_at >= ? ORDER BY version LIMIT 1) f " +
+                "WHERE NOT f.is_checkpoint";
+        Timestamp timestamp = Timestamp.valueOf(date);
+        return executeQueryWithParamsOrThrow(sql, rs -> {
+            List<ChainStart> starts = new ArrayList<>();
+            while (rs.next()) {
+                starts.add(new ChainStart(rs.getInt(1), rs.getInt(2)));
+            }
+            return starts;
+        }, "FIND CUT CHAINS " + table.toUpperCase(), timestamp, timestamp);
+    }
+
+    // Chaîne de rejeu jusqu'à la version incluse, lue sur le primaire (checkpoint le plus proche + patchs)
+    public List<ChainEntry> findChain(String table, ChainStart start) {
+        checkTable(table);
+        String entity = entityColumn(table);
+        String sql = "SELECT snapshot::text, is_checkpoint FROM " + table + " WHERE " + entity + " = ? AND version <= ? " +
+                "AND version >= COALESCE((SELECT MAX(version) FROM " + table + " WHERE " + entity + " = ? " +
+                "AND version <= ? AND is_checkpoint), 0) ORDER BY version, id";
+        return executeQueryWithParamsOrThrow(sql, rs -> {
+            List<ChainEntry> chain = new ArrayList<>();
+            while (rs.next()) {
+                chain.add(new ChainEntry(rs.getString(1), rs.getBoolean(2)));
+            }
+            return chain;
+        }, "FIND CHAIN " + table.toUpperCase(), start.entityId(), start.version(), start.entityId(), start.version());
+    }
+
+    // L'entrée garde sa version, son action et son auteur ; seul le snapshot passe du patch à l'état complet
+    public void promoteToCheckpoint(String table, ChainStart start, String state) {
+        checkTable(table);
+        String sql = "UPDATE " + table + " SET snapshot = ?::jsonb, is_checkpoint = true WHERE " + entityColumn(table) +
+                " = ? AND version = ?";
+        if (executeUpdate(sql, "PROMOTE CHECKPOINT " + table.toUpperCase(), state, start.entityId(), start.version()) == 0) {
+            throw new IllegalStateException("Checkpoint non écrit pour " + table + " " + start.entityId()
+                    + " version " + start.version());
+        }
+    }
+
+    private static String entityColumn(String table) {
+        return table.equals("history") ? "id_survey" : "id_question";
+    }
+
+    private static void checkTable(String table) {
+        // Les noms de table sont concaténés dans le SQL : seules les tables connues sont acceptées
+        if (!PARTITIONED_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Table non partitionnée: " + table);
+        }
+    }
+
+    public record ChainStart(int entityId, int version) {
+    }
+
+    public record ChainEntry(String snapshot, boolean checkpoint) {
+    }
+
+    public record MonthlyPartition(String name, YearMonth month) {
+
+        public LocalDate start() {
+            return month.atDay(1);
+        }
+
+        public LocalDate end() {
+            return month.plusMonths(1).atDay(1);
+        }
+    }
+}
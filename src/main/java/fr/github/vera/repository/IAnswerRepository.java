@@ -1,8 +1,13 @@
 package fr.github.vera.repository;
 
+import fr.github.vera.database.DatabaseExecutor;
 import fr.github.vera.model.Answer;
+import fr.github.vera.model.AnswerCounts;
+import fr.github.vera.model.AnswerValueCount;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface IAnswerRepository extends IRepository<Answer, Integer> {
 
@@ -21,6 +26,12 @@ public interface IAnswerRepository extends IRepository<Answer, Integer> {
     // Réponses correctes (pour les quiz)
     List<Answer> findCorrectAnswers(Integer questionId);
 
+    // Recherche par valeur (index GIN) : réponses égales à la valeur ou, pour un choix multiple, la contenant
+    List<Answer> findByAnswerValue(Integer questionId, String valueJson);
+
+    // Répartition des valeurs d'une question (les choix multiples comptent pour chacune de leurs valeurs)
+    List<AnswerValueCount> getValueDistribution(Integer questionId);
+
     // Statistiques
     int countByQuestionId(Integer questionId);
 
@@ -32,11 +43,38 @@ public interface IAnswerRepository extends IRepository<Answer, Integer> {
 
     int countByRespondentId(String respondentId);
 
+    // Compteurs par question d'un survey, point de départ du flux de résultats en direct
+    Map<Integer, AnswerCounts> countBySurveyIdGroupedByQuestion(Integer surveyId);
+
+    default CompletableFuture<Integer> countByQuestionIdAsync(Integer questionId) {
+        return DatabaseExecutor.getInstance().supply(() -> countByQuestionId(questionId));
+    }
+
+    default CompletableFuture<Integer> countBySurveyIdAsync(Integer surveyId) {
+        return DatabaseExecutor.getInstance().supply(() -> countBySurveyId(surveyId));
+    }
+
+    default CompletableFuture<Integer> countCorrectAnswersByQuestionIdAsync(Integer questionId) {
+        return DatabaseExecutor.getInstance().supply(() -> countCorrectAnswersByQuestionId(questionId));
+    }
+
+    default CompletableFuture<Integer> countAnonymousAnswersByQuestionIdAsync(Integer questionId) {
+        return DatabaseExecutor.getInstance().supply(() -> countAnonymousAnswersByQuestionId(questionId));
+    }
+
     // Agrégations et analyses
     Double getAverageScoreByQuestionId(Integer questionId);
 
     Double getAverageScoreBySurveyId(Integer surveyId);
 
+    default CompletableFuture<Double> getAverageScoreByQuestionIdAsync(Integer questionId) {
+        return DatabaseExecutor.getInstance().supply(() -> getAverageScoreByQuestionId(questionId));
+    }
+
+    default CompletableFuture<Double> getAverageScoreBySurveyIdAsync(Integer surveyId) {
+        return DatabaseExecutor.getInstance().supply(() -> getAverageScoreBySurveyId(surveyId));
+    }
+
     // Gestion des réponses
     boolean markAnswerAsCorrect(Integer answerId, boolean isCorrect);
 
@@ -48,4 +86,7 @@ public interface IAnswerRepository extends IRepository<Answer, Integer> {
     // Vérifications
     boolean hasRespondentAnsweredQuestion(String respondentId, Integer questionId);
 
+    // Import en masse (COPY), retourne le nombre de lignes insérées
+    long bulkInsert(List<Answer> answers);
+
 }
\ No newline at end of file
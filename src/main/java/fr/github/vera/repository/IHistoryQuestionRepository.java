@@ -1,8 +1,10 @@
 package fr.github.vera.repository;
 
+import fr.github.vera.database.DatabaseExecutor;
 import fr.github.vera.model.HistoryQuestion;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IHistoryQuestionRepository extends IRepository<HistoryQuestion, Integer> {
 
@@ -31,6 +33,14 @@ public interface IHistoryQuestionRepository extends IRepository<HistoryQuestion,
 
     int countByAction(String action);
 
+    default CompletableFuture<Integer> countByQuestionIdAsync(Integer questionId) {
+        return DatabaseExecutor.getInstance().supply(() -> countByQuestionId(questionId));
+    }
+
+    default CompletableFuture<Integer> countByActionAsync(String action) {
+        return DatabaseExecutor.getInstance().supply(() -> countByAction(action));
+    }
+
     // Récupération des dernières actions
     List<HistoryQuestion> findLatestByQuestionId(Integer questionId, int limit);
 
@@ -47,6 +57,11 @@ public interface IHistoryQuestionRepository extends IRepository<HistoryQuestion,
 
     boolean deleteOlderThan(java.time.LocalDateTime date);
 
+    // Rejeu des versions : entrées depuis le dernier checkpoint jusqu'à la version demandée
+    List<HistoryQuestion> findReplayChain(Integer questionId, int version);
+
+    int findLatestVersion(Integer questionId);
+
     // Récupération des snapshots spécifiques
     String findLatestSnapshotByQuestionId(Integer questionId);
 
@@ -1,15 +1,19 @@
 package fr.github.vera.repository;
 
+import fr.github.vera.database.DatabaseExecutor;
+import fr.github.vera.database.Projection;
 import fr.github.vera.model.History;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IHistoryRepository extends IRepository<History, Integer> {
 
     // Méthodes spécifiques à l'historique des surveys
-    List<History> findBySurveyId(Integer surveyId);
+    // projection : colonnes demandées par ?fields=, null pour l'entrée complète (snapshot compris)
+    List<History> findBySurveyId(Integer surveyId, Projection<History> projection);
 
-    List<History> findByUserId(Integer userId);
+    List<History> findByUserId(Integer userId, Projection<History> projection);
 
     List<History> findBySurveyIdAndAction(Integer surveyId, String action);
 
@@ -27,6 +31,14 @@ public interface IHistoryRepository extends IRepository<History, Integer> {
 
     int countByAction(String action);
 
+    default CompletableFuture<Integer> countBySurveyIdAsync(Integer surveyId) {
+        return DatabaseExecutor.getInstance().supply(() -> countBySurveyId(surveyId));
+    }
+
+    default CompletableFuture<Integer> countByActionAsync(String action) {
+        return DatabaseExecutor.getInstance().supply(() -> countByAction(action));
+    }
+
     // Récupération des dernières actions
     List<History> findLatestBySurveyId(Integer surveyId, int limit);
 
@@ -41,6 +53,11 @@ public interface IHistoryRepository extends IRepository<History, Integer> {
 
     boolean deleteOlderThan(java.time.LocalDateTime date);
 
+    // Rejeu des versions : entrées depuis le dernier checkpoint jusqu'à la version demandée
+    List<History> findReplayChain(Integer surveyId, int version);
+
+    int findLatestVersion(Integer surveyId);
+
     // Récupération des snapshots spécifiques
     String findLatestSnapshotBySurveyId(Integer surveyId);
 
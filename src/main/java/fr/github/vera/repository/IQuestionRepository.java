@@ -1,9 +1,11 @@
 package fr.github.vera.repository;
 
+import fr.github.vera.database.DatabaseExecutor;
 import fr.github.vera.model.Question;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface IQuestionRepository extends IRepository<Question, Integer> {
     // Méthodes spécifiques aux questions
@@ -32,6 +34,14 @@ public interface IQuestionRepository extends IRepository<Question, Integer> {
 
     int countMandatoryBySurveyId(Integer surveyId);
 
+    default CompletableFuture<Integer> countBySurveyIdAsync(Integer surveyId) {
+        return DatabaseExecutor.getInstance().supply(() -> countBySurveyId(surveyId));
+    }
+
+    default CompletableFuture<Integer> countMandatoryBySurveyIdAsync(Integer surveyId) {
+        return DatabaseExecutor.getInstance().supply(() -> countMandatoryBySurveyId(surveyId));
+    }
+
     // Mise à jour spécifique
     boolean updateQuestionTitle(Integer questionId, String title);
 
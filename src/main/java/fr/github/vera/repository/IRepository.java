@@ -1,17 +1,43 @@
 package fr.github.vera.repository;
 
+import fr.github.vera.database.DatabaseExecutor;
+import fr.github.vera.database.Projection;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 // Interface générique pour toutes les entités
 public interface IRepository<T, I> {
     Optional<T> findById(I id);
 
+    List<T> findAllByIds(Collection<I> ids);
+
     T save(T entity);
 
     boolean delete(I id);
 
     List<T> findAll(int limit, int offset);
 
+    // Colonnes limitées à la projection (null : toutes)
+    List<T> findAll(int limit, int offset, Projection<T> projection);
+
+    // Projection ?fields= validée pour l'entité du repository, null si fields est vide
+    Projection<T> projection(String fields);
+
     int count();
+
+    // Variantes asynchrones exécutées par DatabaseExecutor, pour lancer des requêtes indépendantes en parallèle
+    default CompletableFuture<Optional<T>> findByIdAsync(I id) {
+        return DatabaseExecutor.getInstance().supply(() -> findById(id));
+    }
+
+    default CompletableFuture<List<T>> findAllAsync(int limit, int offset) {
+        return DatabaseExecutor.getInstance().supply(() -> findAll(limit, offset));
+    }
+
+    default CompletableFuture<Integer> countAsync() {
+        return DatabaseExecutor.getInstance().supply(this::count);
+    }
 }
\ No newline at end of file
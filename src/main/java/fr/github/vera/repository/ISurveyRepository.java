@@ -1,18 +1,20 @@
 package fr.github.vera.repository;
 
+import fr.github.vera.database.Projection;
 import fr.github.vera.model.Survey;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface ISurveyRepository extends IRepository<Survey, Integer> {
-    List<Survey> getSurveysByUser(Integer userId, int limit, int offset);
+    List<Survey> getSurveysByUser(Integer userId, int limit, int offset, Projection<Survey> projection);
 
-    List<Survey> getPublicSurveys(int limit, int offset);
+    List<Survey> getPublicSurveys(int limit, int offset, Projection<Survey> projection);
 
-    List<Survey> getActiveSurveys(int limit, int offest);
+    List<Survey> getActiveSurveys(int limit, int offest, Projection<Survey> projection);
 
-    List<Survey> getQuizSurveys(int limit, int offset);
+    List<Survey> getQuizSurveys(int limit, int offset, Projection<Survey> projection);
 
     Survey toggleActivation(Integer id);
 
@@ -22,11 +24,14 @@ public interface ISurveyRepository extends IRepository<Survey, Integer> {
 
     Optional<Survey> getSurveyByToken(String token);
 
+    // Plus récent updated_at du survey et de ses questions
+    Optional<LocalDateTime> findContentVersion(Integer surveyId);
+
     Survey generateShareToken(Integer id);
 
     Survey revokeShareToken(Integer id);
 
-    List<Survey> getSurveysByUserAndStatus(Integer userId, boolean isActive, int limit, int offset);
+    List<Survey> getSurveysByUserAndStatus(Integer userId, boolean isActive, int limit, int offset, Projection<Survey> projection);
 
     int countSurveysByUser(Integer userId);
 
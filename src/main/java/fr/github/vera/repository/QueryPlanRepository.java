@@ -0,0 +1,104 @@
+package fr.github.vera.repository;
+
+import fr.github.vera.database.BaseRequest;
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Plans d'exécution des requêtes des repositories, sans les exécuter ni connaître leurs paramètres
+@DatabasePool(PoolType.REPORTING)
+public class QueryPlanRepository extends BaseRequest {
+    private static final String STATEMENT_NAME = "vera_index_advisor";
+
+    // Estimation pg_class (ANALYZE / autovacuum) : suffisant pour distinguer petite et grosse table
+    public Map<String, Long> findTableRows() {
+        String sql = """
+                SELECT relname, reltuples::bigint
+                FROM pg_class
+                WHERE relkind = 'r' AND relnamespace = current_schema()::regnamespace
+                """;
+        return executeQuery(sql, rs -> {
+            Map<String, Long> rows = new HashMap<>();
+            while (rs.next()) {
+                rows.put(rs.getString(1), Math.max(0, rs.getLong(2)));
+            }
+            return rows;
+        }, Map.of(), "FIND TABLE ROWS");
+    }
+
+    // PostgreSQL 14 n'a pas EXPLAIN (GENERIC_PLAN) : la requête est préparée puis expliquée avec des
+    // paramètres NULL en forçant le plan générique, celui qu'utilise le driver après quelques exécutions.
+    // Le plan est renvoyé au format JSON d'EXPLAIN ; une erreur de préparation remonte en RuntimeException.
+    public String explainGeneric(String sql) {
+        String prepared = toPositionalParameters(sql);
+        return executeInTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+                stmt.execute("PREPARE " + STATEMENT_NAME + " AS " + prepared.sql());
+                Savepoint savepoint = conn.setSavepoint();
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN (FORMAT JSON) EXECUTE " + STATEMENT_NAME + prepared.arguments())) {
+                    rs.next();
+                    return rs.getString(1);
+                } catch (SQLException e) {
+                    conn.rollback(savepoint);
+                    throw e;
+                } finally {
+                    deallocate(conn);
+                }
+            }
+        }, "EXPLAIN GENERIC PLAN");
+    }
+
+    // Les instructions préparées survivent à la transaction : à libérer avant de rendre la connexion au pool
+    private void deallocate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DEALLOCATE " + STATEMENT_NAME);
+        }
+    }
+
+    // Remplace les ? JDBC par $1..$n hors chaînes, identifiants et commentaires ; ?? est un ? littéral
+    static Prepared toPositionalParameters(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        int count = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            int end = i + 1;
+            if (c == '\'' || c == '"') {
+                end = sql.indexOf(c, i + 1);
+                end = end < 0 ? sql.length() : end + 1;
+            } else if (c == '-' && sql.startsWith("--", i)) {
+                end = sql.indexOf('\n', i);
+                end = end < 0 ? sql.length() : end + 1;
+            } else if (c == '?') {
+                if (sql.startsWith("??", i)) {
+                    result.append('?');
+                    i += 2;
+                    continue;
+                }
+                result.append('$').append(++count);
+                i++;
+                continue;
+            }
+            result.append(sql, i, end);
+            i = end;
+        }
+
+        StringJoiner arguments = new StringJoiner(", ", "(", ")").setEmptyValue("");
+        for (int n = 0; n < count; n++) {
+            arguments.add("NULL");
+        }
+        return new Prepared(result.toString(), arguments.toString());
+    }
+
+    record Prepared(String sql, String arguments) {
+    }
+}
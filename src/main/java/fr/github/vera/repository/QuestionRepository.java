@@ -12,6 +12,14 @@ public class QuestionRepository extends BaseRepository<Question, Integer> implem
         super("question", Question.class);
     }
 
+    // Une question ajoutée modifie le contenu de son survey
+    @Override
+    protected Question create(Question question) {
+        Question created = super.create(question);
+        publishInvalidation("survey", question.getSurveyId());
+        return created;
+    }
+
     @Override
     public List<Question> findBySurveyId(Integer surveyId) {
         String sql = "SELECT * FROM question WHERE id_survey = ? ORDER BY display_order, created_at";
@@ -43,7 +51,9 @@ public class QuestionRepository extends BaseRepository<Question, Integer> implem
     @Override
     public boolean updateDisplayOrder(Integer questionId, Integer displayOrder) {
         String sql = "UPDATE question SET display_order = ? WHERE id = ?";
-        return executeUpdate(sql, "UPDATE QUESTION DISPLAY ORDER", displayOrder, questionId) != 0;
+        boolean updated = executeUpdate(sql, "UPDATE QUESTION DISPLAY ORDER", displayOrder, questionId) != 0;
+        publishInvalidation(tableName, questionId);
+        return updated;
     }
 
     @Override
@@ -56,6 +66,7 @@ public class QuestionRepository extends BaseRepository<Question, Integer> implem
                 Integer questionId = questionIdsInOrder.get(i);
                 executeUpdate(sql, "REORDER QUESTIONS", i, questionId, surveyId);
             }
+            publishInvalidation("survey", surveyId);
             return true;
         } catch (Exception e) {
             return false;
@@ -100,30 +111,40 @@ public class QuestionRepository extends BaseRepository<Question, Integer> implem
     @Override
     public boolean updateQuestionTitle(Integer questionId, String title) {
         String sql = "UPDATE question SET title = ? WHERE id = ?";
-        return executeUpdate(sql, "UPDATE QUESTION TITLE", title, questionId) != 0;
+        boolean updated = executeUpdate(sql, "UPDATE QUESTION TITLE", title, questionId) != 0;
+        publishInvalidation(tableName, questionId);
+        return updated;
     }
 
     @Override
     public boolean updateQuestionDescription(Integer questionId, String description) {
         String sql = "UPDATE question SET description = ? WHERE id = ?";
-        return executeUpdate(sql, "UPDATE QUESTION DESCRIPTION", description, questionId) != 0;
+        boolean updated = executeUpdate(sql, "UPDATE QUESTION DESCRIPTION", description, questionId) != 0;
+        publishInvalidation(tableName, questionId);
+        return updated;
     }
 
     @Override
     public boolean toggleMandatoryStatus(Integer questionId) {
         String sql = "UPDATE question SET is_mandatory = NOT is_mandatory WHERE id = ?";
-        return executeUpdate(sql, "TOGGLE QUESTION MANDATORY STATUS", questionId) != 0;
+        boolean updated = executeUpdate(sql, "TOGGLE QUESTION MANDATORY STATUS", questionId) != 0;
+        publishInvalidation(tableName, questionId);
+        return updated;
     }
 
     @Override
     public boolean updateCorrectAnswer(Integer questionId, String correctAnswerJson) {
-        String sql = "UPDATE question SET correct_answer = ?::json WHERE id = ?";
-        return executeUpdate(sql, "UPDATE CORRECT ANSWER", correctAnswerJson, questionId) != 0;
+        String sql = "UPDATE question SET correct_answer = ?::jsonb WHERE id = ?";
+        boolean updated = executeUpdate(sql, "UPDATE CORRECT ANSWER", correctAnswerJson, questionId) != 0;
+        publishInvalidation(tableName, questionId);
+        return updated;
     }
 
     @Override
     public boolean deleteBySurveyId(Integer surveyId) {
         String sql = "DELETE FROM question WHERE id_survey = ?";
-        return executeUpdate(sql, "DELETE QUESTIONS BY SURVEY ID", surveyId) != 0;
+        boolean deleted = executeUpdate(sql, "DELETE QUESTIONS BY SURVEY ID", surveyId) != 0;
+        publishInvalidation("survey", surveyId);
+        return deleted;
     }
 }
\ No newline at end of file
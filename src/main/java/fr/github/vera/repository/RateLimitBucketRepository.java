@@ -0,0 +1,24 @@
+package fr.github.vera.repository;
+
+import fr.github.vera.database.BaseRequest;
+
+public class RateLimitBucketRepository extends BaseRequest {
+
+    // Consomme un jeton de façon atomique (null si la base est indisponible)
+    public BucketState take(String bucketKey, int capacity, double refillPerSecond) {
+        String sql = "SELECT allowed, remaining FROM rate_limit_take(?, ?, ?)";
+        return executeQueryWithParams(sql,
+                rs -> rs.next() ? new BucketState(rs.getBoolean("allowed"), rs.getDouble("remaining")) : null,
+                null,
+                "RATE LIMIT TAKE",
+                bucketKey, (double) capacity, refillPerSecond);
+    }
+
+    public int deleteIdleBuckets() {
+        String sql = "DELETE FROM rate_limit_bucket WHERE updated_at < NOW() - INTERVAL '1 hour'";
+        return executeUpdate(sql, "CLEANUP RATE LIMIT BUCKETS");
+    }
+
+    public record BucketState(boolean allowed, double remaining) {
+    }
+}
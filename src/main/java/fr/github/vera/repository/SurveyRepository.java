@@ -1,8 +1,10 @@
 package fr.github.vera.repository;
 
 import fr.github.vera.database.BaseRepository;
+import fr.github.vera.database.Projection;
 import fr.github.vera.model.Survey;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,45 +15,49 @@ public class SurveyRepository extends BaseRepository<Survey, Integer> implements
     }
 
     @Override
-    public List<Survey> getSurveysByUser(Integer userId, int limit, int offset) {
-        String sql = "SELECT * FROM survey WHERE id_user = ? ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return executeQueryWithParams(sql, this::mapResultSetList, List.of(),
+    public List<Survey> getSurveysByUser(Integer userId, int limit, int offset, Projection<Survey> projection) {
+        String sql = "SELECT " + columns(projection) + " FROM survey WHERE id_user = ? ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        return executeQueryWithParams(sql, rows(projection), List.of(),
                 "GET SURVEYS BY USER", userId, limit, offset);
     }
 
     @Override
-    public List<Survey> getPublicSurveys(int limit, int offset) {
-        String sql = "SELECT * FROM survey WHERE is_public = true AND is_active = true ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return executeQueryWithParams(sql, this::mapResultSetList, List.of(),
+    public List<Survey> getPublicSurveys(int limit, int offset, Projection<Survey> projection) {
+        String sql = "SELECT " + columns(projection) + " FROM survey WHERE is_public = true AND is_active = true ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        return executeQueryWithParams(sql, rows(projection), List.of(),
                 "GET PUBLIC SURVEYS", limit, offset);
     }
 
     @Override
-    public List<Survey> getActiveSurveys(int limit, int offset) {
-        String sql = "SELECT * FROM survey WHERE is_active = true ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return executeQueryWithParams(sql, this::mapResultSetList, List.of(),
+    public List<Survey> getActiveSurveys(int limit, int offset, Projection<Survey> projection) {
+        String sql = "SELECT " + columns(projection) + " FROM survey WHERE is_active = true ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        return executeQueryWithParams(sql, rows(projection), List.of(),
                 "GET ACTIVE SURVEYS", limit, offset);
     }
 
     @Override
-    public List<Survey> getQuizSurveys(int limit, int offset) {
-        String sql = "SELECT * FROM survey WHERE is_quiz = true AND is_active = true ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return executeQueryWithParams(sql, this::mapResultSetList, List.of(),
+    public List<Survey> getQuizSurveys(int limit, int offset, Projection<Survey> projection) {
+        String sql = "SELECT " + columns(projection) + " FROM survey WHERE is_quiz = true AND is_active = true ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        return executeQueryWithParams(sql, rows(projection), List.of(),
                 "GET QUIZ SURVEYS", limit, offset);
     }
 
     @Override
     public Survey toggleActivation(Integer id) {
         String sql = "UPDATE survey SET is_active = NOT is_active WHERE id = ? RETURNING *";
-        return executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
+        Survey survey = executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
                 "TOGGLE SURVEY ACTIVATION", id);
+        publishInvalidation(tableName, id);
+        return survey;
     }
 
     @Override
     public Survey toggleVisibility(Integer id) {
         String sql = "UPDATE survey SET is_public = NOT is_public WHERE id = ? RETURNING *";
-        return executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
+        Survey survey = executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
                 "TOGGLE SURVEY VISIBILITY", id);
+        publishInvalidation(tableName, id);
+        return survey;
     }
 
     @Override
@@ -80,6 +86,18 @@ public class SurveyRepository extends BaseRepository<Survey, Integer> implements
                 original.isEditing(), original.isPublic(), null);
     }
 
+    @Override
+    public Optional<LocalDateTime> findContentVersion(Integer surveyId) {
+        String sql = """
+                SELECT GREATEST(s.updated_at, (SELECT MAX(q.updated_at) FROM question q WHERE q.id_survey = s.id))
+                FROM survey s WHERE s.id = ?
+                """;
+        return executeQueryWithParams(sql, rs -> rs.next() && rs.getTimestamp(1) != null
+                        ? Optional.of(rs.getTimestamp(1).toLocalDateTime())
+                        : Optional.empty(),
+                Optional.empty(), "FIND SURVEY CONTENT VERSION", surveyId);
+    }
+
     @Override
     public Optional<Survey> getSurveyByToken(String token) {
         String sql = "SELECT * FROM survey WHERE share_token = ? AND is_active = true";
@@ -91,23 +109,27 @@ public class SurveyRepository extends BaseRepository<Survey, Integer> implements
     public Survey generateShareToken(Integer id) {
         String newToken = UUID.randomUUID().toString();
         String sql = "UPDATE survey SET share_token = ? WHERE id = ? RETURNING *";
-        return executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
+        Survey survey = executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
                 "GENERATE SHARE TOKEN", newToken, id);
+        publishInvalidation(tableName, id);
+        return survey;
     }
 
     @Override
     public Survey revokeShareToken(Integer id) {
         String sql = "UPDATE survey SET share_token = NULL WHERE id = ? RETURNING *";
-        return executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
+        Survey survey = executeQueryWithParams(sql, rs -> rs.next() ? mapResultSet(rs) : null, null,
                 "REVOKE SHARE TOKEN", id);
+        publishInvalidation(tableName, id);
+        return survey;
     }
 
     // Méthodes supplémentaires utiles
 
     @Override
-    public List<Survey> getSurveysByUserAndStatus(Integer userId, boolean isActive, int limit, int offset) {
-        String sql = "SELECT * FROM survey WHERE id_user = ? AND is_active = ? ORDER BY created_at DESC LIMIT ? OFFSET ?";
-        return executeQueryWithParams(sql, this::mapResultSetList, List.of(),
+    public List<Survey> getSurveysByUserAndStatus(Integer userId, boolean isActive, int limit, int offset, Projection<Survey> projection) {
+        String sql = "SELECT " + columns(projection) + " FROM survey WHERE id_user = ? AND is_active = ? ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        return executeQueryWithParams(sql, rows(projection), List.of(),
                 "GET SURVEYS BY USER AND STATUS", userId, isActive, limit, offset);
     }
 
@@ -127,12 +149,16 @@ public class SurveyRepository extends BaseRepository<Survey, Integer> implements
     @Override
     public boolean updateSurveyDescription(Integer id, String description) {
         String sql = "UPDATE survey SET description = ? WHERE id = ?";
-        return executeUpdate(sql, "UPDATE SURVEY DESCRIPTION", description, id) != 0;
+        boolean updated = executeUpdate(sql, "UPDATE SURVEY DESCRIPTION", description, id) != 0;
+        publishInvalidation(tableName, id);
+        return updated;
     }
 
     @Override
     public boolean updateSurveyName(Integer id, String name) {
         String sql = "UPDATE survey SET name = ? WHERE id = ?";
-        return executeUpdate(sql, "UPDATE SURVEY NAME", name, id) != 0;
+        boolean updated = executeUpdate(sql, "UPDATE SURVEY NAME", name, id) != 0;
+        publishInvalidation(tableName, id);
+        return updated;
     }
 }
\ No newline at end of file
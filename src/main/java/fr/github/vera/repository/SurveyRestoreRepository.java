@@ -0,0 +1,192 @@
+package fr.github.vera.repository;
+
+import fr.github.vera.database.BaseRequest;
+import fr.github.vera.exception.ConflictException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Lecture de l'historique fusionné survey + questions et application d'une restauration
+public class SurveyRestoreRepository extends BaseRequest {
+
+    public Optional<LocalDateTime> findHistoryTime(Integer surveyId, Integer historyId) {
+        String sql = "SELECT created_at FROM history WHERE id = ? AND id_survey = ?";
+        return executeQueryWithParams(sql,
+                rs -> rs.next() ? Optional.of(rs.getTimestamp(1).toLocalDateTime()) : Optional.empty(),
+                Optional.empty(), "FIND HISTORY TIME", historyId, surveyId);
+    }
+
+    // Un seul parcours ordonné des deux tables : pour chaque entité, uniquement les entrées
+    // depuis son dernier checkpoint antérieur à la date demandée
+    public List<ReplayEntry> findReplayEntries(Integer surveyId, LocalDateTime at) {
+        String sql = """
+                SELECT question, entity_id, action, snapshot, is_checkpoint
+                FROM (
+                    SELECT false AS question, id_survey AS entity_id, action::text AS action, snapshot::text AS snapshot,
+                           version, is_checkpoint, created_at,
+                           MAX(version) FILTER (WHERE is_checkpoint) OVER (PARTITION BY id_survey) AS start_version
+                    FROM history
+                    WHERE id_survey = ? AND created_at <= ? AND version > 0
+                    UNION ALL
+                    SELECT true, id_question, action::text, snapshot::text,
+                           version, is_checkpoint, created_at,
+                           MAX(version) FILTER (WHERE is_checkpoint) OVER (PARTITION BY id_question)
+                    FROM history_question
+                    WHERE id_survey = ? AND created_at <= ? AND version > 0
+                ) chain
+                WHERE version >= COALESCE(start_version, 0)
+                ORDER BY created_at, version
+                """;
+        Timestamp timestamp = Timestamp.valueOf(at);
+        return executeQueryWithParams(sql, rs -> {
+            List<ReplayEntry> entries = new ArrayList<>();
+            while (rs.next()) {
+                entries.add(new ReplayEntry(
+                        rs.getBoolean("question"),
+                        rs.getInt("entity_id"),
+                        rs.getString("action"),
+                        rs.getString("snapshot"),
+                        rs.getBoolean("is_checkpoint")));
+            }
+            return entries;
+        }, List.of(), "FIND SURVEY REPLAY ENTRIES", surveyId, timestamp, surveyId, timestamp);
+    }
+
+    // État courant au même format que les snapshots (mêmes fonctions que les triggers)
+    public Optional<String> findSurveyState(Integer surveyId) {
+        String sql = "SELECT survey_history_state(s)::text FROM survey s WHERE s.id = ?";
+        return executeQueryWithParams(sql, rs -> rs.next() ? Optional.of(rs.getString(1)) : Optional.empty(),
+                Optional.empty(), "FIND SURVEY STATE", surveyId);
+    }
+
+    public Map<Integer, String> findQuestionStates(Integer surveyId) {
+        String sql = "SELECT q.id, question_history_state(q)::text FROM question q WHERE q.id_survey = ? ORDER BY q.id";
+        return executeQueryWithParams(sql, rs -> {
+            Map<Integer, String> states = new LinkedHashMap<>();
+            while (rs.next()) {
+                states.put(rs.getInt(1), rs.getString(2));
+            }
+            return states;
+        }, Map.of(), "FIND QUESTION STATES", surveyId);
+    }
+
+    // Questions du survey dont la création est postérieure à la date (absentes à la date restaurée)
+    public Set<Integer> findQuestionsCreatedAfter(Integer surveyId, LocalDateTime at) {
+        String sql = "SELECT DISTINCT id_question FROM history_question WHERE id_survey = ? AND action = 'create' AND created_at > ?";
+        return executeQueryWithParams(sql, rs -> {
+            Set<Integer> ids = new HashSet<>();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+            return ids;
+        }, Set.of(), "FIND QUESTIONS CREATED AFTER", surveyId, Timestamp.valueOf(at));
+    }
+
+    // Nombre de réponses par question du survey (questions sans réponse absentes)
+    public Map<Integer, Long> findAnswerCounts(Integer surveyId) {
+        String sql = """
+                SELECT a.id_question, COUNT(*) FROM answer a
+                JOIN question q ON q.id = a.id_question
+                WHERE q.id_survey = ?
+                GROUP BY a.id_question
+                """;
+        return executeQueryWithParams(sql, rs -> {
+            Map<Integer, Long> counts = new LinkedHashMap<>();
+            while (rs.next()) {
+                counts.put(rs.getInt(1), rs.getLong(2));
+            }
+            return counts;
+        }, Map.of(), "FIND ANSWER COUNTS", surveyId);
+    }
+
+    // Applique l'état restauré en une transaction : survey, suppression des questions absentes,
+    // puis upsert groupé des questions créées ou modifiées (un seul INSERT ... ON CONFLICT).
+    // Sans deleteAnswers, la restauration est refusée si une question supprimée a des réponses : les questions sont
+    // verrouillées avant le comptage, aucune réponse ne peut s'y ajouter entre la vérification et le DELETE
+    public void applyRestore(Integer surveyId, String surveyState, List<Integer> keptQuestionIds, String questionUpserts,
+                             boolean deleteAnswers) {
+        String updateSurvey = """
+                UPDATE survey s
+                SET name = r.name, description = r.description, anonymization = r.anonymization,
+                    is_quiz = r.is_quiz, is_public = r.is_public, allow_editing = r.allow_editing,
+                    is_active = r.is_active
+                FROM jsonb_populate_record(NULL::survey, ?::jsonb) r
+                WHERE s.id = ?
+                """;
+        String countDeletedAnswers = """
+                SELECT COUNT(*) FROM answer a
+                WHERE a.id_question IN (SELECT q.id FROM question q
+                                        WHERE q.id_survey = ? AND NOT (q.id = ANY(?)) FOR UPDATE)
+                """;
+        String deleteQuestions = "DELETE FROM question WHERE id_survey = ? AND NOT (id = ANY(?))";
+        String upsertQuestions = """
+                INSERT INTO question (id, title, description, id_survey, is_mandatory, correct_answer, display_order)
+                SELECT r.id, r.title, r.description, ?, COALESCE(r.is_mandatory, false), r.correct_answer,
+                       COALESCE(r.display_order, 0)
+                FROM jsonb_populate_recordset(NULL::question, ?::jsonb) r
+                ON CONFLICT (id) DO UPDATE
+                SET title = EXCLUDED.title, description = EXCLUDED.description, is_mandatory = EXCLUDED.is_mandatory,
+                    correct_answer = EXCLUDED.correct_answer, display_order = EXCLUDED.display_order
+                WHERE question.id_survey = EXCLUDED.id_survey
+                """;
+
+        try {
+            executeInTransaction(conn -> {
+                if (!deleteAnswers) {
+                    try (PreparedStatement stmt = conn.prepareStatement(countDeletedAnswers)) {
+                        stmt.setInt(1, surveyId);
+                        stmt.setArray(2, conn.createArrayOf("integer", keptQuestionIds.toArray()));
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            long answers = rs.next() ? rs.getLong(1) : 0;
+                            if (answers > 0) {
+                                throw new ConflictException("Restore would delete " + answers
+                                        + " answer(s); pass deleteAnswers=true to confirm");
+                            }
+                        }
+                    }
+                }
+                if (surveyState != null) {
+                    try (PreparedStatement stmt = conn.prepareStatement(updateSurvey)) {
+                        stmt.setString(1, surveyState);
+                        stmt.setInt(2, surveyId);
+                        stmt.executeUpdate();
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(deleteQuestions)) {
+                    stmt.setInt(1, surveyId);
+                    stmt.setArray(2, conn.createArrayOf("integer", keptQuestionIds.toArray()));
+                    stmt.executeUpdate();
+                }
+                if (questionUpserts != null) {
+                    try (PreparedStatement stmt = conn.prepareStatement(upsertQuestions)) {
+                        stmt.setInt(1, surveyId);
+                        stmt.setString(2, questionUpserts);
+                        stmt.executeUpdate();
+                    }
+                }
+                return null;
+            }, "APPLY SURVEY RESTORE");
+        } catch (RuntimeException e) {
+            // executeInTransaction enveloppe l'exception : le refus reste un 409 et non une erreur base de données
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ConflictException conflict) {
+                    throw conflict;
+                }
+            }
+            throw e;
+        }
+        publishInvalidation("survey", surveyId);
+    }
+
+    public record ReplayEntry(boolean question, int entityId, String action, String snapshot, boolean checkpoint) {
+    }
+}
@@ -1,18 +1,31 @@
 package fr.github.vera.resources;
 
 import com.codahale.metrics.MetricRegistry;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.database.DatabaseManager;
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.database.SlowQueryMonitor;
+import fr.github.vera.filters.Deadline;
 import fr.github.vera.filters.Secured;
+import fr.github.vera.response.ListResponse;
+import fr.github.vera.services.IndexAdvisorService;
+import fr.github.vera.server.ApplicationLifecycle;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 
 import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Path("/admin")
 @Tag(name = "Admin")
@@ -23,21 +36,33 @@ public class AdminResource {
     @Path("/metric")
     @Secured(adminOnly = true)
     public Response getMetrics() {
-        MetricRegistry metrics = new MetricRegistry();
+        MetricRegistry metrics = MetricsRegistry.get();
         Map<String, Object> metricsData = new HashMap<>();
 
         metrics.getTimers().forEach((name, timer) -> {
             Map<String, Object> timerData = new HashMap<>();
-            timerData.put("count", 0);
-            timerData.put("meanRate", 0);
-            timerData.put("mean", 0);
+            timerData.put("count", timer.getCount());
+            timerData.put("meanRate", timer.getMeanRate());
+            timerData.put("mean", TimeUnit.NANOSECONDS.toMillis((long) timer.getSnapshot().getMean()));
+            timerData.put("max", TimeUnit.NANOSECONDS.toMillis(timer.getSnapshot().getMax()));
             metricsData.put(name, timerData);
         });
 
+        metrics.getMeters().forEach((name, meter) -> {
+            Map<String, Object> meterData = new HashMap<>();
+            meterData.put("count", meter.getCount());
+            meterData.put("meanRate", meter.getMeanRate());
+            metricsData.put(name, meterData);
+        });
+
         metrics.getCounters().forEach((name, counter) ->
                 metricsData.put(name, counter.getCount())
         );
 
+        metrics.getGauges().forEach((name, gauge) ->
+                metricsData.put(name, gauge.getValue())
+        );
+
         return Response.ok(metricsData).build();
     }
 
@@ -46,11 +71,64 @@ public class AdminResource {
     @Secured(adminOnly = true)
     @Operation(summary = "Vérifier l'état de santé de l'application")
     public Response healthCheck() {
+        ApplicationLifecycle lifecycle = ApplicationLifecycle.getInstance();
+        boolean ready = lifecycle.isReady();
+
         Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
+        health.put("status", ready ? "UP" : "NOT_READY");
+        health.put("draining", lifecycle.isDraining());
+        health.put("inFlight", lifecycle.getInFlight());
+        health.put("pools", DatabaseManager.getInstance().getPoolStatus());
+        health.put("replicas", DatabaseManager.getInstance().getReplicaStatus());
         health.put("timestamp", System.currentTimeMillis());
         health.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime());
 
-        return Response.ok(health).build();
+        Response.Status status = ready ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE;
+        return Response.status(status).entity(health).build();
+    }
+
+    @GET
+    @Path("/index-advisor")
+    @DatabasePool(PoolType.REPORTING)
+    @Deadline(300_000)
+    @Secured(adminOnly = true)
+    @Operation(summary = "Analyser les plans des requêtes exécutées et signaler les index manquants")
+    public Response indexAdvisor() {
+        return Response.ok(new ListResponse<>(new IndexAdvisorService().analyze())).build();
+    }
+
+    @GET
+    @Path("/slow-queries")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Requêtes lentes regroupées par empreinte, les plus lentes en premier")
+    public Response getSlowQueries() {
+        return Response.ok(new ListResponse<>(SlowQueryMonitor.getInstance().getWorstQueries())).build();
+    }
+
+    @GET
+    @Path("/slow-queries/recent")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Dernières exécutions lentes, les plus récentes en premier")
+    public Response getRecentSlowQueries() {
+        return Response.ok(new ListResponse<>(SlowQueryMonitor.getInstance().getRecentSamples())).build();
+    }
+
+    @GET
+    @Path("/slow-queries/{fingerprint}")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Détail d'une requête lente, avec son dernier plan EXPLAIN ANALYZE")
+    public Response getSlowQuery(@PathParam("fingerprint") String fingerprint) {
+        return SlowQueryMonitor.getInstance().getQuery(fingerprint)
+                .map(stats -> Response.ok(new fr.github.vera.response.Response<>(stats)).build())
+                .orElseThrow(() -> new WebApplicationException("Requête lente inconnue: " + fingerprint, Response.Status.NOT_FOUND));
+    }
+
+    @DELETE
+    @Path("/slow-queries")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Vider les requêtes lentes enregistrées")
+    public Response resetSlowQueries() {
+        SlowQueryMonitor.getInstance().reset();
+        return Response.noContent().build();
     }
 }
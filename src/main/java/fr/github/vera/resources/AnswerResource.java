@@ -1,29 +1,46 @@
 package fr.github.vera.resources;
 
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.exception.InvalidDataException;
+import fr.github.vera.filters.Deadline;
+import fr.github.vera.limit.RateLimitKey;
+import fr.github.vera.limit.RateLimited;
 import fr.github.vera.model.Answer;
+import fr.github.vera.model.AnswerDetail;
+import fr.github.vera.model.AnswerValueCount;
 import fr.github.vera.repository.IAnswerRepository;
 import fr.github.vera.response.ListResponse;
 import fr.github.vera.response.Response;
 import fr.github.vera.services.AnswerService;
 import fr.github.vera.services.BaseService;
+import fr.github.vera.services.LiveResultsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Path("/answers")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Answer", description = "Gestion des réponses")
+@RateLimited(name = "answers-submit", key = RateLimitKey.USER, capacity = 60, refillPerSecond = 1, httpMethods = "POST")
 public class AnswerResource extends BaseResource<Answer, Integer, IAnswerRepository> {
 
     private final AnswerService answerService = new AnswerService();
+    private final LiveResultsService liveResultsService = LiveResultsService.getInstance();
 
     @Override
     protected String getResourcePath() {
@@ -84,6 +101,20 @@ public class AnswerResource extends BaseResource<Answer, Integer, IAnswerReposit
         return jakarta.ws.rs.core.Response.ok(response).build();
     }
 
+    @GET
+    @Path("/survey/{surveyId}/detailed")
+    @Operation(summary = "Récupérer les réponses d'un survey avec le titre de leur question")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Survey answers with question titles retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ListResponse.class))
+    )
+    public jakarta.ws.rs.core.Response getAnswerDetailsBySurvey(@PathParam("surveyId") Integer surveyId) {
+        List<AnswerDetail> answers = answerService.getAnswerDetailsBySurvey(surveyId);
+        ListResponse<AnswerDetail> response = new ListResponse<>(answers);
+        return jakarta.ws.rs.core.Response.ok(response).build();
+    }
+
     @GET
     @Path("/question/{questionId}/anonymous")
     @Operation(summary = "Récupérer les réponses anonymes d'une question")
@@ -112,40 +143,101 @@ public class AnswerResource extends BaseResource<Answer, Integer, IAnswerReposit
         return jakarta.ws.rs.core.Response.ok(response).build();
     }
 
+    @GET
+    @Path("/question/{questionId}/value")
+    @DatabasePool(PoolType.REPORTING)
+    @Deadline(60_000)
+    @Operation(summary = "Rechercher les réponses d'une question par valeur",
+            description = "value est une valeur JSON (\"Oui\", 3, true...) ; un texte brut est traité comme une chaîne. "
+                    + "Les réponses à choix multiples contenant la valeur sont incluses")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Answers retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ListResponse.class))
+    )
+    public jakarta.ws.rs.core.Response getAnswersByValue(
+            @PathParam("questionId") Integer questionId,
+            @QueryParam("value") String value) {
+        if (value == null) {
+            throw new InvalidDataException("Parameter 'value' is required");
+        }
+        List<Answer> answers = answerService.getAnswersByValue(questionId, value);
+        ListResponse<Answer> response = new ListResponse<>(answers);
+        return jakarta.ws.rs.core.Response.ok(response).build();
+    }
+
+    @GET
+    @Path("/question/{questionId}/distribution")
+    @DatabasePool(PoolType.REPORTING)
+    @Deadline(60_000)
+    @Operation(summary = "Répartition des valeurs de réponse d'une question")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Answer value distribution retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ListResponse.class))
+    )
+    public jakarta.ws.rs.core.Response getValueDistribution(@PathParam("questionId") Integer questionId) {
+        List<AnswerValueCount> distribution = answerService.getValueDistribution(questionId);
+        ListResponse<AnswerValueCount> response = new ListResponse<>(distribution);
+        return jakarta.ws.rs.core.Response.ok(response).build();
+    }
+
     @GET
     @Path("/question/{questionId}/stats")
+    @DatabasePool(PoolType.REPORTING)
+    @Deadline(60_000)
     @Operation(summary = "Obtenir les statistiques des réponses d'une question")
     @ApiResponse(
             responseCode = "200",
             description = "Answer statistics retrieved successfully",
             content = @Content(schema = @Schema(implementation = Response.class))
     )
-    public jakarta.ws.rs.core.Response getQuestionStats(@PathParam("questionId") Integer questionId) {
-        int totalAnswers = answerService.countAnswersByQuestion(questionId);
-        int correctAnswers = answerService.countCorrectAnswersByQuestion(questionId);
-        int anonymousAnswers = answerService.countAnonymousAnswersByQuestion(questionId);
-        Double averageScore = answerService.getQuestionAverageScore(questionId);
-
-        QuestionStats stats = new QuestionStats(totalAnswers, correctAnswers, anonymousAnswers, averageScore);
-        Response<QuestionStats> response = new Response<>(stats);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+    public void getQuestionStats(@PathParam("questionId") Integer questionId,
+                                 @Suspended AsyncResponse asyncResponse) {
+        // Requêtes indépendantes lancées en parallèle, le thread du serveur est libéré pendant l'attente
+        CompletableFuture<Integer> totalAnswers = answerService.countAnswersByQuestionAsync(questionId);
+        CompletableFuture<Integer> correctAnswers = answerService.countCorrectAnswersByQuestionAsync(questionId);
+        CompletableFuture<Integer> anonymousAnswers = answerService.countAnonymousAnswersByQuestionAsync(questionId);
+        CompletableFuture<Double> averageScore = answerService.getQuestionAverageScoreAsync(questionId);
+
+        resume(asyncResponse, CompletableFuture.allOf(totalAnswers, correctAnswers, anonymousAnswers, averageScore)
+                .thenApply(ignored -> new QuestionStats(totalAnswers.join(), correctAnswers.join(),
+                        anonymousAnswers.join(), averageScore.join())));
     }
 
     @GET
     @Path("/survey/{surveyId}/stats")
+    @DatabasePool(PoolType.REPORTING)
+    @Deadline(60_000)
     @Operation(summary = "Obtenir les statistiques des réponses d'un survey")
     @ApiResponse(
             responseCode = "200",
             description = "Survey answer statistics retrieved successfully",
             content = @Content(schema = @Schema(implementation = Response.class))
     )
-    public jakarta.ws.rs.core.Response getSurveyStats(@PathParam("surveyId") Integer surveyId) {
-        int totalAnswers = answerService.countAnswersBySurvey(surveyId);
-        Double averageScore = answerService.getSurveyAverageScore(surveyId);
+    public void getSurveyStats(@PathParam("surveyId") Integer surveyId,
+                               @Suspended AsyncResponse asyncResponse) {
+        CompletableFuture<Integer> totalAnswers = answerService.countAnswersBySurveyAsync(surveyId);
+        CompletableFuture<Double> averageScore = answerService.getSurveyAverageScoreAsync(surveyId);
 
-        SurveyStats stats = new SurveyStats(totalAnswers, averageScore);
-        Response<SurveyStats> response = new Response<>(stats);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        resume(asyncResponse, totalAnswers.thenCombine(averageScore, SurveyStats::new));
+    }
+
+    @GET
+    @Path("/survey/{surveyId}/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @DatabasePool(PoolType.REPORTING)
+    @Operation(
+            summary = "Suivre en direct les résultats d'un survey (Server-Sent Events)",
+            description = "Un événement snapshot (totaux par question), puis un événement delta par intervalle "
+                    + "avec les réponses ajoutées sur toutes les instances ; un nouveau snapshot remplace les totaux "
+                    + "si des deltas ont pu être perdus ; un client trop lent est déconnecté"
+    )
+    @ApiResponse(responseCode = "200", description = "Results stream opened")
+    public void streamSurveyResults(@PathParam("surveyId") Integer surveyId,
+                                    @Context SseEventSink sink,
+                                    @Context Sse sse) {
+        liveResultsService.subscribe(surveyId, sink, sse);
     }
 
     @PATCH
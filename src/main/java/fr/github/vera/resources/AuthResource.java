@@ -3,6 +3,8 @@ package fr.github.vera.resources;
 import fr.github.vera.Main;
 import fr.github.vera.filters.Public;
 import fr.github.vera.filters.Secured;
+import fr.github.vera.limit.RateLimitKey;
+import fr.github.vera.limit.RateLimited;
 import fr.github.vera.model.authentification.*;
 import fr.github.vera.response.Response;
 import fr.github.vera.security.JwtService;
@@ -27,6 +29,7 @@ public class AuthResource {
     @POST
     @Public
     @Path("/login")
+    @RateLimited(name = "auth-login", key = RateLimitKey.IP, capacity = 10, refillPerSecond = 10.0 / 60)
     @Operation(summary = "Connexion utilisateur")
     public jakarta.ws.rs.core.Response login(LoginRequest request) {
         return handleAuthResponse(authService.authenticate(request, requestContext));
@@ -35,6 +38,7 @@ public class AuthResource {
     @POST
     @Public
     @Path("/register")
+    @RateLimited(name = "auth-register", key = RateLimitKey.IP, capacity = 5, refillPerSecond = 5.0 / 3600)
     @Operation(summary = "Inscription utilisateur")
     public jakarta.ws.rs.core.Response register(RegisterRequest request) {
         return handleAuthResponse(authService.register(request, requestContext), jakarta.ws.rs.core.Response.Status.CREATED);
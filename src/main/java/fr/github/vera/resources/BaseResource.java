@@ -1,5 +1,7 @@
 package fr.github.vera.resources;
 
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.database.Projection;
 import fr.github.vera.exception.NotFoundException;
 import fr.github.vera.filters.Secured;
 import fr.github.vera.model.Identifiable;
@@ -16,9 +18,12 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.SecurityContext;
 import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.container.AsyncResponse;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public abstract class BaseResource<T extends Identifiable<I>, I, R extends IRepository<T, I>> {
 
@@ -48,6 +53,31 @@ public abstract class BaseResource<T extends Identifiable<I>, I, R extends IRepo
         return authorizationHeader.substring(7); // Retire "Bearer "
     }
 
+    // Liste réduite aux propriétés demandées par ?fields= (projection null : entités complètes)
+    protected jakarta.ws.rs.core.Response listResponse(List<T> items, Projection<T> projection) {
+        if (projection == null) {
+            return jakarta.ws.rs.core.Response.ok(new ListResponse<>(items)).build();
+        }
+        return jakarta.ws.rs.core.Response.ok(new ListResponse<>(projection.toJson(items))).build();
+    }
+
+    // Reprend une requête suspendue (@Suspended) avec le résultat d'un traitement asynchrone ;
+    // les erreurs passent par les ExceptionMapper comme pour une méthode synchrone
+    protected static <V> void resume(AsyncResponse asyncResponse, CompletableFuture<V> result) {
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                asyncResponse.resume(jakarta.ws.rs.core.Response.ok(new Response<>(value)).build());
+            } else {
+                asyncResponse.resume(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            }
+        });
+        // Le contexte a été capturé par les requêtes lancées ; la réponse sera écrite (et le contexte fermé)
+        // sur le thread qui reprend la requête, pas sur celui-ci
+        DatabaseContext.end();
+    }
+
     @GET
     @Secured(adminOnly = true)
     @Operation(summary = "Récupérer toutes les ressources", description = "Retourne la liste de toutes les ressources")
@@ -55,11 +85,12 @@ public abstract class BaseResource<T extends Identifiable<I>, I, R extends IRepo
     public jakarta.ws.rs.core.Response getAll(
             @QueryParam("limit") @DefaultValue("100") int limit,
             @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("fields") String fields,
             @Context SecurityContext securityContext) {
 
-        List<T> items = getService().getAll(limit, offset);
-        ListResponse<T> response = new ListResponse<>(items);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        Projection<T> projection = getService().projection(fields);
+        List<T> items = getService().getAll(limit, offset, projection);
+        return listResponse(items, projection);
     }
 
     @GET
@@ -0,0 +1,46 @@
+package fr.github.vera.resources;
+
+import fr.github.vera.filters.Public;
+import fr.github.vera.services.HealthService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Map;
+
+@Path("/health")
+@Public
+@Tag(name = "Health")
+@Produces(MediaType.APPLICATION_JSON)
+public class HealthResource {
+    private final HealthService healthService = HealthService.getInstance();
+
+    @GET
+    @Path("/live")
+    @Operation(summary = "Sonde de vivacité du processus")
+    public Response live() {
+        return build(healthService.liveness(), true);
+    }
+
+    @GET
+    @Path("/ready")
+    @Operation(summary = "Sonde de disponibilité (base de données, pool, scheduler)")
+    public Response ready() {
+        Map<String, Object> health = healthService.readiness();
+        return build(health, healthService.isUp(health));
+    }
+
+    private Response build(Map<String, Object> health, boolean up) {
+        CacheControl noStore = new CacheControl();
+        noStore.setNoStore(true);
+        return Response.status(up ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+                .entity(health)
+                .cacheControl(noStore)
+                .build();
+    }
+}
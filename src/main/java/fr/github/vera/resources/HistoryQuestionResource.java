@@ -1,6 +1,10 @@
 package fr.github.vera.resources;
 
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.filters.Deadline;
 import fr.github.vera.model.HistoryQuestion;
+import fr.github.vera.model.HistoryVersion;
 import fr.github.vera.repository.IHistoryQuestionRepository;
 import fr.github.vera.response.ListResponse;
 import fr.github.vera.response.Response;
@@ -14,13 +18,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Path("/history/questions")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "History Question", description = "Historique des modifications des questions")
+@DatabasePool(PoolType.REPORTING)
+@Deadline(60_000)
 public class HistoryQuestionResource extends BaseResource<HistoryQuestion, Integer, IHistoryQuestionRepository> {
 
     private final HistoryQuestionService historyQuestionService = new HistoryQuestionService();
@@ -132,6 +141,38 @@ public class HistoryQuestionResource extends BaseResource<HistoryQuestion, Integ
         return jakarta.ws.rs.core.Response.ok(response).build();
     }
 
+    @GET
+    @Path("/question/{questionId}/versions/latest")
+    @Operation(summary = "Reconstruire la dernière version d'une question")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Latest question version rebuilt successfully",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response getLatestQuestionVersion(@PathParam("questionId") Integer questionId) {
+        HistoryVersion version = historyQuestionService.rebuildLatestQuestionVersion(questionId)
+                .orElseThrow(() -> new WebApplicationException("Aucun historique pour la question " + questionId,
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+        return jakarta.ws.rs.core.Response.ok(new Response<>(version)).build();
+    }
+
+    @GET
+    @Path("/question/{questionId}/versions/{version}")
+    @Operation(summary = "Reconstruire une version d'une question depuis le checkpoint le plus proche")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Question version rebuilt successfully",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response getQuestionVersion(
+            @PathParam("questionId") Integer questionId,
+            @PathParam("version") int version) {
+        HistoryVersion rebuilt = historyQuestionService.rebuildQuestionVersion(questionId, version)
+                .orElseThrow(() -> new WebApplicationException("Version " + version + " introuvable",
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+        return jakarta.ws.rs.core.Response.ok(new Response<>(rebuilt)).build();
+    }
+
     @GET
     @Path("/question/{questionId}/stats")
     @Operation(summary = "Obtenir les statistiques de l'historique d'une question")
@@ -140,14 +181,15 @@ public class HistoryQuestionResource extends BaseResource<HistoryQuestion, Integ
             description = "Question history statistics retrieved successfully",
             content = @Content(schema = @Schema(implementation = Response.class))
     )
-    public jakarta.ws.rs.core.Response getQuestionHistoryStats(@PathParam("questionId") Integer questionId) {
-        int totalActions = historyQuestionService.countHistoryByQuestion(questionId);
-        int createActions = historyQuestionService.countHistoryByAction("CREATE");
-        int updateActions = historyQuestionService.countHistoryByAction("UPDATE");
+    public void getQuestionHistoryStats(@PathParam("questionId") Integer questionId,
+                                        @Suspended AsyncResponse asyncResponse) {
+        CompletableFuture<Integer> totalActions = historyQuestionService.countHistoryByQuestionAsync(questionId);
+        CompletableFuture<Integer> createActions = historyQuestionService.countHistoryByActionAsync("CREATE");
+        CompletableFuture<Integer> updateActions = historyQuestionService.countHistoryByActionAsync("UPDATE");
 
-        QuestionHistoryStats stats = new QuestionHistoryStats(totalActions, createActions, updateActions);
-        Response<QuestionHistoryStats> response = new Response<>(stats);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        resume(asyncResponse, CompletableFuture.allOf(totalActions, createActions, updateActions)
+                .thenApply(ignored -> new QuestionHistoryStats(totalActions.join(), createActions.join(),
+                        updateActions.join())));
     }
 
     @DELETE
@@ -1,6 +1,12 @@
 package fr.github.vera.resources;
 
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.Projection;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.filters.Deadline;
 import fr.github.vera.model.History;
+import fr.github.vera.model.HistoryDetail;
+import fr.github.vera.model.HistoryVersion;
 import fr.github.vera.repository.IHistoryRepository;
 import fr.github.vera.response.ListResponse;
 import fr.github.vera.response.Response;
@@ -14,13 +20,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Path("/history")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "History", description = "Historique des modifications des surveys")
+@DatabasePool(PoolType.REPORTING)
+@Deadline(60_000)
 public class HistoryResource extends BaseResource<History, Integer, IHistoryRepository> {
 
     private final HistoryService historyService = new HistoryService();
@@ -50,9 +61,24 @@ public class HistoryResource extends BaseResource<History, Integer, IHistoryRepo
             description = "Survey history retrieved successfully",
             content = @Content(schema = @Schema(implementation = ListResponse.class))
     )
-    public jakarta.ws.rs.core.Response getHistoryBySurvey(@PathParam("surveyId") Integer surveyId) {
-        List<History> history = historyService.getHistoryBySurvey(surveyId);
-        ListResponse<History> response = new ListResponse<>(history);
+    public jakarta.ws.rs.core.Response getHistoryBySurvey(@PathParam("surveyId") Integer surveyId,
+                                                         @QueryParam("fields") String fields) {
+        Projection<History> projection = historyService.projection(fields);
+        List<History> history = historyService.getHistoryBySurvey(surveyId, projection);
+        return listResponse(history, projection);
+    }
+
+    @GET
+    @Path("/survey/{surveyId}/detailed")
+    @Operation(summary = "Récupérer l'historique d'un survey avec le nom des auteurs")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Survey history with user names retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ListResponse.class))
+    )
+    public jakarta.ws.rs.core.Response getHistoryDetailsBySurvey(@PathParam("surveyId") Integer surveyId) {
+        List<HistoryDetail> history = historyService.getHistoryDetailsBySurvey(surveyId);
+        ListResponse<HistoryDetail> response = new ListResponse<>(history);
         return jakarta.ws.rs.core.Response.ok(response).build();
     }
 
@@ -64,10 +90,11 @@ public class HistoryResource extends BaseResource<History, Integer, IHistoryRepo
             description = "User history retrieved successfully",
             content = @Content(schema = @Schema(implementation = ListResponse.class))
     )
-    public jakarta.ws.rs.core.Response getHistoryByUser(@PathParam("userId") Integer userId) {
-        List<History> history = historyService.getHistoryByUser(userId);
-        ListResponse<History> response = new ListResponse<>(history);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+    public jakarta.ws.rs.core.Response getHistoryByUser(@PathParam("userId") Integer userId,
+                                                       @QueryParam("fields") String fields) {
+        Projection<History> projection = historyService.projection(fields);
+        List<History> history = historyService.getHistoryByUser(userId, projection);
+        return listResponse(history, projection);
     }
 
     @GET
@@ -150,6 +177,38 @@ public class HistoryResource extends BaseResource<History, Integer, IHistoryRepo
         return jakarta.ws.rs.core.Response.ok(response).build();
     }
 
+    @GET
+    @Path("/survey/{surveyId}/versions/latest")
+    @Operation(summary = "Reconstruire la dernière version d'un survey")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Latest survey version rebuilt successfully",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response getLatestSurveyVersion(@PathParam("surveyId") Integer surveyId) {
+        HistoryVersion version = historyService.rebuildLatestSurveyVersion(surveyId)
+                .orElseThrow(() -> new WebApplicationException("Aucun historique pour le survey " + surveyId,
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+        return jakarta.ws.rs.core.Response.ok(new Response<>(version)).build();
+    }
+
+    @GET
+    @Path("/survey/{surveyId}/versions/{version}")
+    @Operation(summary = "Reconstruire une version d'un survey depuis le checkpoint le plus proche")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Survey version rebuilt successfully",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response getSurveyVersion(
+            @PathParam("surveyId") Integer surveyId,
+            @PathParam("version") int version) {
+        HistoryVersion rebuilt = historyService.rebuildSurveyVersion(surveyId, version)
+                .orElseThrow(() -> new WebApplicationException("Version " + version + " introuvable",
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+        return jakarta.ws.rs.core.Response.ok(new Response<>(rebuilt)).build();
+    }
+
     @GET
     @Path("/survey/{surveyId}/stats")
     @Operation(summary = "Obtenir les statistiques de l'historique d'un survey")
@@ -158,16 +217,17 @@ public class HistoryResource extends BaseResource<History, Integer, IHistoryRepo
             description = "Survey history statistics retrieved successfully",
             content = @Content(schema = @Schema(implementation = Response.class))
     )
-    public jakarta.ws.rs.core.Response getSurveyHistoryStats(@PathParam("surveyId") Integer surveyId) {
-        int totalActions = historyService.countHistoryBySurvey(surveyId);
-        int createActions = historyService.countHistoryByAction("CREATE");
-        int updateActions = historyService.countHistoryByAction("UPDATE");
-        int activateActions = historyService.countHistoryByAction("ACTIVATE");
-        int deactivateActions = historyService.countHistoryByAction("DEACTIVATE");
-
-        SurveyHistoryStats stats = new SurveyHistoryStats(totalActions, createActions, updateActions, activateActions, deactivateActions);
-        Response<SurveyHistoryStats> response = new Response<>(stats);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+    public void getSurveyHistoryStats(@PathParam("surveyId") Integer surveyId,
+                                      @Suspended AsyncResponse asyncResponse) {
+        CompletableFuture<Integer> totalActions = historyService.countHistoryBySurveyAsync(surveyId);
+        CompletableFuture<Integer> createActions = historyService.countHistoryByActionAsync("CREATE");
+        CompletableFuture<Integer> updateActions = historyService.countHistoryByActionAsync("UPDATE");
+        CompletableFuture<Integer> activateActions = historyService.countHistoryByActionAsync("ACTIVATE");
+        CompletableFuture<Integer> deactivateActions = historyService.countHistoryByActionAsync("DEACTIVATE");
+
+        resume(asyncResponse, CompletableFuture.allOf(totalActions, createActions, updateActions, activateActions, deactivateActions)
+                .thenApply(ignored -> new SurveyHistoryStats(totalActions.join(), createActions.join(),
+                        updateActions.join(), activateActions.join(), deactivateActions.join())));
     }
 
     @GET
@@ -0,0 +1,123 @@
+package fr.github.vera.resources;
+
+import fr.github.vera.database.DatabasePool;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.filters.Secured;
+import fr.github.vera.imports.ImportError;
+import fr.github.vera.imports.ImportFormat;
+import fr.github.vera.imports.ImportJob;
+import fr.github.vera.model.Question;
+import fr.github.vera.response.ListResponse;
+import fr.github.vera.response.Response;
+import fr.github.vera.services.AnswerImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.SecurityContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@Path("/admin/import")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "Import", description = "Import massif de réponses (CSV / NDJSON)")
+public class ImportResource {
+
+    private final AnswerImportService importService = AnswerImportService.getInstance();
+
+    @POST
+    @Path("/survey/{surveyId}/answers")
+    @Secured(adminOnly = true)
+    // Durée dominée par la réception du fichier : hors du signal de latence du limiteur de concurrence
+    @DatabasePool(PoolType.BACKGROUND)
+    @Consumes({"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Importer des réponses",
+            description = "CSV avec en-tête question_id, respondent_id, answer, [is_anonymous], [submitted_at] " +
+                    "ou NDJSON. L'import est asynchrone : suivre la progression via /admin/import/jobs/{id}")
+    @ApiResponse(responseCode = "202", description = "Import accepted",
+            content = @Content(schema = @Schema(implementation = Response.class)))
+    @ApiResponse(responseCode = "413", description = "File too large")
+    @ApiResponse(responseCode = "503", description = "Import queue full")
+    public jakarta.ws.rs.core.Response importAnswers(
+            @PathParam("surveyId") Integer surveyId,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            @Context SecurityContext securityContext) {
+
+        if (!importService.isAcceptingJobs()) {
+            throw new ServiceUnavailableException("File d'attente des imports pleine, réessayez plus tard", 30L);
+        }
+
+        Map<Integer, Question> questions = importService.findSurveyQuestions(surveyId);
+        if (questions.isEmpty()) {
+            throw new WebApplicationException("Survey " + surveyId + " introuvable ou sans question",
+                    jakarta.ws.rs.core.Response.Status.NOT_FOUND);
+        }
+
+        ImportJob job;
+        try {
+            job = importService.submit(surveyId, questions, ImportFormat.fromMediaType(contentType), body,
+                    securityContext.getUserPrincipal().getName());
+        } catch (AnswerImportService.ImportTooLargeException e) {
+            throw new WebApplicationException(e.getMessage(), jakarta.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("File d'attente des imports pleine, réessayez plus tard", 30L);
+        } catch (IOException e) {
+            throw new BadRequestException("Lecture du fichier impossible: " + e.getMessage());
+        }
+
+        return jakarta.ws.rs.core.Response.accepted(new Response<>(job))
+                .location(URI.create("/admin/import/jobs/" + job.getId()))
+                .build();
+    }
+
+    @GET
+    @Path("/jobs")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Lister les imports récents")
+    @ApiResponse(responseCode = "200", description = "Import jobs retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ListResponse.class)))
+    public jakarta.ws.rs.core.Response getJobs() {
+        return jakarta.ws.rs.core.Response.ok(new ListResponse<>(importService.getJobs())).build();
+    }
+
+    @GET
+    @Path("/jobs/{jobId}")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Suivre la progression d'un import")
+    @ApiResponse(responseCode = "200", description = "Import job retrieved successfully",
+            content = @Content(schema = @Schema(implementation = Response.class)))
+    @ApiResponse(responseCode = "404", description = "Import job not found")
+    public jakarta.ws.rs.core.Response getJob(@PathParam("jobId") String jobId) {
+        return jakarta.ws.rs.core.Response.ok(new Response<>(findJob(jobId))).build();
+    }
+
+    @GET
+    @Path("/jobs/{jobId}/errors")
+    @Secured(adminOnly = true)
+    @Operation(summary = "Rapport des lignes rejetées d'un import",
+            description = "Limité aux " + ImportJob.MAX_REPORTED_ERRORS + " premières erreurs")
+    @ApiResponse(responseCode = "200", description = "Error report retrieved successfully",
+            content = @Content(schema = @Schema(implementation = ListResponse.class)))
+    @ApiResponse(responseCode = "404", description = "Import job not found")
+    public jakarta.ws.rs.core.Response getErrors(@PathParam("jobId") String jobId) {
+        List<ImportError> errors = findJob(jobId).errorReport();
+        return jakarta.ws.rs.core.Response.ok(new ListResponse<>(errors)).build();
+    }
+
+    private ImportJob findJob(String jobId) {
+        return importService.getJob(jobId)
+                .orElseThrow(() -> new WebApplicationException("Import " + jobId + " introuvable",
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+    }
+}
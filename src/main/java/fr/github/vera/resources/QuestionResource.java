@@ -14,8 +14,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Path("/questions")
 @Produces(MediaType.APPLICATION_JSON)
@@ -195,13 +198,12 @@ public class QuestionResource extends BaseResource<Question, Integer, IQuestionR
             description = "Question statistics retrieved successfully",
             content = @Content(schema = @Schema(implementation = Response.class))
     )
-    public jakarta.ws.rs.core.Response getQuestionStats(@PathParam("surveyId") Integer surveyId) {
-        int totalQuestions = questionService.countQuestionsBySurvey(surveyId);
-        int mandatoryQuestions = questionService.countMandatoryQuestionsBySurvey(surveyId);
+    public void getQuestionStats(@PathParam("surveyId") Integer surveyId,
+                                 @Suspended AsyncResponse asyncResponse) {
+        CompletableFuture<Integer> totalQuestions = questionService.countQuestionsBySurveyAsync(surveyId);
+        CompletableFuture<Integer> mandatoryQuestions = questionService.countMandatoryQuestionsBySurveyAsync(surveyId);
 
-        QuestionStats stats = new QuestionStats(totalQuestions, mandatoryQuestions);
-        Response<QuestionStats> response = new Response<>(stats);
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        resume(asyncResponse, totalQuestions.thenCombine(mandatoryQuestions, QuestionStats::new));
     }
 
     // Méthodes de validation d'accès (à implémenter selon votre logique)
@@ -1,11 +1,18 @@
 package fr.github.vera.resources;
 
+import fr.github.vera.cache.SurveyAggregateCache.CachedSurvey;
+import fr.github.vera.database.Projection;
+import fr.github.vera.exception.InvalidDataException;
 import fr.github.vera.filters.Secured;
+import fr.github.vera.limit.RateLimitKey;
+import fr.github.vera.limit.RateLimited;
 import fr.github.vera.model.Survey;
+import fr.github.vera.model.SurveyRestoreResult;
 import fr.github.vera.repository.ISurveyRepository;
 import fr.github.vera.response.ListResponse;
 import fr.github.vera.response.Response;
 import fr.github.vera.services.BaseService;
+import fr.github.vera.services.SurveyRestoreService;
 import fr.github.vera.services.SurveyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,12 +20,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.SecurityContext;
 import jakarta.ws.rs.core.UriInfo;
 
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Path("/survey")
@@ -28,6 +40,7 @@ import java.util.List;
 public class SurveyResource extends BaseResource<Survey, Integer, ISurveyRepository> {
 
     private final SurveyService surveyService = new SurveyService();
+    private final SurveyRestoreService restoreService = new SurveyRestoreService();
 
     @Override
     protected String getResourcePath() {
@@ -65,15 +78,15 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
             @PathParam("userId") Integer userId,
             @QueryParam("limit") @DefaultValue("100") int limit,
             @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("fields") String fields,
             @Context SecurityContext securityContext) {
 
         // Validation d'accès
         validateUserAccess(userId, securityContext);
 
-        List<Survey> surveys = surveyService.getSurveysByUser(userId, limit, offset);
-        ListResponse<Survey> response = new ListResponse<>(surveys);
-
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        Projection<Survey> projection = surveyService.projection(fields);
+        List<Survey> surveys = surveyService.getSurveysByUser(userId, limit, offset, projection);
+        return listResponse(surveys, projection);
     }
 
     @GET
@@ -98,13 +111,13 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
             @PathParam("status") boolean isActive,
             @QueryParam("limit") @DefaultValue("100") int limit,
             @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("fields") String fields,
             @Context SecurityContext securityContext) {
 
         validateUserAccess(userId, securityContext);
-        List<Survey> surveys = ((SurveyService) getService()).getSurveysByUserAndStatus(userId, isActive, limit, offset);
-        ListResponse<Survey> response = new ListResponse<>(surveys);
-
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        Projection<Survey> projection = surveyService.projection(fields);
+        List<Survey> surveys = ((SurveyService) getService()).getSurveysByUserAndStatus(userId, isActive, limit, offset, projection);
+        return listResponse(surveys, projection);
     }
 
     @GET
@@ -120,12 +133,12 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
     )
     public jakarta.ws.rs.core.Response getPublicSurveys(
             @QueryParam("limit") @DefaultValue("100") int limit,
-            @QueryParam("offset") @DefaultValue("0") int offset) {
-
-        List<Survey> surveys = surveyService.getPublicSurveys(limit, offset);
-        ListResponse<Survey> response = new ListResponse<>(surveys);
+            @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("fields") String fields) {
 
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        Projection<Survey> projection = surveyService.projection(fields);
+        List<Survey> surveys = surveyService.getPublicSurveys(limit, offset, projection);
+        return listResponse(surveys, projection);
     }
 
     @GET
@@ -141,12 +154,12 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
     )
     public jakarta.ws.rs.core.Response getActiveSurveys(
             @QueryParam("limit") @DefaultValue("100") int limit,
-            @QueryParam("offset") @DefaultValue("0") int offset) {
-
-        List<Survey> surveys = surveyService.getActiveSurveys(limit, offset);
-        ListResponse<Survey> response = new ListResponse<>(surveys);
+            @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("fields") String fields) {
 
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        Projection<Survey> projection = surveyService.projection(fields);
+        List<Survey> surveys = surveyService.getActiveSurveys(limit, offset, projection);
+        return listResponse(surveys, projection);
     }
 
     @GET
@@ -162,12 +175,12 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
     )
     public jakarta.ws.rs.core.Response getQuizSurveys(
             @QueryParam("limit") @DefaultValue("100") int limit,
-            @QueryParam("offset") @DefaultValue("0") int offset) {
-
-        List<Survey> surveys = surveyService.getQuizSurveys(limit, offset);
-        ListResponse<Survey> response = new ListResponse<>(surveys);
+            @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("fields") String fields) {
 
-        return jakarta.ws.rs.core.Response.ok(response).build();
+        Projection<Survey> projection = surveyService.projection(fields);
+        List<Survey> surveys = surveyService.getQuizSurveys(limit, offset, projection);
+        return listResponse(surveys, projection);
     }
 
     @GET
@@ -376,8 +389,92 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
                 .build();
     }
 
+    @POST
+    @Path("/{id}/history/{historyId}/restore")
+    @Secured()
+    @Operation(
+            summary = "Restaurer un survey à une entrée d'historique",
+            description = "Reconstruit le survey et ses questions tels qu'après cette entrée ; dryRun=true retourne le diff sans l'appliquer. " +
+                    "Supprimer une question supprime ses réponses : deleteAnswers=true est alors requis"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Survey restored (or restore diff computed)",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Survey or history entry not found",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Restore would delete answers and deleteAnswers is not set",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response restoreToHistoryEntry(
+            @PathParam("id") Integer id,
+            @PathParam("historyId") Integer historyId,
+            @QueryParam("dryRun") @DefaultValue("false") boolean dryRun,
+            @QueryParam("deleteAnswers") @DefaultValue("false") boolean deleteAnswers,
+            @Context SecurityContext securityContext) {
+
+        validateSurveyAccess(id, securityContext);
+        SurveyRestoreResult result = restoreService.restoreToHistoryEntry(id, historyId, dryRun, deleteAnswers)
+                .orElseThrow(() -> new WebApplicationException("History entry " + historyId + " not found for survey " + id,
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+        return jakarta.ws.rs.core.Response.ok(new Response<>(result)).build();
+    }
+
+    @POST
+    @Path("/{id}/restore")
+    @Secured()
+    @Operation(
+            summary = "Restaurer un survey à une date",
+            description = "Reconstruit le survey et ses questions à la date donnée (ISO-8601, ex. 2025-03-01T12:00:00). " +
+                    "Supprimer une question supprime ses réponses : deleteAnswers=true est alors requis"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Survey restored (or restore diff computed)",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Survey not found or no history at this date",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Restore would delete answers and deleteAnswers is not set",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response restoreAt(
+            @PathParam("id") Integer id,
+            @QueryParam("at") String at,
+            @QueryParam("dryRun") @DefaultValue("false") boolean dryRun,
+            @QueryParam("deleteAnswers") @DefaultValue("false") boolean deleteAnswers,
+            @Context SecurityContext securityContext) {
+
+        validateSurveyAccess(id, securityContext);
+        if (at == null || at.isBlank()) {
+            throw new InvalidDataException("Parameter 'at' is required");
+        }
+        LocalDateTime timestamp;
+        try {
+            timestamp = LocalDateTime.parse(at.trim());
+        } catch (DateTimeParseException e) {
+            throw new InvalidDataException("Parameter 'at' must be an ISO-8601 date-time");
+        }
+        SurveyRestoreResult result = restoreService.restoreAt(id, timestamp, dryRun, deleteAnswers)
+                .orElseThrow(() -> new WebApplicationException("No history for survey " + id + " at " + at,
+                        jakarta.ws.rs.core.Response.Status.NOT_FOUND));
+        return jakarta.ws.rs.core.Response.ok(new Response<>(result)).build();
+    }
+
     @GET
     @Path("/token/{token}")
+    @RateLimited(name = "survey-token", key = RateLimitKey.TOKEN, capacity = 100, refillPerSecond = 20)
     @Operation(
             summary = "Récupérer un survey par token de partage",
             description = "Retourne un survey via son token de partage"
@@ -400,6 +497,44 @@ public class SurveyResource extends BaseResource<Survey, Integer, ISurveyReposit
         return jakarta.ws.rs.core.Response.ok(response).build();
     }
 
+    @GET
+    @Path("/token/{token}/full")
+    @RateLimited(name = "survey-token", key = RateLimitKey.TOKEN, capacity = 100, refillPerSecond = 20)
+    @Operation(
+            summary = "Récupérer un survey et ses questions ordonnées par token de partage",
+            description = "Agrégat affiché au répondant (sans bonnes réponses pour un quiz), servi depuis le cache ; "
+                    + "If-None-Match permet une revalidation sans corps (304)"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Survey aggregate retrieved successfully",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    @ApiResponse(responseCode = "304", description = "Survey aggregate not modified")
+    @ApiResponse(
+            responseCode = "404",
+            description = "Survey not found",
+            content = @Content(schema = @Schema(implementation = Response.class))
+    )
+    public jakarta.ws.rs.core.Response getSurveyAggregateByToken(@PathParam("token") String token,
+                                                                @Context Request request) {
+        CachedSurvey cached = surveyService.getSurveyAggregateByToken(token)
+                .orElseThrow(() -> new NotFoundException("Survey not found with token: " + token));
+
+        EntityTag etag = new EntityTag(cached.etag());
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        jakarta.ws.rs.core.Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl).build();
+        }
+        // JSON déjà sérialisé : écrit tel quel, sans passer par Jackson
+        return jakarta.ws.rs.core.Response.ok(cached.json(), MediaType.APPLICATION_JSON_TYPE)
+                .tag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
     @POST
     @Path("/{id}/generate-token")
     @Secured()
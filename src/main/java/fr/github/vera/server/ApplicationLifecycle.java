@@ -0,0 +1,116 @@
+package fr.github.vera.server;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import fr.github.vera.config.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// État de l'application (prête / en drain) et suivi des requêtes en cours
+public final class ApplicationLifecycle {
+    private static final Logger logger = LogManager.getLogger(ApplicationLifecycle.class);
+    private static final ApplicationLifecycle INSTANCE = new ApplicationLifecycle();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object drainLock = new Object();
+    private final Meter rejectedRequests;
+    private final Timer drainTimer;
+    private volatile boolean ready = false;
+    private volatile boolean draining = false;
+
+    private ApplicationLifecycle() {
+        MetricRegistry registry = MetricsRegistry.get();
+        registry.gauge("http.requests.inflight", () -> inFlight::get);
+        registry.gauge("lifecycle.ready", () -> this::isReady);
+        this.rejectedRequests = registry.meter("http.requests.rejected.draining");
+        this.drainTimer = registry.timer("lifecycle.drain");
+    }
+
+    public static ApplicationLifecycle getInstance() {
+        return INSTANCE;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready && !draining;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Retourne false si l'application est en drain : la requête doit être rejetée
+    public boolean tryEnter() {
+        inFlight.incrementAndGet();
+        if (draining) {
+            exit();
+            rejectedRequests.mark();
+            return false;
+        }
+        return true;
+    }
+
+    public void exit() {
+        if (inFlight.decrementAndGet() <= 0 && draining) {
+            synchronized (drainLock) {
+                drainLock.notifyAll();
+            }
+        }
+    }
+
+    // Passe en NOT_READY, puis rejette les nouvelles requêtes et attend la fin de celles en cours
+    // (au plus gracePeriodMillis)
+    public boolean drain(long readinessDelayMillis, long gracePeriodMillis) {
+        ready = false;
+        logger.info("Drain démarré - {} requête(s) en cours", inFlight.get());
+
+        long start = System.nanoTime();
+        try {
+            // Laisse le temps au load balancer de constater le NOT_READY : les requêtes qu'il route
+            // encore pendant ce délai sont servies normalement
+            if (readinessDelayMillis > 0) {
+                Thread.sleep(readinessDelayMillis);
+            }
+            draining = true;
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(gracePeriodMillis);
+            synchronized (drainLock) {
+                while (inFlight.get() > 0) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    drainLock.wait(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            draining = true;
+            logger.warn("Drain interrompu");
+        }
+
+        long elapsed = System.nanoTime() - start;
+        drainTimer.update(elapsed, TimeUnit.NANOSECONDS);
+
+        int remaining = inFlight.get();
+        if (remaining > 0) {
+            logger.warn("Drain terminé en {} ms - délai de grâce dépassé, {} requête(s) encore en cours",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), remaining);
+            return false;
+        }
+        logger.info("✓ Drain terminé en {} ms - {} requête(s) rejetée(s) pendant le drain",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), rejectedRequests.getCount());
+        return true;
+    }
+}
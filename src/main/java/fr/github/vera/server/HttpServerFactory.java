@@ -0,0 +1,79 @@
+package fr.github.vera.server;
+
+import fr.github.vera.config.ServerConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+
+import java.net.URI;
+
+public final class HttpServerFactory {
+    private static final Logger logger = LogManager.getLogger(HttpServerFactory.class);
+
+    private HttpServerFactory() {
+    }
+
+    public static HttpServer create(ServerConfig config, ResourceConfig resourceConfig) {
+        HttpServer server = GrizzlyHttpServerFactory.createHttpServer(
+                URI.create(config.baseUri()),
+                resourceConfig,
+                false // Le listener doit être configuré avant le démarrage
+        );
+
+        for (NetworkListener listener : server.getListeners()) {
+            configureListener(listener, config);
+        }
+        return server;
+    }
+
+    private static void configureListener(NetworkListener listener, ServerConfig config) {
+        TCPNIOTransport transport = listener.getTransport();
+
+        if (config.selectorThreads() > 0) {
+            transport.setSelectorRunnersCount(config.selectorThreads());
+        }
+
+        if (config.workerThreads() > 0) {
+            transport.setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig().copy()
+                    .setPoolName("vera-http-worker")
+                    .setCorePoolSize(config.workerThreads())
+                    .setMaxPoolSize(config.workerThreads()));
+        }
+
+        if (config.socketReadBufferSize() > 0) {
+            transport.setReadBufferSize(config.socketReadBufferSize());
+        }
+        if (config.socketWriteBufferSize() > 0) {
+            transport.setWriteBufferSize(config.socketWriteBufferSize());
+        }
+        transport.setTcpNoDelay(true);
+
+        // Keep-alive : limite le nombre de requêtes par connexion et le temps d'inactivité
+        listener.getKeepAlive().setMaxRequestsCount(config.keepAliveMaxRequests());
+        listener.getKeepAlive().setIdleTimeoutInSeconds(config.keepAliveIdleTimeoutSeconds());
+        listener.setMaxHttpHeaderSize(config.maxHeaderSize());
+
+        // h2c : le frontend peut multiplexer ses requêtes sur une seule connexion
+        if (config.http2Enabled()) {
+            Http2Configuration http2Configuration = Http2Configuration.builder()
+                    .maxConcurrentStreams(config.http2MaxConcurrentStreams())
+                    .build();
+            listener.registerAddOn(new Http2AddOn(http2Configuration));
+        }
+
+        logger.info("Listener {} configuré - selectors: {}, workers: {}, keep-alive: {} req / {}s, h2c: {}",
+                listener.getName(),
+                config.selectorThreads() > 0 ? config.selectorThreads() : "auto",
+                config.workerThreads() > 0 ? config.workerThreads() : "auto",
+                config.keepAliveMaxRequests(),
+                config.keepAliveIdleTimeoutSeconds(),
+                config.http2Enabled());
+    }
+}
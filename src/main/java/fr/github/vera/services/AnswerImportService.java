@@ -0,0 +1,402 @@
+package fr.github.vera.services;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.imports.ImportFormat;
+import fr.github.vera.imports.ImportJob;
+import fr.github.vera.imports.ImportRow;
+import fr.github.vera.imports.ImportRowReader;
+import fr.github.vera.model.Answer;
+import fr.github.vera.model.Question;
+import fr.github.vera.repository.AnswerRepository;
+import fr.github.vera.repository.IAnswerRepository;
+import fr.github.vera.repository.IQuestionRepository;
+import fr.github.vera.repository.QuestionRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Import massif de réponses : le corps de la requête est recopié sur disque, puis lu en flux,
+// validé ligne par ligne et chargé par COPY en lots (un lot = une transaction)
+public class AnswerImportService {
+    private static final Logger logger = LogManager.getLogger(AnswerImportService.class);
+    private static final AnswerImportService INSTANCE = new AnswerImportService();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_RESPONDENT_LENGTH = 255;
+
+    private final IAnswerRepository answerRepository = new AnswerRepository();
+    private final IQuestionRepository questionRepository = new QuestionRepository();
+    private final LiveResultsService liveResults = LiveResultsService.getInstance();
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final int chunkSize;
+    private final long maxBytes;
+    private final long retentionMillis;
+
+    private final Meter importedRows = MetricsRegistry.get().meter("import.answers.rows");
+    private final Meter rejectedRows = MetricsRegistry.get().meter("import.answers.rejected");
+    private final Timer chunkTimer = MetricsRegistry.get().timer("import.answers.chunk");
+
+    private AnswerImportService() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.chunkSize = properties.getIntProperty("import.chunk-size", 5000);
+        this.maxBytes = properties.getIntProperty("import.max-size-mb", 2048) * 1024L * 1024L;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(properties.getIntProperty("import.job-retention-minutes", 1440));
+
+        int workers = properties.getIntProperty("import.max-concurrent-jobs", 2);
+        int queued = properties.getIntProperty("import.max-queued-jobs", 10);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queued), r -> {
+            Thread t = new Thread(r, "answer-import-thread");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static AnswerImportService getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isAcceptingJobs() {
+        return !executor.isShutdown() && executor.getQueue().remainingCapacity() > 0;
+    }
+
+    public Map<Integer, Question> findSurveyQuestions(Integer surveyId) {
+        Map<Integer, Question> questions = new HashMap<>();
+        for (Question question : questionRepository.findBySurveyId(surveyId)) {
+            questions.put(question.getId(), question);
+        }
+        return questions;
+    }
+
+    // Recopie le corps sur disque (la requête HTTP se termine avant l'import) puis planifie le job
+    public ImportJob submit(Integer surveyId, Map<Integer, Question> questions, ImportFormat format,
+                            InputStream body, String submittedBy) throws IOException {
+        purgeExpiredJobs();
+
+        Path file = Files.createTempFile("vera-import-", "." + format.name().toLowerCase());
+        long size;
+        try {
+            size = spool(body, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(surveyId, format, submittedBy, size);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> DatabaseContext.runInPool(PoolType.BACKGROUND, () -> run(job, file, questions)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        logger.info("Import {} planifié : survey {}, format {}, {} octets", job.getId(), surveyId, format, size);
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public List<ImportJob> getJobs() {
+        purgeExpiredJobs();
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Des imports sont toujours en cours après 10 secondes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long spool(InputStream body, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new ImportTooLargeException(maxBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return total;
+    }
+
+    // === EXÉCUTION ===
+
+    private void run(ImportJob job, Path file, Map<Integer, Question> questions) {
+        job.start();
+        long start = System.currentTimeMillis();
+        Map<Integer, JsonNode> correctAnswers = parseCorrectAnswers(questions);
+
+        try (ImportRowReader reader = job.getFormat().open(new ProgressInputStream(Files.newInputStream(file), job))) {
+            List<Answer> chunk = new ArrayList<>(chunkSize);
+            long chunkFirstLine = 0;
+            ImportRow row;
+
+            while ((row = reader.next()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    job.cancel("Import interrompu par l'arrêt du serveur");
+                    logger.warn("Import {} interrompu après {} lignes", job.getId(), job.getRowsRead());
+                    return;
+                }
+                job.rowRead();
+
+                Answer answer = toAnswer(row, job, questions, correctAnswers);
+                if (answer == null) {
+                    rejectedRows.mark();
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    chunkFirstLine = row.line();
+                }
+                chunk.add(answer);
+
+                if (chunk.size() >= chunkSize) {
+                    flush(job, chunk, chunkFirstLine, row.line());
+                }
+            }
+            flush(job, chunk, chunkFirstLine, -1);
+
+            job.complete();
+            logger.info("✓ Import {} terminé en {} ms : {} importées, {} rejetées",
+                    job.getId(), System.currentTimeMillis() - start, job.getRowsImported(), job.getRowsRejected());
+
+        } catch (Exception e) {
+            job.fail(e.getMessage());
+            logger.error("❌ Import {} en échec après {} lignes", job.getId(), job.getRowsRead(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Impossible de supprimer le fichier temporaire {}", file);
+            }
+        }
+    }
+
+    // Un lot en échec (ex. question supprimée pendant l'import) est rejeté en bloc sans arrêter le job
+    private void flush(ImportJob job, List<Answer> chunk, long firstLine, long lastLine) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try (Timer.Context ignored = chunkTimer.time()) {
+            long rows = answerRepository.bulkInsert(chunk);
+            job.chunkCommitted(rows);
+            liveResults.recordAll(chunk);
+            importedRows.mark(rows);
+            if (job.getChunksCommitted() % 20 == 0) {
+                logger.info("Import {} : {} lignes importées, {} rejetées ({}%)", job.getId(),
+                        job.getRowsImported(), job.getRowsRejected(), Math.round(job.getProgress()));
+            }
+        } catch (RuntimeException e) {
+            String cause = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            String range = lastLine < 0 ? "à partir de la ligne " + firstLine : firstLine + "-" + lastLine;
+            job.reject(firstLine, chunk.size(), "Lot " + range + " rejeté: " + cause);
+            rejectedRows.mark(chunk.size());
+            logger.warn("Import {} : lot {} rejeté ({} lignes)", job.getId(), range, chunk.size());
+        }
+        chunk.clear();
+    }
+
+    // === VALIDATION ===
+
+    private Answer toAnswer(ImportRow row, ImportJob job, Map<Integer, Question> questions,
+                            Map<Integer, JsonNode> correctAnswers) {
+        if (row.error() != null) {
+            job.reject(row.line(), row.error());
+            return null;
+        }
+
+        Integer questionId;
+        try {
+            questionId = row.questionId() == null ? null : Integer.valueOf(row.questionId().trim());
+        } catch (NumberFormatException e) {
+            job.reject(row.line(), "question_id invalide: " + row.questionId());
+            return null;
+        }
+        if (questionId == null) {
+            job.reject(row.line(), "question_id manquant");
+            return null;
+        }
+        Question question = questions.get(questionId);
+        if (question == null) {
+            job.reject(row.line(), "La question " + questionId + " n'appartient pas au survey " + job.getSurveyId());
+            return null;
+        }
+
+        String respondentId = row.respondentId() == null ? null : row.respondentId().trim();
+        if (respondentId == null || respondentId.isEmpty()) {
+            job.reject(row.line(), "respondent_id manquant");
+            return null;
+        }
+        if (respondentId.length() > MAX_RESPONDENT_LENGTH) {
+            job.reject(row.line(), "respondent_id trop long (" + MAX_RESPONDENT_LENGTH + " caractères max)");
+            return null;
+        }
+
+        JsonNode answer;
+        try {
+            answer = parseAnswer(row);
+        } catch (IOException e) {
+            job.reject(row.line(), "Réponse JSON invalide");
+            return null;
+        }
+        if (answer == null && question.isMandatory()) {
+            job.reject(row.line(), "Réponse manquante pour la question obligatoire " + questionId);
+            return null;
+        }
+
+        Boolean anonymous = parseBoolean(row.anonymous());
+        if (row.anonymous() != null && anonymous == null) {
+            job.reject(row.line(), "is_anonymous invalide: " + row.anonymous());
+            return null;
+        }
+
+        LocalDateTime submittedAt;
+        try {
+            submittedAt = parseTimestamp(row.submittedAt());
+        } catch (DateTimeParseException e) {
+            job.reject(row.line(), "submitted_at invalide: " + row.submittedAt());
+            return null;
+        }
+
+        JsonNode correct = correctAnswers.get(questionId);
+        Boolean isCorrect = correct == null ? null : correct.equals(answer);
+
+        return new Answer(null, questionId, Boolean.TRUE.equals(anonymous),
+                answer == null ? null : answer.toString(), null, respondentId, isCorrect, submittedAt);
+    }
+
+    // En CSV, une valeur qui n'est pas du JSON valide est importée comme chaîne JSON
+    private static JsonNode parseAnswer(ImportRow row) throws IOException {
+        if (row.answer() == null) {
+            return null;
+        }
+        if (row.answerIsJson()) {
+            return MAPPER.readTree(row.answer());
+        }
+        try {
+            return MAPPER.readTree(row.answer());
+        } catch (IOException e) {
+            return TextNode.valueOf(row.answer());
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "true", "1", "yes", "oui" -> true;
+            case "false", "0", "no", "non" -> false;
+            default -> null;
+        };
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return LocalDateTime.now();
+        }
+        String text = value.trim();
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            return OffsetDateTime.parse(text).toLocalDateTime();
+        }
+    }
+
+    private static Map<Integer, JsonNode> parseCorrectAnswers(Map<Integer, Question> questions) {
+        Map<Integer, JsonNode> correct = new HashMap<>();
+        questions.forEach((id, question) -> {
+            if (question.getCorrectAnswer() != null) {
+                try {
+                    correct.put(id, MAPPER.readTree(question.getCorrectAnswer()));
+                } catch (IOException e) {
+                    logger.warn("Réponse correcte illisible pour la question {}", id);
+                }
+            }
+        });
+        return correct;
+    }
+
+    private void purgeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() != null
+                && Duration.between(job.getFinishedAt(), now).toMillis() > retentionMillis);
+    }
+
+    // Suit la progression en octets lus dans le fichier temporaire
+    private static class ProgressInputStream extends FilterInputStream {
+        private final ImportJob job;
+
+        ProgressInputStream(InputStream in, ImportJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                job.addBytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                job.addBytesRead(read);
+            }
+            return read;
+        }
+    }
+
+    public static class ImportTooLargeException extends IOException {
+        public ImportTooLargeException(long maxBytes) {
+            super("Fichier d'import trop volumineux (max " + maxBytes / (1024 * 1024) + " Mo)");
+        }
+    }
+}
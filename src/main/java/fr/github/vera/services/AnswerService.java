@@ -1,17 +1,40 @@
 package fr.github.vera.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import fr.github.vera.database.DataLoader;
 import fr.github.vera.model.Answer;
+import fr.github.vera.model.AnswerDetail;
+import fr.github.vera.model.AnswerValueCount;
+import fr.github.vera.model.Question;
 import fr.github.vera.repository.AnswerRepository;
 import fr.github.vera.repository.IAnswerRepository;
+import fr.github.vera.repository.IQuestionRepository;
+import fr.github.vera.repository.QuestionRepository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class AnswerService extends BaseService<Answer, Integer, IAnswerRepository> {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final IQuestionRepository questionRepository = new QuestionRepository();
+    private final LiveResultsService liveResults = LiveResultsService.getInstance();
 
     public AnswerService() {
         super(new AnswerRepository());
     }
 
+    // Réponse comptée dans les résultats en direct une fois enregistrée
+    @Override
+    public Answer create(Answer answer) {
+        Answer created = super.create(answer);
+        liveResults.record(created);
+        return created;
+    }
+
     // Méthodes spécifiques aux réponses
     public List<Answer> getAnswersByQuestion(Integer questionId) {
         return repository.findByQuestionId(questionId);
@@ -25,6 +48,19 @@ public class AnswerService extends BaseService<Answer, Integer, IAnswerRepositor
         return repository.findBySurveyId(surveyId);
     }
 
+    // Les questions de toutes les réponses sont chargées en une requête (DataLoader), pas une par réponse
+    public List<AnswerDetail> getAnswerDetailsBySurvey(Integer surveyId) {
+        List<Answer> answers = repository.findBySurveyId(surveyId);
+        Map<Integer, Question> questions = DataLoader.forRequest(questionRepository)
+                .loadMany(answers.stream().map(Answer::getIdQuestion).toList());
+        return answers.stream()
+                .map(answer -> {
+                    Question question = questions.get(answer.getIdQuestion());
+                    return new AnswerDetail(answer, question == null ? null : question.getTitle());
+                })
+                .toList();
+    }
+
     // Réponses anonymes
     public List<Answer> getAnonymousAnswers(Integer questionId) {
         return repository.findAnonymousAnswers(questionId);
@@ -35,6 +71,15 @@ public class AnswerService extends BaseService<Answer, Integer, IAnswerRepositor
         return repository.findCorrectAnswers(questionId);
     }
 
+    // Recherche par valeur : une valeur qui n'est pas du JSON valide est traitée comme une chaîne JSON
+    public List<Answer> getAnswersByValue(Integer questionId, String value) {
+        return repository.findByAnswerValue(questionId, toJsonValue(value));
+    }
+
+    public List<AnswerValueCount> getValueDistribution(Integer questionId) {
+        return repository.getValueDistribution(questionId);
+    }
+
     // Statistiques
     public int countAnswersByQuestion(Integer questionId) {
         return repository.countByQuestionId(questionId);
@@ -61,6 +106,31 @@ public class AnswerService extends BaseService<Answer, Integer, IAnswerRepositor
         return repository.getAverageScoreBySurveyId(surveyId);
     }
 
+    // Variantes asynchrones, lancées en parallèle par les endpoints de statistiques
+    public CompletableFuture<Integer> countAnswersByQuestionAsync(Integer questionId) {
+        return repository.countByQuestionIdAsync(questionId);
+    }
+
+    public CompletableFuture<Integer> countAnswersBySurveyAsync(Integer surveyId) {
+        return repository.countBySurveyIdAsync(surveyId);
+    }
+
+    public CompletableFuture<Integer> countCorrectAnswersByQuestionAsync(Integer questionId) {
+        return repository.countCorrectAnswersByQuestionIdAsync(questionId);
+    }
+
+    public CompletableFuture<Integer> countAnonymousAnswersByQuestionAsync(Integer questionId) {
+        return repository.countAnonymousAnswersByQuestionIdAsync(questionId);
+    }
+
+    public CompletableFuture<Double> getQuestionAverageScoreAsync(Integer questionId) {
+        return repository.getAverageScoreByQuestionIdAsync(questionId);
+    }
+
+    public CompletableFuture<Double> getSurveyAverageScoreAsync(Integer surveyId) {
+        return repository.getAverageScoreBySurveyIdAsync(surveyId);
+    }
+
     public boolean markAnswerAsCorrect(Integer answerId, boolean isCorrect) {
         return repository.markAnswerAsCorrect(answerId, isCorrect);
     }
@@ -74,4 +144,11 @@ public class AnswerService extends BaseService<Answer, Integer, IAnswerRepositor
         return repository.hasRespondentAnsweredQuestion(respondentId, questionId);
     }
 
-}
\ No newline at end of file
+    private static String toJsonValue(String value) {
+        try {
+            return MAPPER.readTree(value).toString();
+        } catch (JsonProcessingException e) {
+            return TextNode.valueOf(value).toString();
+        }
+    }
+}
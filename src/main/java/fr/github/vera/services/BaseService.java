@@ -1,5 +1,6 @@
 package fr.github.vera.services;
 
+import fr.github.vera.database.Projection;
 import fr.github.vera.model.Identifiable;
 import fr.github.vera.repository.IRepository;
 
@@ -17,6 +18,14 @@ public abstract class BaseService<T extends Identifiable<I>, I, R extends IRepos
         return repository.findAll(limit, offset);
     }
 
+    public List<T> getAll(int limit, int offset, Projection<T> projection) {
+        return repository.findAll(limit, offset, projection);
+    }
+
+    public Projection<T> projection(String fields) {
+        return repository.projection(fields);
+    }
+
     public Optional<T> getById(I id) {
         return repository.findById(id);
     }
@@ -0,0 +1,175 @@
+package fr.github.vera.services;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import fr.github.vera.Main;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.database.DatabaseManager;
+import fr.github.vera.server.ApplicationLifecycle;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Les endpoints de santé ne font aucune I/O : la sonde base de données tourne en arrière-plan toutes les
+// health.db.probe-interval-ms, indépendamment des appels, et readiness lit son dernier résultat
+public class HealthService {
+    private static final Logger logger = LogManager.getLogger(HealthService.class);
+    private static final HealthService INSTANCE = new HealthService();
+
+    private final DatabaseManager databaseManager = DatabaseManager.getInstance();
+    private final long probeIntervalMillis;
+    private final int maxPendingThreads;
+    private final ScheduledExecutorService probeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "health-probe-thread");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile ProbeResult lastProbe = new ProbeResult(false, 0, "aucune sonde effectuée");
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private HealthService() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.probeIntervalMillis = properties.getIntProperty("health.db.probe-interval-ms", 2000);
+        this.maxPendingThreads = properties.getIntProperty("health.db.max-pending-threads", 5);
+    }
+
+    public static HealthService getInstance() {
+        return INSTANCE;
+    }
+
+    // Première sonde immédiate pour que /health/ready soit exact dès le démarrage, puis à intervalle fixe
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        probeScheduler.scheduleWithFixedDelay(this::probe, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> liveness() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", "UP");
+        health.put("timestamp", System.currentTimeMillis());
+        health.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime());
+        return health;
+    }
+
+    public Map<String, Object> readiness() {
+        Map<String, Object> checks = new LinkedHashMap<>();
+        boolean lifecycleReady = ApplicationLifecycle.getInstance().isReady();
+        checks.put("lifecycle", check(lifecycleReady,
+                ApplicationLifecycle.getInstance().isDraining() ? "drain en cours" : null));
+
+        boolean databaseUp = checkDatabase(checks);
+        boolean poolUp = checkPool(checks);
+        boolean schedulerUp = checkPurgeScheduler(checks);
+
+        boolean ready = lifecycleReady && databaseUp && poolUp && schedulerUp;
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", ready ? "UP" : "NOT_READY");
+        health.put("timestamp", System.currentTimeMillis());
+        health.put("checks", checks);
+        return health;
+    }
+
+    public boolean isUp(Map<String, Object> health) {
+        return "UP".equals(health.get("status"));
+    }
+
+    private boolean checkDatabase(Map<String, Object> checks) {
+        ProbeResult probe = lastProbe;
+        // Un résultat trop ancien signifie que la sonde est bloquée (ou n'a pas été démarrée)
+        boolean stale = System.currentTimeMillis() - probe.checkedAt() > probeIntervalMillis * 3;
+        boolean up = probe.reachable() && !stale;
+
+        Map<String, Object> check = check(up, stale && probe.checkedAt() > 0 ? "sonde expirée" : probe.detail());
+        check.put("checkedAt", probe.checkedAt());
+        checks.put("database", check);
+        return up;
+    }
+
+    private boolean checkPool(Map<String, Object> checks) {
+        HikariPoolMXBean pool = databaseManager.getPoolMXBean();
+        if (pool == null) {
+            checks.put("pool", check(false, "pool indisponible"));
+            return false;
+        }
+
+        int pending = pool.getThreadsAwaitingConnection();
+        boolean up = pending <= maxPendingThreads;
+        Map<String, Object> check = check(up, up ? null : "trop de threads en attente de connexion");
+        check.put("active", pool.getActiveConnections());
+        check.put("idle", pool.getIdleConnections());
+        check.put("pending", pending);
+        check.put("maxPending", maxPendingThreads);
+        checks.put("pool", check);
+        return up;
+    }
+
+    private boolean checkPurgeScheduler(Map<String, Object> checks) {
+        TokenBlacklistService blacklistService = Main.getTokenBlacklistService();
+        boolean up = blacklistService != null && blacklistService.isRunning();
+
+        Map<String, Object> check = check(up, up ? null : "scheduler de purge arrêté");
+        if (blacklistService != null) {
+            check.put("lastPurgeAt", blacklistService.getLastPurgeAt());
+            check.put("lastPurgeSucceeded", blacklistService.isLastPurgeSucceeded());
+        }
+        checks.put("blacklistPurge", check);
+        return up;
+    }
+
+    private Map<String, Object> check(boolean up, String detail) {
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("status", up ? "UP" : "DOWN");
+        if (detail != null) {
+            check.put("detail", detail);
+        }
+        return check;
+    }
+
+    // Une exception ne doit pas arrêter les exécutions suivantes
+    private void probe() {
+        try {
+            lastProbe = probeDatabase();
+        } catch (RuntimeException e) {
+            logger.warn("Sonde base de données en échec: {}", e.getMessage());
+            lastProbe = new ProbeResult(false, System.currentTimeMillis(), e.getMessage());
+        }
+    }
+
+    private ProbeResult probeDatabase() {
+        HikariPoolMXBean pool = databaseManager.getPoolMXBean();
+        if (pool == null) {
+            return new ProbeResult(false, System.currentTimeMillis(), "pool indisponible");
+        }
+
+        // Pool saturé (connexions empruntées ou threads en attente) : on n'emprunte pas de connexion. L'horodatage
+        // précédent est conservé pour que la sonde devienne périmée si la saturation dure. Aucune connexion
+        // inactive sans activité (base injoignable, pool vide) : la sonde s'exécute et échoue normalement
+        boolean saturated = pool.getIdleConnections() == 0
+                && (pool.getActiveConnections() > 0 || pool.getThreadsAwaitingConnection() > 0);
+        if (saturated) {
+            ProbeResult previous = lastProbe;
+            return new ProbeResult(previous.reachable(), previous.checkedAt(), "pool saturé, sonde ignorée");
+        }
+
+        try (Connection connection = databaseManager.getConnection()) {
+            boolean valid = connection != null && connection.isValid(1);
+            return new ProbeResult(valid, System.currentTimeMillis(), valid ? null : "connexion invalide");
+        } catch (Exception e) {
+            logger.warn("Sonde base de données en échec: {}", e.getMessage());
+            return new ProbeResult(false, System.currentTimeMillis(), e.getMessage());
+        }
+    }
+
+    private record ProbeResult(boolean reachable, long checkedAt, String detail) {
+    }
+}
@@ -0,0 +1,49 @@
+package fr.github.vera.services;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.github.vera.repository.HistoryPartitionRepository;
+import fr.github.vera.repository.HistoryPartitionRepository.ChainEntry;
+import fr.github.vera.repository.HistoryPartitionRepository.ChainStart;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+
+// Avant de retirer l'historique antérieur à une date (rétention, purge) : la première entrée conservée de chaque
+// chaîne coupée devient un checkpoint complet, pour que le rejeu ne dépende plus des lignes supprimées
+public class HistoryCheckpointService {
+    private static final Logger logger = LogManager.getLogger(HistoryCheckpointService.class);
+
+    private final HistoryPartitionRepository repository;
+
+    public HistoryCheckpointService(HistoryPartitionRepository repository) {
+        this.repository = repository;
+    }
+
+    // Retourne le nombre de checkpoints écrits ; une erreur base de données interrompt avant toute suppression
+    public int checkpointChainsBefore(String table, LocalDateTime date) {
+        int written = 0;
+        for (ChainStart start : repository.findChainsCutBefore(table, date)) {
+            ObjectNode state = null;
+            try {
+                for (ChainEntry entry : repository.findChain(table, start)) {
+                    state = SnapshotReplayer.apply(state, entry.snapshot(), entry.checkpoint());
+                }
+            } catch (IllegalStateException e) {
+                // Chaîne déjà sans checkpoint : la suppression ne la dégrade pas davantage
+                logger.warn("Historique {} de l'entité {} non rejouable, checkpoint ignoré : {}",
+                        table, start.entityId(), e.getMessage());
+                continue;
+            }
+            if (state != null) {
+                repository.promoteToCheckpoint(table, start, state.toString());
+                written++;
+            }
+        }
+        if (written > 0) {
+            logger.info("{} checkpoint(s) écrit(s) dans {} avant suppression de l'historique antérieur au {}",
+                    written, table, date);
+        }
+        return written;
+    }
+}
@@ -1,14 +1,20 @@
 package fr.github.vera.services;
 
+import fr.github.vera.model.HistoryVersion;
 import fr.github.vera.model.HistoryQuestion;
+import fr.github.vera.repository.HistoryPartitionRepository;
 import fr.github.vera.repository.HistoryQuestionRepository;
 import fr.github.vera.repository.IHistoryQuestionRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class HistoryQuestionService extends BaseService<HistoryQuestion, Integer, IHistoryQuestionRepository> {
 
+    private final HistoryCheckpointService checkpointService = new HistoryCheckpointService(new HistoryPartitionRepository());
+
     public HistoryQuestionService() {
         super(new HistoryQuestionRepository());
     }
@@ -59,6 +65,14 @@ public class HistoryQuestionService extends BaseService<HistoryQuestion, Integer
         return repository.countByAction(action);
     }
 
+    public CompletableFuture<Integer> countHistoryByQuestionAsync(Integer questionId) {
+        return repository.countByQuestionIdAsync(questionId);
+    }
+
+    public CompletableFuture<Integer> countHistoryByActionAsync(String action) {
+        return repository.countByActionAsync(action);
+    }
+
     // Dernières actions
     public List<HistoryQuestion> getLatestHistoryByQuestion(Integer questionId, int limit) {
         return repository.findLatestByQuestionId(questionId, limit);
@@ -95,9 +109,20 @@ public class HistoryQuestionService extends BaseService<HistoryQuestion, Integer
     }
 
     public boolean deleteOldHistory(LocalDateTime date) {
+        checkpointService.checkpointChainsBefore("history_question", date);
         return repository.deleteOlderThan(date);
     }
 
+    // Versions reconstruites (checkpoint le plus proche + patchs)
+    public Optional<HistoryVersion> rebuildQuestionVersion(Integer questionId, int version) {
+        return SnapshotReplayer.replay(repository.findReplayChain(questionId, version));
+    }
+
+    public Optional<HistoryVersion> rebuildLatestQuestionVersion(Integer questionId) {
+        int latest = repository.findLatestVersion(questionId);
+        return latest == 0 ? Optional.empty() : rebuildQuestionVersion(questionId, latest);
+    }
+
     // Méthode utilitaire pour enregistrer une action
     public HistoryQuestion recordAction(Integer questionId, Integer surveyId, String action,
                                         String snapshot, Integer userId) {
@@ -0,0 +1,120 @@
+package fr.github.vera.services;
+
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.repository.HistoryPartitionRepository;
+import fr.github.vera.repository.HistoryPartitionRepository.MonthlyPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Maintenance des partitions d'historique : création des mois à venir et rétention par DETACH/DROP PARTITION
+public class HistoryRetentionService {
+    private static final Logger logger = LogManager.getLogger(HistoryRetentionService.class);
+    private static final long INITIAL_DELAY = 1; // 1 minute
+    private final HistoryPartitionRepository partitionRepository;
+    private final HistoryCheckpointService checkpointService;
+    private final ScheduledExecutorService scheduler;
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private final boolean dropDetached;
+    private final long intervalMinutes;
+    private volatile Instant lastRunAt;
+    private volatile boolean lastRunSucceeded = true;
+
+    public HistoryRetentionService(HistoryPartitionRepository partitionRepository) {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        this.partitionRepository = partitionRepository;
+        this.checkpointService = new HistoryCheckpointService(partitionRepository);
+        this.retentionMonths = properties.getIntProperty("history.retention.months", 24);
+        this.monthsAhead = properties.getIntProperty("history.partitions.months-ahead", 3);
+        this.dropDetached = properties.getBooleanProperty("history.retention.drop", true);
+        this.intervalMinutes = TimeUnit.HOURS.toMinutes(properties.getIntProperty("history.retention.interval-hours", 24));
+        this.scheduler = Executors.newScheduledThreadPool(1, r -> {
+            Thread t = new Thread(r, "history-retention-thread");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleAtFixedRate(this::runMaintenance, INITIAL_DELAY, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void shutdown() {
+        try {
+            if (!scheduler.isShutdown()) {
+                scheduler.shutdown();
+                if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return !scheduler.isShutdown();
+    }
+
+    public Instant getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public boolean isLastRunSucceeded() {
+        return lastRunSucceeded;
+    }
+
+    void runMaintenance() {
+        try {
+            for (String table : HistoryPartitionRepository.PARTITIONED_TABLES) {
+                maintain(table);
+            }
+            lastRunSucceeded = true;
+        } catch (Exception e) {
+            lastRunSucceeded = false;
+            logger.error("Erreur lors de la maintenance des partitions d'historique", e);
+        } finally {
+            lastRunAt = Instant.now();
+        }
+    }
+
+    private void maintain(String table) {
+        if (!partitionRepository.isPartitioned(table)) {
+            logger.warn("La table {} n'est pas partitionnée : exécuter database/upgrade/001_partition_history.sql", table);
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        int created = partitionRepository.ensurePartitions(table, current, monthsAhead + 1);
+        if (created > 0) {
+            logger.info("{} partition(s) créée(s) pour {}", created, table);
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+
+        // Seuls les mois entièrement antérieurs à la limite sont retirés : O(1) quel que soit le volume
+        LocalDate cutoff = current.minusMonths(retentionMonths).atDay(1);
+        // Les chaînes de rejeu dont le dernier checkpoint tombe avant la limite en reçoivent un nouveau au préalable
+        checkpointService.checkpointChainsBefore(table, cutoff.atStartOfDay());
+        for (MonthlyPartition partition : partitionRepository.findPartitions(table)) {
+            if (!partition.end().isAfter(cutoff)) {
+                partitionRepository.detachPartition(table, partition, dropDetached);
+                logger.info("Partition {} {} (rétention {} mois)", partition.name(),
+                        dropDetached ? "supprimée" : "détachée", retentionMonths);
+            }
+        }
+
+        int purged = partitionRepository.deleteFromDefaultBefore(table, cutoff);
+        if (purged > 0) {
+            logger.info("{} ligne(s) expirée(s) supprimée(s) de {}_default", purged, table);
+        }
+    }
+}
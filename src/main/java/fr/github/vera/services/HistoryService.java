@@ -1,25 +1,52 @@
 package fr.github.vera.services;
 
+import fr.github.vera.database.DataLoader;
+import fr.github.vera.database.Projection;
+import fr.github.vera.model.HistoryDetail;
+import fr.github.vera.model.HistoryVersion;
 import fr.github.vera.model.History;
+import fr.github.vera.model.User;
+import fr.github.vera.repository.HistoryPartitionRepository;
 import fr.github.vera.repository.HistoryRepository;
 import fr.github.vera.repository.IHistoryRepository;
+import fr.github.vera.repository.IUserRepository;
+import fr.github.vera.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class HistoryService extends BaseService<History, Integer, IHistoryRepository> {
 
+    private final IUserRepository userRepository = new UserRepository();
+    private final HistoryCheckpointService checkpointService = new HistoryCheckpointService(new HistoryPartitionRepository());
+
     public HistoryService() {
         super(new HistoryRepository());
     }
 
     // Méthodes spécifiques à l'historique des surveys
-    public List<History> getHistoryBySurvey(Integer surveyId) {
-        return repository.findBySurveyId(surveyId);
+    public List<History> getHistoryBySurvey(Integer surveyId, Projection<History> projection) {
+        return repository.findBySurveyId(surveyId, projection);
+    }
+
+    // Les auteurs de toutes les entrées sont chargés en une requête (DataLoader), pas un par entrée
+    public List<HistoryDetail> getHistoryDetailsBySurvey(Integer surveyId) {
+        List<History> history = repository.findBySurveyId(surveyId, null);
+        Map<Integer, User> users = DataLoader.forRequest(userRepository)
+                .loadMany(history.stream().map(History::getIdUser).toList());
+        return history.stream()
+                .map(entry -> {
+                    User user = users.get(entry.getIdUser());
+                    return new HistoryDetail(entry, user == null ? null : user.getName() + " " + user.getSurname());
+                })
+                .toList();
     }
 
-    public List<History> getHistoryByUser(Integer userId) {
-        return repository.findByUserId(userId);
+    public List<History> getHistoryByUser(Integer userId, Projection<History> projection) {
+        return repository.findByUserId(userId, projection);
     }
 
     public List<History> getHistoryBySurveyAndAction(Integer surveyId, String action) {
@@ -51,6 +78,14 @@ public class HistoryService extends BaseService<History, Integer, IHistoryReposi
         return repository.countByAction(action);
     }
 
+    public CompletableFuture<Integer> countHistoryBySurveyAsync(Integer surveyId) {
+        return repository.countBySurveyIdAsync(surveyId);
+    }
+
+    public CompletableFuture<Integer> countHistoryByActionAsync(String action) {
+        return repository.countByActionAsync(action);
+    }
+
     // Dernières actions
     public List<History> getLatestHistoryBySurvey(Integer surveyId, int limit) {
         return repository.findLatestBySurveyId(surveyId, limit);
@@ -73,6 +108,16 @@ public class HistoryService extends BaseService<History, Integer, IHistoryReposi
         return repository.findAllSnapshotsBySurveyId(surveyId);
     }
 
+    // Versions reconstruites (checkpoint le plus proche + patchs)
+    public Optional<HistoryVersion> rebuildSurveyVersion(Integer surveyId, int version) {
+        return SnapshotReplayer.replay(repository.findReplayChain(surveyId, version));
+    }
+
+    public Optional<HistoryVersion> rebuildLatestSurveyVersion(Integer surveyId) {
+        int latest = repository.findLatestVersion(surveyId);
+        return latest == 0 ? Optional.empty() : rebuildSurveyVersion(surveyId, latest);
+    }
+
     // Recherche avancée
     public List<History> getHistoryByActions(List<String> actions) {
         return repository.findByActionIn(actions);
@@ -92,6 +137,7 @@ public class HistoryService extends BaseService<History, Integer, IHistoryReposi
     }
 
     public boolean deleteOldHistory(LocalDateTime date) {
+        checkpointService.checkpointChainsBefore("history", date);
         return repository.deleteOlderThan(date);
     }
 
@@ -0,0 +1,76 @@
+package fr.github.vera.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.database.QueryRegistry;
+import fr.github.vera.model.QueryPlanReport;
+import fr.github.vera.model.QueryPlanReport.SeqScan;
+import fr.github.vera.repository.QueryPlanRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Passe EXPLAIN sur toutes les requêtes exécutées depuis le démarrage et signale les parcours
+// séquentiels de grosses tables, c'est-à-dire les requêtes auxquelles il manque un index
+public class IndexAdvisorService {
+    private static final Logger logger = LogManager.getLogger(IndexAdvisorService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> STATUS_ORDER = List.of("SEQ_SCAN", "ERROR", "OK");
+
+    private final QueryPlanRepository repository = new QueryPlanRepository();
+    private final long largeTableRows;
+
+    public IndexAdvisorService() {
+        this.largeTableRows = ConfigProperties.getInstance().getIntProperty("advisor.large-table-rows", 10_000);
+    }
+
+    // Requêtes à problème en tête, puis par coût estimé décroissant
+    public List<QueryPlanReport> analyze() {
+        Map<String, Long> tableRows = repository.findTableRows();
+        List<QueryPlanReport> reports = new ArrayList<>();
+        QueryRegistry.snapshot().forEach((sql, context) -> reports.add(analyze(context, sql, tableRows)));
+
+        reports.sort(Comparator
+                .comparingInt((QueryPlanReport report) -> STATUS_ORDER.indexOf(report.status()))
+                .thenComparing(report -> report.totalCost() == null ? 0 : report.totalCost(), Comparator.reverseOrder()));
+        logger.info("Analyse des index : {} requêtes, {} parcours séquentiels de grosses tables", reports.size(),
+                reports.stream().filter(report -> "SEQ_SCAN".equals(report.status())).count());
+        return reports;
+    }
+
+    private QueryPlanReport analyze(String context, String sql, Map<String, Long> tableRows) {
+        try {
+            JsonNode plan = MAPPER.readTree(repository.explainGeneric(sql)).path(0).path("Plan");
+            List<SeqScan> seqScans = new ArrayList<>();
+            collectSeqScans(plan, tableRows, seqScans);
+            return new QueryPlanReport(context, sql, seqScans.isEmpty() ? "OK" : "SEQ_SCAN",
+                    plan.path("Total Cost").asDouble(), seqScans, null);
+        } catch (RuntimeException | JsonProcessingException e) {
+            // Typiquement un paramètre dont PostgreSQL ne peut pas déduire le type sans valeur
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            return new QueryPlanReport(context, sql, "ERROR", null, List.of(), cause.getMessage());
+        }
+    }
+
+    private void collectSeqScans(JsonNode node, Map<String, Long> tableRows, List<SeqScan> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            String relation = node.path("Relation Name").asText();
+            long rows = tableRows.getOrDefault(relation, 0L);
+            if (rows >= largeTableRows) {
+                seqScans.add(new SeqScan(relation, rows, node.path("Filter").asText(null)));
+            }
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, tableRows, seqScans);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package fr.github.vera.services;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.github.vera.config.ConfigProperties;
+import fr.github.vera.config.JerseyConfig;
+import fr.github.vera.config.MetricsRegistry;
+import fr.github.vera.database.CacheRegion;
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.database.InvalidationBus;
+import fr.github.vera.database.PoolType;
+import fr.github.vera.model.Answer;
+import fr.github.vera.model.AnswerCounts;
+import fr.github.vera.model.AnswerStatsDelta;
+import fr.github.vera.model.Question;
+import fr.github.vera.repository.AnswerRepository;
+import fr.github.vera.repository.IAnswerRepository;
+import fr.github.vera.repository.IQuestionRepository;
+import fr.github.vera.repository.QuestionRepository;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Résultats en direct des surveys (Server-Sent Events). Chaque réponse enregistrée (saisie, import) est comptée
+// une fois en mémoire, dans le canal de son survey s'il a des abonnés ; toutes les live.coalesce-ms, le delta
+// accumulé est sérialisé une fois et mis en file pour chaque abonné. Chaque abonné a une file bornée
+// (live.max-queued-events) vidée par son thread virtuel : un client qui ne suit pas voit sa file déborder et
+// son flux fermé, sans retarder les autres. Les réponses reçues par cette instance sont aussi cumulées par
+// question et diffusées à chaque fenêtre aux autres instances (InvalidationBus.broadcast), qui les ajoutent aux
+// canaux de leurs abonnés : derrière un répartiteur de charge, chaque abonné voit toutes les réponses. Si des
+// notifications ont pu être perdues (reconnexion de l'écoute, deltas abandonnés), les abonnés reçoivent de
+// nouveaux totaux.
+public class LiveResultsService implements CacheRegion {
+    private static final Logger logger = LogManager.getLogger(LiveResultsService.class);
+    private static final LiveResultsService INSTANCE = new LiveResultsService();
+    private static final ObjectMapper MAPPER = JerseyConfig.createObjectMapper();
+    private static final String REMOTE_ANSWERS = "live-answers";
+
+    private final IAnswerRepository answerRepository = new AnswerRepository();
+    private final IQuestionRepository questionRepository = new QuestionRepository();
+    private final Map<Integer, SurveyChannel> channels = new ConcurrentHashMap<>();
+    // Question -> survey, pour les seuls surveys suivis
+    private final Map<Integer, Integer> questionSurveys = new ConcurrentHashMap<>();
+    // Question -> réponses reçues par cette instance depuis la dernière diffusion aux autres instances
+    private final Map<Integer, AnswerCounts> outbound = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final int maxQueuedEvents;
+    private final Meter deltas = MetricsRegistry.get().meter("live.deltas");
+    private final Meter dropped = MetricsRegistry.get().meter("live.dropped");
+    private volatile Sse sse;
+    private volatile boolean shuttingDown;
+
+    private LiveResultsService() {
+        ConfigProperties properties = ConfigProperties.getInstance();
+        long coalesceMillis = Math.max(100, properties.getIntProperty("live.coalesce-ms", 1000));
+        long heartbeatMillis = TimeUnit.SECONDS.toMillis(Math.max(1, properties.getIntProperty("live.heartbeat-seconds", 15)));
+        this.maxQueuedEvents = Math.max(1, properties.getIntProperty("live.max-queued-events", 32));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-results-thread");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::publishDeltas, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        MetricRegistry registry = MetricsRegistry.get();
+        registry.gauge("live.subscribers", () -> () -> channels.values().stream()
+                .mapToInt(channel -> channel.subscribers.size())
+                .sum());
+        registry.gauge("live.surveys", () -> channels::size);
+        InvalidationBus.getInstance().register(this);
+    }
+
+    public static LiveResultsService getInstance() {
+        return INSTANCE;
+    }
+
+    // Réponses validées en base ; sans abonné au survey de leur question, rien n'est fait
+    public void record(Answer answer) {
+        recordAll(List.of(answer));
+    }
+
+    public void recordAll(List<Answer> answers) {
+        boolean remote = InvalidationBus.getInstance().isRunning();
+        if (channels.isEmpty() && !remote) {
+            return;
+        }
+        for (Answer answer : answers) {
+            AnswerCounts counts = AnswerCounts.of(answer);
+            if (remote) {
+                outbound.merge(answer.getIdQuestion(), counts, AnswerCounts::plus);
+            }
+            addToChannel(answer.getIdQuestion(), counts);
+        }
+    }
+
+    // Le client reçoit d'abord les totaux (événement snapshot), puis les deltas (événements delta) ; un snapshot
+    // ultérieur remplace les totaux (resynchronisation après perte de notifications).
+    // Abonné avant la lecture des totaux : une réponse validée pendant cette lecture peut être comptée deux fois,
+    // jamais perdue ; une reconnexion resynchronise le client.
+    public void subscribe(Integer surveyId, SseEventSink sink, Sse sse) {
+        if (shuttingDown) {
+            sink.close();
+            return;
+        }
+        this.sse = sse;
+        Subscriber subscriber = new Subscriber(sink);
+        SurveyChannel channel;
+        boolean created;
+        synchronized (channels) {
+            channel = channels.get(surveyId);
+            created = channel == null;
+            if (created) {
+                channel = new SurveyChannel(surveyId);
+                channels.put(surveyId, channel);
+            }
+            channel.subscribers.add(subscriber);
+        }
+        if (created) {
+            loadQuestions(surveyId);
+        }
+
+        try {
+            Map<Integer, AnswerCounts> totals = answerRepository.countBySurveyIdGroupedByQuestion(surveyId);
+            subscriber.start(event(sse, "snapshot", new AnswerStatsDelta(surveyId, sum(totals), totals)));
+        } catch (RuntimeException e) {
+            subscriber.close();
+            sink.close();
+            throw e;
+        }
+        logger.debug("Abonné au flux de résultats du survey {} ({} abonné(s))", surveyId, channel.subscribers.size());
+    }
+
+    // Avant l'arrêt du serveur : les clients se reconnectent à une autre instance
+    public void shutdown() {
+        shuttingDown = true;
+        scheduler.shutdownNow();
+        synchronized (channels) {
+            channels.values().forEach(channel -> channel.subscribers.forEach(Subscriber::close));
+            channels.clear();
+            questionSurveys.clear();
+        }
+    }
+
+    @Override
+    public String name() {
+        return "live-results";
+    }
+
+    // Questions ajoutées ou restaurées : la correspondance question -> survey est rechargée au prochain envoi.
+    // live-answers : réponses reçues par une autre instance (question,total,correct,incorrect,anonymous)
+    @Override
+    public void invalidate(String entity, String id) {
+        if (REMOTE_ANSWERS.equals(entity)) {
+            addRemote(id);
+        } else if ("survey".equals(entity)) {
+            SurveyChannel channel = channels.get(Integer.valueOf(id));
+            if (channel != null) {
+                channel.stale = true;
+            }
+        }
+    }
+
+    // Notifications perdues : des réponses d'autres instances ont pu manquer, les totaux sont renvoyés
+    @Override
+    public void invalidateAll() {
+        channels.values().forEach(channel -> {
+            channel.stale = true;
+            channel.resync = true;
+        });
+    }
+
+    private void addToChannel(Integer questionId, AnswerCounts counts) {
+        Integer surveyId = questionSurveys.get(questionId);
+        SurveyChannel channel = surveyId == null ? null : channels.get(surveyId);
+        if (channel != null) {
+            channel.add(questionId, counts);
+        }
+    }
+
+    private void addRemote(String id) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        // Deltas abandonnés par une autre instance : totaux renvoyés aux abonnés
+        if (id.equals("*")) {
+            channels.values().forEach(channel -> channel.resync = true);
+            return;
+        }
+        String[] parts = id.split(",");
+        if (parts.length != 5) {
+            logger.debug("Delta de résultats distant illisible: {}", id);
+            return;
+        }
+        try {
+            addToChannel(Integer.valueOf(parts[0]), new AnswerCounts(Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4])));
+        } catch (NumberFormatException e) {
+            logger.debug("Delta de résultats distant illisible: {}", id);
+        }
+    }
+
+    // Un message par question touchée depuis la fenêtre précédente, quel que soit le survey : cette instance
+    // ne sait pas quels surveys sont suivis ailleurs
+    private void broadcastDeltas() {
+        InvalidationBus bus = InvalidationBus.getInstance();
+        for (Integer questionId : outbound.keySet()) {
+            AnswerCounts counts = outbound.remove(questionId);
+            if (counts != null) {
+                bus.broadcast(REMOTE_ANSWERS, questionId + "," + counts.total() + "," + counts.correct() + ","
+                        + counts.incorrect() + "," + counts.anonymous());
+            }
+        }
+    }
+
+    private void publishDeltas() {
+        try {
+            broadcastDeltas();
+            for (SurveyChannel channel : channels.values()) {
+                channel.subscribers.removeIf(Subscriber::isClosed);
+                if (channel.subscribers.isEmpty()) {
+                    removeIfUnused(channel);
+                    continue;
+                }
+                if (channel.stale) {
+                    channel.stale = false;
+                    loadQuestions(channel.surveyId);
+                }
+                if (channel.resync) {
+                    channel.resync = false;
+                    channel.drain();
+                    Map<Integer, AnswerCounts> totals = DatabaseContext.callInPool(PoolType.BACKGROUND,
+                            () -> answerRepository.countBySurveyIdGroupedByQuestion(channel.surveyId));
+                    OutboundSseEvent snapshot = event(sse, "snapshot", new AnswerStatsDelta(channel.surveyId, sum(totals), totals));
+                    channel.subscribers.forEach(subscriber -> subscriber.offer(snapshot));
+                    continue;
+                }
+                Map<Integer, AnswerCounts> questions = channel.drain();
+                if (questions == null) {
+                    continue;
+                }
+                // Sérialisé une fois pour tous les abonnés du survey
+                OutboundSseEvent event = event(sse, "delta", new AnswerStatsDelta(channel.surveyId, sum(questions), questions));
+                deltas.mark();
+                channel.subscribers.forEach(subscriber -> subscriber.offer(event));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Envoi des résultats en direct en échec: {}", e.getMessage(), e);
+        }
+    }
+
+    // Commentaire SSE périodique : détecte les clients partis et garde la connexion ouverte derrière un proxy
+    private void heartbeat() {
+        Sse current = sse;
+        if (current == null || channels.isEmpty()) {
+            return;
+        }
+        OutboundSseEvent keepAlive = current.newEventBuilder().comment("keep-alive").build();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.offer(keepAlive)));
+    }
+
+    private void loadQuestions(Integer surveyId) {
+        List<Question> questions = DatabaseContext.callInPool(PoolType.BACKGROUND,
+                () -> questionRepository.findBySurveyId(surveyId));
+        for (Question question : questions) {
+            questionSurveys.put(question.getId(), surveyId);
+        }
+    }
+
+    private void removeIfUnused(SurveyChannel channel) {
+        synchronized (channels) {
+            if (channel.subscribers.isEmpty() && channels.remove(channel.surveyId, channel)) {
+                questionSurveys.values().removeIf(channel.surveyId::equals);
+                logger.debug("Plus d'abonné au flux de résultats du survey {}", channel.surveyId);
+            }
+        }
+    }
+
+    private static AnswerCounts sum(Map<Integer, AnswerCounts> questions) {
+        return questions.values().stream().reduce(AnswerCounts.ZERO, AnswerCounts::plus);
+    }
+
+    private static OutboundSseEvent event(Sse sse, String name, AnswerStatsDelta delta) {
+        try {
+            return sse.newEventBuilder()
+                    .name(name)
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(String.class, MAPPER.writeValueAsString(delta))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation des résultats du survey " + delta.surveyId() + " impossible", e);
+        }
+    }
+
+    private static final class SurveyChannel {
+        private final Integer surveyId;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private Map<Integer, AnswerCounts> pending = new HashMap<>();
+        private volatile boolean stale;
+        private volatile boolean resync;
+
+        private SurveyChannel(Integer surveyId) {
+            this.surveyId = surveyId;
+        }
+
+        private synchronized void add(Integer questionId, AnswerCounts counts) {
+            pending.merge(questionId, counts, AnswerCounts::plus);
+        }
+
+        // null si aucune réponse depuis le dernier envoi
+        private synchronized Map<Integer, AnswerCounts> drain() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            Map<Integer, AnswerCounts> drained = pending;
+            pending = new HashMap<>();
+            return drained;
+        }
+    }
+
+    // L'écriture (éventuellement bloquante sur un client lent) se fait sur le thread virtuel de l'abonné,
+    // qui ferme aussi le flux : le thread d'envoi ne fait que déposer les événements dans la file
+    private final class Subscriber {
+        private final SseEventSink sink;
+        private final BlockingQueue<OutboundSseEvent> queue = new ArrayBlockingQueue<>(maxQueuedEvents);
+        private volatile Thread writer;
+        private volatile boolean closed;
+
+        private Subscriber(SseEventSink sink) {
+            this.sink = sink;
+        }
+
+        private void start(OutboundSseEvent initial) {
+            writer = Thread.ofVirtual().name("live-results-writer").start(() -> run(initial));
+            if (closed) {
+                writer.interrupt();
+            }
+        }
+
+        private void offer(OutboundSseEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                dropped.mark();
+                logger.info("Client trop lent sur le flux de résultats ({} événements en attente), flux fermé", queue.size());
+                close();
+            }
+        }
+
+        private boolean isClosed() {
+            return closed;
+        }
+
+        private void close() {
+            closed = true;
+            Thread current = writer;
+            if (current != null) {
+                current.interrupt();
+            }
+        }
+
+        private void run(OutboundSseEvent initial) {
+            try {
+                send(initial);
+                while (!closed) {
+                    send(queue.take());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.debug("Flux de résultats interrompu: {}", e.getMessage());
+            } finally {
+                closed = true;
+                queue.clear();
+                sink.close();
+            }
+        }
+
+        private void send(OutboundSseEvent event) throws Exception {
+            if (sink.isClosed()) {
+                throw new IllegalStateException("Flux fermé par le client");
+            }
+            sink.send(event).toCompletableFuture().get();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import fr.github.vera.repository.QuestionRepository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class QuestionService extends BaseService<Question, Integer, IQuestionRepository> {
 
@@ -74,6 +75,14 @@ public class QuestionService extends BaseService<Question, Integer, IQuestionRep
         return repository.countMandatoryBySurveyId(surveyId);
     }
 
+    public CompletableFuture<Integer> countQuestionsBySurveyAsync(Integer surveyId) {
+        return repository.countBySurveyIdAsync(surveyId);
+    }
+
+    public CompletableFuture<Integer> countMandatoryQuestionsBySurveyAsync(Integer surveyId) {
+        return repository.countMandatoryBySurveyIdAsync(surveyId);
+    }
+
     // Création avec ordre automatique
     @Override
     public Question create(Question question) {
@@ -0,0 +1,101 @@
+package fr.github.vera.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.github.vera.model.HistoryEntry;
+import fr.github.vera.model.HistoryVersion;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Reconstruit l'état d'une entité en rejouant les patchs depuis le dernier checkpoint
+// Les entrées au format historique (previous_x / new_x) sont converties à la volée
+public final class SnapshotReplayer {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PREVIOUS_PREFIX = "previous_";
+    private static final String NEW_PREFIX = "new_";
+
+    private SnapshotReplayer() {
+    }
+
+    // La chaîne doit être triée par version et commencer par un checkpoint : sans lui (partition d'historique
+    // supprimée), l'état reconstruit serait partiel et le rejeu échoue
+    public static Optional<HistoryVersion> replay(List<? extends HistoryEntry> chain) {
+        if (chain.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ObjectNode state = null;
+        for (HistoryEntry entry : chain) {
+            state = apply(state, entry.getSnapshot(), Boolean.TRUE.equals(entry.getCheckpoint()));
+        }
+
+        HistoryEntry last = chain.getLast();
+        return Optional.of(new HistoryVersion(
+                last.getVersion() == null ? 0 : last.getVersion(),
+                last.getAction(),
+                last.getIdUser(),
+                last.getCreatedAt(),
+                chain.size(),
+                state));
+    }
+
+    // Un checkpoint remplace l'état, sinon le patch est fusionné champ par champ ; state null = début de chaîne
+    static ObjectNode apply(ObjectNode state, String snapshot, boolean checkpoint) {
+        if (state == null && !checkpoint) {
+            throw new IllegalStateException("Chaîne d'historique incomplète : aucun checkpoint avant le premier patch");
+        }
+        ObjectNode patch = toPatch(snapshot);
+        if (checkpoint) {
+            return patch;
+        }
+        state.setAll(patch);
+        return state;
+    }
+
+    static ObjectNode toPatch(String snapshot) {
+        JsonNode node;
+        try {
+            node = snapshot == null ? null : MAPPER.readTree(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Snapshot d'historique illisible", e);
+        }
+        if (node == null || !node.isObject()) {
+            return MAPPER.createObjectNode();
+        }
+
+        ObjectNode object = (ObjectNode) node;
+        return isLegacy(object) ? fromLegacy(object) : object;
+    }
+
+    private static boolean isLegacy(ObjectNode node) {
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (name.startsWith(PREVIOUS_PREFIX) || name.startsWith(NEW_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // { previous_name, new_name, ..., new_status } -> { name, ..., is_active }
+    private static ObjectNode fromLegacy(ObjectNode legacy) {
+        ObjectNode patch = MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = legacy.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (name.equals("new_status")) {
+                patch.set("is_active", field.getValue());
+            } else if (name.startsWith(NEW_PREFIX)) {
+                patch.set(name.substring(NEW_PREFIX.length()), field.getValue());
+            }
+        }
+        return patch;
+    }
+}
@@ -0,0 +1,155 @@
+package fr.github.vera.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.github.vera.exception.ConflictException;
+import fr.github.vera.model.SurveyRestoreResult;
+import fr.github.vera.model.SurveyRestoreResult.FieldChange;
+import fr.github.vera.model.SurveyRestoreResult.QuestionChange;
+import fr.github.vera.repository.SurveyRestoreRepository;
+import fr.github.vera.repository.SurveyRestoreRepository.ReplayEntry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Restauration d'un survey et de ses questions à l'état d'une entrée d'historique ou d'une date
+public class SurveyRestoreService {
+    private static final Logger logger = LogManager.getLogger(SurveyRestoreService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SurveyRestoreRepository repository = new SurveyRestoreRepository();
+
+    // Toutes les entrées du même instant (même transaction) que l'entrée visée sont incluses
+    public Optional<SurveyRestoreResult> restoreToHistoryEntry(Integer surveyId, Integer historyId, boolean dryRun,
+                                                               boolean deleteAnswers) {
+        return repository.findHistoryTime(surveyId, historyId)
+                .flatMap(at -> restoreAt(surveyId, at, dryRun, deleteAnswers));
+    }
+
+    // Optional vide si le survey n'existe pas ou n'a aucune version à cette date ; supprimer une question supprime
+    // ses réponses : sans deleteAnswers, une restauration qui en supprimerait est refusée (409)
+    public Optional<SurveyRestoreResult> restoreAt(Integer surveyId, LocalDateTime at, boolean dryRun,
+                                                   boolean deleteAnswers) {
+        long start = System.nanoTime();
+        Optional<String> currentSurvey = repository.findSurveyState(surveyId);
+        if (currentSurvey.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Rejeu en un passage : état du survey et de chaque question au moment demandé
+        List<ReplayEntry> entries = repository.findReplayEntries(surveyId, at);
+        ObjectNode restoredSurvey = null;
+        Map<Integer, ObjectNode> restoredQuestions = new TreeMap<>();
+        Set<Integer> questionsWithHistory = new HashSet<>();
+        for (ReplayEntry entry : entries) {
+            if (!entry.question()) {
+                restoredSurvey = SnapshotReplayer.apply(restoredSurvey, entry.snapshot(), entry.checkpoint());
+                continue;
+            }
+            questionsWithHistory.add(entry.entityId());
+            if ("delete".equals(entry.action())) {
+                restoredQuestions.remove(entry.entityId());
+            } else {
+                restoredQuestions.put(entry.entityId(), SnapshotReplayer.apply(
+                        restoredQuestions.get(entry.entityId()), entry.snapshot(), entry.checkpoint()));
+            }
+        }
+        if (restoredSurvey == null) {
+            return Optional.empty();
+        }
+
+        // Les champs absents de l'historique (anciens formats) gardent leur valeur courante
+        ObjectNode surveyTarget = readState(currentSurvey.get()).setAll(restoredSurvey);
+        Map<String, FieldChange> surveyChanges = diff(readState(currentSurvey.get()), surveyTarget);
+
+        Map<Integer, String> currentQuestions = repository.findQuestionStates(surveyId);
+        List<QuestionChange> questionChanges = new ArrayList<>();
+        ArrayNode upserts = MAPPER.createArrayNode();
+        for (Map.Entry<Integer, ObjectNode> restored : restoredQuestions.entrySet()) {
+            Integer questionId = restored.getKey();
+            String current = currentQuestions.get(questionId);
+            ObjectNode currentState = current == null ? MAPPER.createObjectNode() : readState(current);
+            ObjectNode target = currentState.deepCopy().setAll(restored.getValue());
+            Map<String, FieldChange> fields = diff(currentState, target);
+            if (fields.isEmpty()) {
+                continue;
+            }
+            questionChanges.add(new QuestionChange(questionId, current == null ? "create" : "update", fields, 0));
+            upserts.add(target.put("id", questionId));
+        }
+        // Une question absente de l'état restauré n'est supprimée que si l'on sait qu'elle n'existait pas à la date :
+        // supprimée avant (historique rejoué) ou créée après. Sans historique (entrées retirées par la rétention),
+        // elle est conservée telle quelle et signalée
+        Set<Integer> createdAfter = repository.findQuestionsCreatedAfter(surveyId, at);
+        List<Integer> keptQuestionIds = new ArrayList<>(restoredQuestions.keySet());
+        Map<Integer, Long> answerCounts = repository.findAnswerCounts(surveyId);
+        long deletedAnswers = 0;
+        boolean hasChanges = !questionChanges.isEmpty();
+        for (Map.Entry<Integer, String> current : currentQuestions.entrySet()) {
+            if (restoredQuestions.containsKey(current.getKey())) {
+                continue;
+            }
+            if (!questionsWithHistory.contains(current.getKey()) && !createdAfter.contains(current.getKey())) {
+                keptQuestionIds.add(current.getKey());
+                questionChanges.add(new QuestionChange(current.getKey(), "untracked", Map.of(), 0));
+            } else {
+                hasChanges = true;
+                long answers = answerCounts.getOrDefault(current.getKey(), 0L);
+                deletedAnswers += answers;
+                questionChanges.add(new QuestionChange(current.getKey(), "delete",
+                        diff(readState(current.getValue()), MAPPER.createObjectNode()), answers));
+            }
+        }
+
+        boolean applied = false;
+        if (!dryRun && (!surveyChanges.isEmpty() || hasChanges)) {
+            if (deletedAnswers > 0 && !deleteAnswers) {
+                throw new ConflictException("Restore would delete " + deletedAnswers
+                        + " answer(s); pass deleteAnswers=true to confirm");
+            }
+            repository.applyRestore(surveyId,
+                    surveyChanges.isEmpty() ? null : surveyTarget.toString(),
+                    keptQuestionIds,
+                    upserts.isEmpty() ? null : upserts.toString(),
+                    deleteAnswers);
+            applied = true;
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Restauration du survey {} au {} ({}) : {} entrées rejouées, {} champs, {} questions en {} ms",
+                surveyId, at, dryRun ? "simulation" : "appliquée", entries.size(), surveyChanges.size(),
+                questionChanges.size(), durationMs);
+        return Optional.of(new SurveyRestoreResult(surveyId, at, dryRun, applied, entries.size(),
+                surveyChanges, questionChanges, deletedAnswers, durationMs));
+    }
+
+    private static ObjectNode readState(String json) {
+        try {
+            JsonNode node = MAPPER.readTree(json);
+            return node instanceof ObjectNode object ? object : MAPPER.createObjectNode();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("État courant illisible", e);
+        }
+    }
+
+    private static Map<String, FieldChange> diff(ObjectNode current, ObjectNode target) {
+        Map<String, FieldChange> changes = new TreeMap<>();
+        Set<String> fields = new TreeSet<>();
+        current.fieldNames().forEachRemaining(fields::add);
+        target.fieldNames().forEachRemaining(fields::add);
+        for (String field : fields) {
+            JsonNode before = current.has(field) ? current.get(field) : NullNode.getInstance();
+            JsonNode after = target.has(field) ? target.get(field) : NullNode.getInstance();
+            if (!before.equals(after)) {
+                changes.put(field, new FieldChange(before, after));
+            }
+        }
+        return changes;
+    }
+}
@@ -1,7 +1,14 @@
 package fr.github.vera.services;
 
+import fr.github.vera.cache.SurveyAggregateCache;
+import fr.github.vera.cache.SurveyAggregateCache.CachedSurvey;
+import fr.github.vera.database.Projection;
+import fr.github.vera.model.Question;
 import fr.github.vera.model.Survey;
+import fr.github.vera.model.SurveyAggregate;
+import fr.github.vera.repository.IQuestionRepository;
 import fr.github.vera.repository.ISurveyRepository;
+import fr.github.vera.repository.QuestionRepository;
 import fr.github.vera.repository.SurveyRepository;
 
 import java.util.List;
@@ -9,24 +16,27 @@ import java.util.Optional;
 
 public class SurveyService extends BaseService<Survey, Integer, ISurveyRepository> {
 
+    private final SurveyAggregateCache aggregateCache = SurveyAggregateCache.getInstance();
+    private final IQuestionRepository questionRepository = new QuestionRepository();
+
     public SurveyService() {
         super(new SurveyRepository());
     }
 
-    public List<Survey> getSurveysByUser(Integer userId, int limit, int offset) {
-        return repository.getSurveysByUser(userId, limit, offset);
+    public List<Survey> getSurveysByUser(Integer userId, int limit, int offset, Projection<Survey> projection) {
+        return repository.getSurveysByUser(userId, limit, offset, projection);
     }
 
-    public List<Survey> getPublicSurveys(int limit, int offset) {
-        return repository.getPublicSurveys(limit, offset);
+    public List<Survey> getPublicSurveys(int limit, int offset, Projection<Survey> projection) {
+        return repository.getPublicSurveys(limit, offset, projection);
     }
 
-    public List<Survey> getActiveSurveys(int limit, int offset) {
-        return repository.getActiveSurveys(limit, offset);
+    public List<Survey> getActiveSurveys(int limit, int offset, Projection<Survey> projection) {
+        return repository.getActiveSurveys(limit, offset, projection);
     }
 
-    public List<Survey> getQuizSurveys(int limit, int offset) {
-        return repository.getQuizSurveys(limit, offset);
+    public List<Survey> getQuizSurveys(int limit, int offset, Projection<Survey> projection) {
+        return repository.getQuizSurveys(limit, offset, projection);
     }
 
     public Survey toggleActivation(Integer id) {
@@ -45,6 +55,25 @@ public class SurveyService extends BaseService<Survey, Integer, ISurveyRepositor
         return repository.getSurveyByToken(token);
     }
 
+    // Survey et questions ordonnées d'un lien de partage, servis depuis le cache sérialisé
+    public Optional<CachedSurvey> getSurveyAggregateByToken(String token) {
+        return aggregateCache.getByToken(token, this::loadAggregate);
+    }
+
+    private SurveyAggregate loadAggregate(String token) {
+        Optional<Survey> survey = repository.getSurveyByToken(token);
+        if (survey.isEmpty()) {
+            return null;
+        }
+        List<Question> questions = questionRepository.findBySurveyIdOrdered(survey.get().getId());
+        if (survey.get().isQuiz()) {
+            // Les bonnes réponses d'un quiz ne sont jamais envoyées au répondant
+            questions.forEach(question -> question.setCorrectAnswer(null));
+        }
+        return new SurveyAggregate(survey.get(), questions,
+                repository.findContentVersion(survey.get().getId()).orElse(null));
+    }
+
     public Survey generateShareToken(Integer id) {
         return repository.generateShareToken(id);
     }
@@ -53,8 +82,8 @@ public class SurveyService extends BaseService<Survey, Integer, ISurveyRepositor
         return repository.revokeShareToken(id);
     }
 
-    public List<Survey> getSurveysByUserAndStatus(Integer userId, boolean isActive, int limit, int offset) {
-        return repository.getSurveysByUserAndStatus(userId, isActive, limit, offset);
+    public List<Survey> getSurveysByUserAndStatus(Integer userId, boolean isActive, int limit, int offset, Projection<Survey> projection) {
+        return repository.getSurveysByUserAndStatus(userId, isActive, limit, offset, projection);
     }
 
     public int countSurveysByUser(Integer userId) {
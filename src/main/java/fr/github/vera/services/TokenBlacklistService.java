@@ -1,10 +1,13 @@
 package fr.github.vera.services;
 
+import fr.github.vera.database.DatabaseContext;
+import fr.github.vera.database.PoolType;
 import fr.github.vera.model.BlacklistedToken;
 import fr.github.vera.repository.BlacklistedTokenRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Instant;
 import java.util.Date;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -17,6 +20,8 @@ public class TokenBlacklistService {
     private static final TimeUnit TIME_UNIT = TimeUnit.MINUTES;
     private final BlacklistedTokenRepository blacklistedTokenRepository;
     private final ScheduledExecutorService scheduler;
+    private volatile Instant lastPurgeAt;
+    private volatile boolean lastPurgeSucceeded = true;
 
     public TokenBlacklistService(BlacklistedTokenRepository blacklistedTokenRepository) {
         this.blacklistedTokenRepository = blacklistedTokenRepository;
@@ -31,7 +36,7 @@ public class TokenBlacklistService {
 
     private void startPurgeTask() {
         scheduler.scheduleAtFixedRate(
-                this::purgeExpiredTokens,
+                () -> DatabaseContext.runInPool(PoolType.BACKGROUND, this::purgeExpiredTokens),
                 INITIAL_DELAY,
                 PURGE_INTERVAL,
                 TIME_UNIT
@@ -55,14 +60,30 @@ public class TokenBlacklistService {
         }
     }
 
+    public boolean isRunning() {
+        return !scheduler.isShutdown();
+    }
+
+    public Instant getLastPurgeAt() {
+        return lastPurgeAt;
+    }
+
+    public boolean isLastPurgeSucceeded() {
+        return lastPurgeSucceeded;
+    }
+
     private void purgeExpiredTokens() {
         try {
             int deletedCount = blacklistedTokenRepository.cleanupExpiredTokens();
             if (deletedCount > 0) {
                 logger.info("Purged {} expired tokens from blacklist", deletedCount);
             }
+            lastPurgeSucceeded = true;
         } catch (Exception e) {
+            lastPurgeSucceeded = false;
             logger.error("Error during tokens purge", e);
+        } finally {
+            lastPurgeAt = Instant.now();
         }
     }
 
@@ -1,3 +1,6 @@
+-- Schéma de référence (ancien init.sql) : appliqué tel quel sur une base vide.
+-- Une base existante sans schema_version est marquée à cette version sans exécution (voir SchemaMigrator).
+
 -- Types ENUM
 DO $$ BEGIN
     CREATE TYPE anonymization AS ENUM ('none', 'low', 'medium', 'high');
@@ -44,7 +47,7 @@ CREATE TABLE IF NOT EXISTS question (
     description TEXT,
     id_survey INTEGER NOT NULL REFERENCES survey(id) ON DELETE CASCADE,
     is_mandatory BOOLEAN NOT NULL DEFAULT false,
-    correct_answer JSON,
+    correct_answer JSONB,
     display_order INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT NOW(),
     updated_at TIMESTAMP DEFAULT NOW()
@@ -54,31 +57,51 @@ CREATE TABLE IF NOT EXISTS answer (
     id SERIAL PRIMARY KEY,
     id_question INTEGER NOT NULL REFERENCES question(id) ON DELETE CASCADE,
     is_anonymous BOOLEAN NOT NULL,
-    original_answer JSON,
-    anonymous_answer JSON,
+    original_answer JSONB,
+    anonymous_answer JSONB,
     respondent_id VARCHAR(255) NOT NULL,
     is_correct BOOLEAN,
     submitted_at TIMESTAMP NOT NULL DEFAULT NOW()
 );
 
+-- Réponses : lecture par question, recherche par valeur (@>) via GIN jsonb_path_ops
+CREATE INDEX IF NOT EXISTS idx_answer_question ON answer(id_question);
+CREATE INDEX IF NOT EXISTS idx_answer_original_answer ON answer USING GIN (original_answer jsonb_path_ops);
+
+-- Historique partitionné par mois sur created_at (history_pYYYYMM) : la rétention détache des partitions entières
 CREATE TABLE IF NOT EXISTS history_question (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     id_question INTEGER NOT NULL REFERENCES question(id) ON DELETE CASCADE,
     id_survey INTEGER NOT NULL REFERENCES survey(id) ON DELETE CASCADE,
     action action NOT NULL,
-    snapshot JSON NOT NULL,
+    snapshot JSONB NOT NULL,
     id_user INTEGER NOT NULL REFERENCES users(id),
-    created_at TIMESTAMP NOT NULL DEFAULT NOW()
-);
+    version INTEGER NOT NULL DEFAULT 0,
+    is_checkpoint BOOLEAN NOT NULL DEFAULT false,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS history_question_default PARTITION OF history_question DEFAULT;
 
 CREATE TABLE IF NOT EXISTS history (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     id_survey INTEGER NOT NULL REFERENCES survey(id) ON DELETE CASCADE,
     action action NOT NULL,
-    snapshot JSON NOT NULL,
+    snapshot JSONB NOT NULL,
     id_user INTEGER NOT NULL REFERENCES users(id),
-    created_at TIMESTAMP NOT NULL DEFAULT NOW()
-);
+    version INTEGER NOT NULL DEFAULT 0,
+    is_checkpoint BOOLEAN NOT NULL DEFAULT false,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS history_default PARTITION OF history DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_history_survey_created_at ON history(id_survey, created_at);
+CREATE INDEX IF NOT EXISTS idx_history_question_survey_created_at ON history_question(id_survey, created_at);
+CREATE INDEX IF NOT EXISTS idx_history_survey_version ON history(id_survey, version);
+CREATE INDEX IF NOT EXISTS idx_history_question_question_version ON history_question(id_question, version);
 
 -- Table pour stocker les tokens blacklistés
 CREATE TABLE IF NOT EXISTS blacklisted_tokens (
@@ -92,6 +115,68 @@ CREATE TABLE IF NOT EXISTS blacklisted_tokens (
 CREATE INDEX IF NOT EXISTS idx_blacklisted_tokens_expires_at ON blacklisted_tokens(expires_at);
 CREATE INDEX IF NOT EXISTS idx_blacklisted_tokens_user_id ON blacklisted_tokens(user_id);
 
+-- Seaux de jetons partagés pour le rate limiting multi-instances (ratelimit.backend=postgres)
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_bucket (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    tokens DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_bucket_updated_at ON rate_limit_bucket(updated_at);
+
+-- Recharge et consomme un jeton de façon atomique (la ligne reste verrouillée jusqu'à la fin de l'appel)
+CREATE OR REPLACE FUNCTION rate_limit_take(p_key VARCHAR, p_capacity DOUBLE PRECISION, p_refill_per_second DOUBLE PRECISION)
+RETURNS TABLE(allowed BOOLEAN, remaining DOUBLE PRECISION) AS $$
+DECLARE
+    v_tokens DOUBLE PRECISION;
+BEGIN
+    INSERT INTO rate_limit_bucket AS b (bucket_key, tokens, updated_at)
+    VALUES (p_key, p_capacity, clock_timestamp())
+    ON CONFLICT (bucket_key) DO UPDATE
+        SET tokens = LEAST(p_capacity, b.tokens + EXTRACT(EPOCH FROM clock_timestamp() - b.updated_at) * p_refill_per_second),
+            updated_at = clock_timestamp()
+    RETURNING b.tokens INTO v_tokens;
+
+    IF v_tokens >= 1 THEN
+        UPDATE rate_limit_bucket SET tokens = v_tokens - 1 WHERE bucket_key = p_key;
+        RETURN QUERY SELECT TRUE, v_tokens - 1;
+    ELSE
+        RETURN QUERY SELECT FALSE, v_tokens;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Crée les partitions mensuelles manquantes de p_parent à partir du mois de p_from
+-- Les lignes déjà tombées dans la partition DEFAULT pour ces mois sont déplacées avant l'ATTACH
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_parent TEXT, p_from DATE, p_months INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_from)::date;
+    v_end DATE;
+    v_name TEXT;
+    v_created INTEGER := 0;
+BEGIN
+    FOR i IN 1..p_months LOOP
+        v_end := (v_start + INTERVAL '1 month')::date;
+        v_name := p_parent || '_p' || to_char(v_start, 'YYYYMM');
+        IF to_regclass(v_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name, p_parent);
+            EXECUTE format('WITH moved AS (DELETE FROM %I WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', p_parent || '_default', v_start, v_end, v_name);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           p_parent, v_name, v_start, v_end);
+            v_created := v_created + 1;
+        END IF;
+        v_start := v_end;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Mois précédent, mois courant et deux mois d'avance (le service de rétention maintient l'avance ensuite)
+SELECT ensure_monthly_partitions('history', (CURRENT_DATE - INTERVAL '1 month')::date, 4);
+SELECT ensure_monthly_partitions('history_question', (CURRENT_DATE - INTERVAL '1 month')::date, 4);
+
 -- Fonction générique pour updated_at
 CREATE OR REPLACE FUNCTION update_updated_at_column()
 RETURNS TRIGGER AS $$
@@ -101,16 +186,115 @@ BEGIN
 END;
 $$ language 'plpgsql';
 
+-- Snapshots d'historique : en mode 'delta' (par défaut), seuls les champs modifiés sont stockés (patch JSON)
+-- avec un checkpoint complet toutes les N versions ; le mode 'full' conserve le format previous_/new_
+-- Réglages de session posés par l'application : vera.history_snapshot_mode, vera.history_checkpoint_interval
+CREATE OR REPLACE FUNCTION history_delta_mode()
+RETURNS BOOLEAN AS $$
+    SELECT COALESCE(NULLIF(current_setting('vera.history_snapshot_mode', true), ''), 'delta') = 'delta'
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION history_checkpoint_interval()
+RETURNS INTEGER AS $$
+    SELECT GREATEST(1, COALESCE(NULLIF(current_setting('vera.history_checkpoint_interval', true), '')::int, 20))
+$$ LANGUAGE sql STABLE;
+
+-- Champs de p_new dont la valeur diffère de p_old
+CREATE OR REPLACE FUNCTION jsonb_diff(p_new JSONB, p_old JSONB)
+RETURNS JSONB AS $$
+    SELECT COALESCE(jsonb_object_agg(n.key, n.value), '{}'::jsonb)
+    FROM jsonb_each(p_new) n
+    WHERE n.value IS DISTINCT FROM p_old -> n.key
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION survey_history_state(s survey)
+RETURNS JSONB AS $$
+    SELECT jsonb_build_object(
+        'name', s.name,
+        'description', s.description,
+        'anonymization', s.anonymization,
+        'is_quiz', s.is_quiz,
+        'is_public', s.is_public,
+        'allow_editing', s.allow_editing,
+        'is_active', s.is_active
+    )
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION question_history_state(q question)
+RETURNS JSONB AS $$
+    SELECT jsonb_build_object(
+        'title', q.title,
+        'description', q.description,
+        'is_mandatory', q.is_mandatory,
+        'display_order', q.display_order,
+        'correct_answer', q.correct_answer::jsonb
+    )
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Enregistre une entrée d'historique de survey ; p_delta NULL = état complet obligatoire (création)
+CREATE OR REPLACE FUNCTION record_survey_history(p_survey_id INTEGER, p_action action, p_state JSONB,
+                                                 p_delta JSONB, p_legacy JSONB, p_user_id INTEGER)
+RETURNS VOID AS $$
+DECLARE
+    v_version INTEGER;
+    v_checkpoint BOOLEAN;
+BEGIN
+    SELECT h.version INTO v_version FROM history h
+    WHERE h.id_survey = p_survey_id ORDER BY h.version DESC LIMIT 1;
+    v_version := COALESCE(v_version, 0) + 1;
+
+    IF NOT history_delta_mode() THEN
+        INSERT INTO history (id_survey, action, snapshot, id_user, version, is_checkpoint)
+        VALUES (p_survey_id, p_action, p_legacy, p_user_id, v_version, p_delta IS NULL);
+        RETURN;
+    END IF;
+
+    v_checkpoint := p_delta IS NULL OR (v_version - 1) % history_checkpoint_interval() = 0;
+    INSERT INTO history (id_survey, action, snapshot, id_user, version, is_checkpoint)
+    VALUES (p_survey_id, p_action, CASE WHEN v_checkpoint THEN p_state ELSE p_delta END,
+            p_user_id, v_version, v_checkpoint);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_question_history(p_question_id INTEGER, p_survey_id INTEGER, p_action action,
+                                                   p_state JSONB, p_delta JSONB, p_legacy JSONB)
+RETURNS VOID AS $$
+DECLARE
+    v_version INTEGER;
+    v_checkpoint BOOLEAN;
+    v_user_id INTEGER := (SELECT id_user FROM survey WHERE id = p_survey_id);
+BEGIN
+    SELECT h.version INTO v_version FROM history_question h
+    WHERE h.id_question = p_question_id ORDER BY h.version DESC LIMIT 1;
+    v_version := COALESCE(v_version, 0) + 1;
+
+    IF NOT history_delta_mode() THEN
+        INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user, version, is_checkpoint)
+        VALUES (p_question_id, p_survey_id, p_action, p_legacy, v_user_id, v_version, p_delta IS NULL);
+        RETURN;
+    END IF;
+
+    v_checkpoint := p_delta IS NULL OR (v_version - 1) % history_checkpoint_interval() = 0;
+    INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user, version, is_checkpoint)
+    VALUES (p_question_id, p_survey_id, p_action, CASE WHEN v_checkpoint THEN p_state ELSE p_delta END,
+            v_user_id, v_version, v_checkpoint);
+END;
+$$ LANGUAGE plpgsql;
+
 -- Fonction pour historiser les modifications de survey
 CREATE OR REPLACE FUNCTION log_survey_changes()
 RETURNS TRIGGER AS $$
+DECLARE
+    v_delta JSONB;
 BEGIN
     IF (TG_OP = 'UPDATE') THEN
-        INSERT INTO history (id_survey, action, snapshot, id_user)
-        VALUES (
-            NEW.id,
-            'update',
-            json_build_object(
+        -- is_active est historisé par log_survey_status_changes
+        v_delta := jsonb_diff(survey_history_state(NEW), survey_history_state(OLD)) - 'is_active';
+        IF v_delta = '{}'::jsonb THEN
+            RETURN NEW;
+        END IF;
+        PERFORM record_survey_history(NEW.id, 'update', survey_history_state(NEW), v_delta,
+            jsonb_build_object(
                 'previous_name', OLD.name,
                 'new_name', NEW.name,
                 'previous_description', OLD.description,
@@ -124,23 +308,10 @@ BEGIN
                 'previous_allow_editing', OLD.allow_editing,
                 'new_allow_editing', NEW.allow_editing
             ),
-            NEW.id_user
-        );
+            NEW.id_user);
     ELSIF (TG_OP = 'INSERT') THEN
-        INSERT INTO history (id_survey, action, snapshot, id_user)
-        VALUES (
-            NEW.id,
-            'create',
-            json_build_object(
-                'name', NEW.name,
-                'description', NEW.description,
-                'anonymization', NEW.anonymization,
-                'is_quiz', NEW.is_quiz,
-                'is_public', NEW.is_public,
-                'allow_editing', NEW.allow_editing
-            ),
-            NEW.id_user
-        );
+        PERFORM record_survey_history(NEW.id, 'create', survey_history_state(NEW), NULL,
+            survey_history_state(NEW) - 'is_active', NEW.id_user);
     END IF;
     RETURN NEW;
 END;
@@ -149,14 +320,16 @@ $$ language 'plpgsql';
 -- Fonction pour historiser les modifications de questions
 CREATE OR REPLACE FUNCTION log_question_changes()
 RETURNS TRIGGER AS $$
+DECLARE
+    v_delta JSONB;
 BEGIN
     IF (TG_OP = 'UPDATE') THEN
-        INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user)
-        VALUES (
-            NEW.id,
-            NEW.id_survey,
-            'update',
-            json_build_object(
+        v_delta := jsonb_diff(question_history_state(NEW), question_history_state(OLD));
+        IF v_delta = '{}'::jsonb THEN
+            RETURN NEW;
+        END IF;
+        PERFORM record_question_history(NEW.id, NEW.id_survey, 'update', question_history_state(NEW), v_delta,
+            jsonb_build_object(
                 'previous_title', OLD.title,
                 'new_title', NEW.title,
                 'previous_description', OLD.description,
@@ -167,39 +340,14 @@ BEGIN
                 'new_display_order', NEW.display_order,
                 'previous_correct_answer', OLD.correct_answer,
                 'new_correct_answer', NEW.correct_answer
-            ),
-            (SELECT id_user FROM survey WHERE id = NEW.id_survey)
-        );
+            ));
     ELSIF (TG_OP = 'INSERT') THEN
-        INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user)
-        VALUES (
-            NEW.id,
-            NEW.id_survey,
-            'create',
-            json_build_object(
-                'title', NEW.title,
-                'description', NEW.description,
-                'is_mandatory', NEW.is_mandatory,
-                'display_order', NEW.display_order,
-                'correct_answer', NEW.correct_answer
-            ),
-            (SELECT id_user FROM survey WHERE id = NEW.id_survey)
-        );
+        PERFORM record_question_history(NEW.id, NEW.id_survey, 'create', question_history_state(NEW), NULL,
+            question_history_state(NEW));
     ELSIF (TG_OP = 'DELETE') THEN
-        INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user)
-        VALUES (
-            OLD.id,
-            OLD.id_survey,
-            'delete',
-            json_build_object(
-                'title', OLD.title,
-                'description', OLD.description,
-                'is_mandatory', OLD.is_mandatory,
-                'display_order', OLD.display_order,
-                'correct_answer', OLD.correct_answer
-            ),
-            (SELECT id_user FROM survey WHERE id = OLD.id_survey)
-        );
+        -- La suppression est toujours un état complet : la question peut être restaurée sans rejouer la chaîne
+        PERFORM record_question_history(OLD.id, OLD.id_survey, 'delete', question_history_state(OLD), NULL,
+            question_history_state(OLD));
     END IF;
 
     IF (TG_OP = 'DELETE') THEN
@@ -215,16 +363,12 @@ CREATE OR REPLACE FUNCTION log_survey_status_changes()
 RETURNS TRIGGER AS $$
 BEGIN
     IF (OLD.is_active IS DISTINCT FROM NEW.is_active) THEN
-        INSERT INTO history (id_survey, action, snapshot, id_user)
-        VALUES (
-            NEW.id,
-            CASE WHEN NEW.is_active THEN 'publish' ELSE 'unpublish' END,
-            json_build_object(
-                'previous_status', OLD.is_active,
-                'new_status', NEW.is_active
-            ),
-            NEW.id_user
-        );
+        PERFORM record_survey_history(NEW.id,
+            CASE WHEN NEW.is_active THEN 'publish' ELSE 'unpublish' END::action,
+            survey_history_state(NEW),
+            jsonb_build_object('is_active', NEW.is_active),
+            jsonb_build_object('previous_status', OLD.is_active, 'new_status', NEW.is_active),
+            NEW.id_user);
     END IF;
     RETURN NEW;
 END;
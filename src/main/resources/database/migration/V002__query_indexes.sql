@@ -0,0 +1,37 @@
+-- vera:no-transaction
+-- Index des requêtes du package repository (answer, question, survey, users), construits sans bloquer les écritures.
+-- Rejouable : un index laissé INVALID par un échec est supprimé puis reconstruit.
+
+-- answer : par question (tri submitted_at), par répondant, et couple répondant/question
+DROP INDEX CONCURRENTLY IF EXISTS idx_answer_question_submitted_at;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_answer_question_submitted_at ON answer(id_question, submitted_at DESC);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_answer_respondent_question;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_answer_respondent_question ON answer(respondent_id, id_question);
+
+-- Couvert par idx_answer_question_submitted_at
+DROP INDEX CONCURRENTLY IF EXISTS idx_answer_question;
+
+-- question : toutes les lectures filtrent sur id_survey et trient sur display_order, created_at
+DROP INDEX CONCURRENTLY IF EXISTS idx_question_survey_display_order;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_question_survey_display_order ON question(id_survey, display_order, created_at);
+
+-- survey : par propriétaire, puis listes publiques / actives / quiz (index partiels, tri created_at DESC)
+DROP INDEX CONCURRENTLY IF EXISTS idx_survey_user_created_at;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_survey_user_created_at ON survey(id_user, created_at DESC);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_survey_public_created_at;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_survey_public_created_at ON survey(created_at DESC)
+    WHERE is_public AND is_active;
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_survey_active_created_at;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_survey_active_created_at ON survey(created_at DESC)
+    WHERE is_active;
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_survey_quiz_created_at;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_survey_quiz_created_at ON survey(created_at DESC)
+    WHERE is_quiz AND is_active;
+
+-- users : listes paginées triées par date de création
+DROP INDEX CONCURRENTLY IF EXISTS idx_users_created_at;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created_at ON users(created_at DESC);
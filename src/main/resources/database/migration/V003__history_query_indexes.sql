@@ -0,0 +1,13 @@
+-- Index des requêtes d'historique. CREATE INDEX CONCURRENTLY n'existe pas sur une table partitionnée :
+-- construction classique (écritures d'historique bloquées le temps du build, lectures possibles).
+-- Les partitions créées ensuite par ensure_monthly_partitions reçoivent ces index à l'ATTACH.
+
+-- history : par auteur, par action, et listes récentes (tri created_at DESC)
+CREATE INDEX IF NOT EXISTS idx_history_user_created_at ON history(id_user, created_at);
+CREATE INDEX IF NOT EXISTS idx_history_action_created_at ON history(action, created_at);
+CREATE INDEX IF NOT EXISTS idx_history_created_at ON history(created_at);
+
+-- history_question : par question (tri created_at), par auteur, par action
+CREATE INDEX IF NOT EXISTS idx_history_question_question_created_at ON history_question(id_question, created_at);
+CREATE INDEX IF NOT EXISTS idx_history_question_user_created_at ON history_question(id_user, created_at);
+CREATE INDEX IF NOT EXISTS idx_history_question_action_created_at ON history_question(action, created_at);
@@ -0,0 +1,95 @@
+-- Passage de history / history_question en tables partitionnées par mois (bases créées avant le partitionnement)
+-- À exécuter une fois, application arrêtée : psql -v ON_ERROR_STOP=1 -f 001_partition_history.sql
+-- Les triggers d'historique continuent de fonctionner : ils insèrent dans la table parente
+
+BEGIN;
+
+-- Crée les partitions mensuelles manquantes de p_parent à partir du mois de p_from
+-- Les lignes déjà tombées dans la partition DEFAULT pour ces mois sont déplacées avant l'ATTACH
+CREATE OR REPLACE FUNCTION ensure_monthly_partitions(p_parent TEXT, p_from DATE, p_months INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_from)::date;
+    v_end DATE;
+    v_name TEXT;
+    v_created INTEGER := 0;
+BEGIN
+    FOR i IN 1..p_months LOOP
+        v_end := (v_start + INTERVAL '1 month')::date;
+        v_name := p_parent || '_p' || to_char(v_start, 'YYYYMM');
+        IF to_regclass(v_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name, p_parent);
+            EXECUTE format('WITH moved AS (DELETE FROM %I WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', p_parent || '_default', v_start, v_end, v_name);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           p_parent, v_name, v_start, v_end);
+            v_created := v_created + 1;
+        END IF;
+        v_start := v_end;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- history
+ALTER TABLE history RENAME TO history_legacy;
+ALTER SEQUENCE history_id_seq OWNED BY NONE;
+ALTER TABLE history_legacy ALTER COLUMN id DROP DEFAULT;
+
+CREATE TABLE history (
+    id INTEGER NOT NULL DEFAULT nextval('history_id_seq'),
+    id_survey INTEGER NOT NULL REFERENCES survey(id) ON DELETE CASCADE,
+    action action NOT NULL,
+    snapshot JSON NOT NULL,
+    id_user INTEGER NOT NULL REFERENCES users(id),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE history_id_seq OWNED BY history.id;
+
+CREATE TABLE history_default PARTITION OF history DEFAULT;
+
+SELECT ensure_monthly_partitions('history',
+       (SELECT COALESCE(MIN(created_at), NOW())::date FROM history_legacy),
+       (SELECT (EXTRACT(YEAR FROM age(date_trunc('month', NOW() + INTERVAL '2 months'),
+                                      date_trunc('month', COALESCE(MIN(created_at), NOW())))) * 12
+              + EXTRACT(MONTH FROM age(date_trunc('month', NOW() + INTERVAL '2 months'),
+                                       date_trunc('month', COALESCE(MIN(created_at), NOW())))))::int + 1
+        FROM history_legacy));
+
+INSERT INTO history SELECT * FROM history_legacy;
+DROP TABLE history_legacy;
+CREATE INDEX idx_history_survey_created_at ON history(id_survey, created_at);
+
+-- history_question
+ALTER TABLE history_question RENAME TO history_question_legacy;
+ALTER SEQUENCE history_question_id_seq OWNED BY NONE;
+ALTER TABLE history_question_legacy ALTER COLUMN id DROP DEFAULT;
+
+CREATE TABLE history_question (
+    id INTEGER NOT NULL DEFAULT nextval('history_question_id_seq'),
+    id_question INTEGER NOT NULL REFERENCES question(id) ON DELETE CASCADE,
+    id_survey INTEGER NOT NULL REFERENCES survey(id) ON DELETE CASCADE,
+    action action NOT NULL,
+    snapshot JSON NOT NULL,
+    id_user INTEGER NOT NULL REFERENCES users(id),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE history_question_id_seq OWNED BY history_question.id;
+
+CREATE TABLE history_question_default PARTITION OF history_question DEFAULT;
+
+SELECT ensure_monthly_partitions('history_question',
+       (SELECT COALESCE(MIN(created_at), NOW())::date FROM history_question_legacy),
+       (SELECT (EXTRACT(YEAR FROM age(date_trunc('month', NOW() + INTERVAL '2 months'),
+                                      date_trunc('month', COALESCE(MIN(created_at), NOW())))) * 12
+              + EXTRACT(MONTH FROM age(date_trunc('month', NOW() + INTERVAL '2 months'),
+                                       date_trunc('month', COALESCE(MIN(created_at), NOW())))))::int + 1
+        FROM history_question_legacy));
+
+INSERT INTO history_question SELECT * FROM history_question_legacy;
+DROP TABLE history_question_legacy;
+CREATE INDEX idx_history_question_survey_created_at ON history_question(id_survey, created_at);
+
+COMMIT;
@@ -0,0 +1,227 @@
+-- Passage des snapshots d'historique en JSONB avec numéros de version et checkpoints (bases existantes)
+-- À exécuter une fois, application arrêtée : psql -v ON_ERROR_STOP=1 -f 002_history_delta_snapshots.sql
+-- Les entrées existantes gardent leur format previous_/new_ : le rejeu côté application sait les convertir
+
+BEGIN;
+
+ALTER TABLE history ALTER COLUMN snapshot TYPE JSONB USING snapshot::jsonb;
+ALTER TABLE history_question ALTER COLUMN snapshot TYPE JSONB USING snapshot::jsonb;
+
+ALTER TABLE history ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE history ADD COLUMN IF NOT EXISTS is_checkpoint BOOLEAN NOT NULL DEFAULT false;
+ALTER TABLE history_question ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE history_question ADD COLUMN IF NOT EXISTS is_checkpoint BOOLEAN NOT NULL DEFAULT false;
+
+-- Numérotation chronologique par entité ; les créations servent de premiers checkpoints
+UPDATE history h
+SET version = numbered.version,
+    is_checkpoint = (h.action = 'create')
+FROM (SELECT id, created_at,
+             row_number() OVER (PARTITION BY id_survey ORDER BY created_at, id) AS version
+      FROM history) numbered
+WHERE h.id = numbered.id AND h.created_at = numbered.created_at;
+
+UPDATE history_question h
+SET version = numbered.version,
+    is_checkpoint = (h.action = 'create')
+FROM (SELECT id, created_at,
+             row_number() OVER (PARTITION BY id_question ORDER BY created_at, id) AS version
+      FROM history_question) numbered
+WHERE h.id = numbered.id AND h.created_at = numbered.created_at;
+
+CREATE INDEX IF NOT EXISTS idx_history_survey_version ON history(id_survey, version);
+CREATE INDEX IF NOT EXISTS idx_history_question_question_version ON history_question(id_question, version);
+
+-- Snapshots d'historique : en mode 'delta' (par défaut), seuls les champs modifiés sont stockés (patch JSON)
+-- avec un checkpoint complet toutes les N versions ; le mode 'full' conserve le format previous_/new_
+-- Réglages de session posés par l'application : vera.history_snapshot_mode, vera.history_checkpoint_interval
+CREATE OR REPLACE FUNCTION history_delta_mode()
+RETURNS BOOLEAN AS $$
+    SELECT COALESCE(NULLIF(current_setting('vera.history_snapshot_mode', true), ''), 'delta') = 'delta'
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION history_checkpoint_interval()
+RETURNS INTEGER AS $$
+    SELECT GREATEST(1, COALESCE(NULLIF(current_setting('vera.history_checkpoint_interval', true), '')::int, 20))
+$$ LANGUAGE sql STABLE;
+
+-- Champs de p_new dont la valeur diffère de p_old
+CREATE OR REPLACE FUNCTION jsonb_diff(p_new JSONB, p_old JSONB)
+RETURNS JSONB AS $$
+    SELECT COALESCE(jsonb_object_agg(n.key, n.value), '{}'::jsonb)
+    FROM jsonb_each(p_new) n
+    WHERE n.value IS DISTINCT FROM p_old -> n.key
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION survey_history_state(s survey)
+RETURNS JSONB AS $$
+    SELECT jsonb_build_object(
+        'name', s.name,
+        'description', s.description,
+        'anonymization', s.anonymization,
+        'is_quiz', s.is_quiz,
+        'is_public', s.is_public,
+        'allow_editing', s.allow_editing,
+        'is_active', s.is_active
+    )
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION question_history_state(q question)
+RETURNS JSONB AS $$
+    SELECT jsonb_build_object(
+        'title', q.title,
+        'description', q.description,
+        'is_mandatory', q.is_mandatory,
+        'display_order', q.display_order,
+        'correct_answer', q.correct_answer::jsonb
+    )
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Enregistre une entrée d'historique de survey ; p_delta NULL = état complet obligatoire (création)
+CREATE OR REPLACE FUNCTION record_survey_history(p_survey_id INTEGER, p_action action, p_state JSONB,
+                                                 p_delta JSONB, p_legacy JSONB, p_user_id INTEGER)
+RETURNS VOID AS $$
+DECLARE
+    v_version INTEGER;
+    v_checkpoint BOOLEAN;
+BEGIN
+    SELECT h.version INTO v_version FROM history h
+    WHERE h.id_survey = p_survey_id ORDER BY h.version DESC LIMIT 1;
+    v_version := COALESCE(v_version, 0) + 1;
+
+    IF NOT history_delta_mode() THEN
+        INSERT INTO history (id_survey, action, snapshot, id_user, version, is_checkpoint)
+        VALUES (p_survey_id, p_action, p_legacy, p_user_id, v_version, p_delta IS NULL);
+        RETURN;
+    END IF;
+
+    v_checkpoint := p_delta IS NULL OR (v_version - 1) % history_checkpoint_interval() = 0;
+    INSERT INTO history (id_survey, action, snapshot, id_user, version, is_checkpoint)
+    VALUES (p_survey_id, p_action, CASE WHEN v_checkpoint THEN p_state ELSE p_delta END,
+            p_user_id, v_version, v_checkpoint);
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_question_history(p_question_id INTEGER, p_survey_id INTEGER, p_action action,
+                                                   p_state JSONB, p_delta JSONB, p_legacy JSONB)
+RETURNS VOID AS $$
+DECLARE
+    v_version INTEGER;
+    v_checkpoint BOOLEAN;
+    v_user_id INTEGER := (SELECT id_user FROM survey WHERE id = p_survey_id);
+BEGIN
+    SELECT h.version INTO v_version FROM history_question h
+    WHERE h.id_question = p_question_id ORDER BY h.version DESC LIMIT 1;
+    v_version := COALESCE(v_version, 0) + 1;
+
+    IF NOT history_delta_mode() THEN
+        INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user, version, is_checkpoint)
+        VALUES (p_question_id, p_survey_id, p_action, p_legacy, v_user_id, v_version, p_delta IS NULL);
+        RETURN;
+    END IF;
+
+    v_checkpoint := p_delta IS NULL OR (v_version - 1) % history_checkpoint_interval() = 0;
+    INSERT INTO history_question (id_question, id_survey, action, snapshot, id_user, version, is_checkpoint)
+    VALUES (p_question_id, p_survey_id, p_action, CASE WHEN v_checkpoint THEN p_state ELSE p_delta END,
+            v_user_id, v_version, v_checkpoint);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Fonction pour historiser les modifications de survey
+CREATE OR REPLACE FUNCTION log_survey_changes()
+RETURNS TRIGGER AS $$
+DECLARE
+    v_delta JSONB;
+BEGIN
+    IF (TG_OP = 'UPDATE') THEN
+        -- is_active est historisé par log_survey_status_changes
+        v_delta := jsonb_diff(survey_history_state(NEW), survey_history_state(OLD)) - 'is_active';
+        IF v_delta = '{}'::jsonb THEN
+            RETURN NEW;
+        END IF;
+        PERFORM record_survey_history(NEW.id, 'update', survey_history_state(NEW), v_delta,
+            jsonb_build_object(
+                'previous_name', OLD.name,
+                'new_name', NEW.name,
+                'previous_description', OLD.description,
+                'new_description', NEW.description,
+                'previous_anonymization', OLD.anonymization,
+                'new_anonymization', NEW.anonymization,
+                'previous_is_quiz', OLD.is_quiz,
+                'new_is_quiz', NEW.is_quiz,
+                'previous_is_public', OLD.is_public,
+                'new_is_public', NEW.is_public,
+                'previous_allow_editing', OLD.allow_editing,
+                'new_allow_editing', NEW.allow_editing
+            ),
+            NEW.id_user);
+    ELSIF (TG_OP = 'INSERT') THEN
+        PERFORM record_survey_history(NEW.id, 'create', survey_history_state(NEW), NULL,
+            survey_history_state(NEW) - 'is_active', NEW.id_user);
+    END IF;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+-- Fonction pour historiser les modifications de questions
+CREATE OR REPLACE FUNCTION log_question_changes()
+RETURNS TRIGGER AS $$
+DECLARE
+    v_delta JSONB;
+BEGIN
+    IF (TG_OP = 'UPDATE') THEN
+        v_delta := jsonb_diff(question_history_state(NEW), question_history_state(OLD));
+        IF v_delta = '{}'::jsonb THEN
+            RETURN NEW;
+        END IF;
+        PERFORM record_question_history(NEW.id, NEW.id_survey, 'update', question_history_state(NEW), v_delta,
+            jsonb_build_object(
+                'previous_title', OLD.title,
+                'new_title', NEW.title,
+                'previous_description', OLD.description,
+                'new_description', NEW.description,
+                'previous_is_mandatory', OLD.is_mandatory,
+                'new_is_mandatory', NEW.is_mandatory,
+                'previous_display_order', OLD.display_order,
+                'new_display_order', NEW.display_order,
+                'previous_correct_answer', OLD.correct_answer,
+                'new_correct_answer', NEW.correct_answer
+            ));
+    ELSIF (TG_OP = 'INSERT') THEN
+        PERFORM record_question_history(NEW.id, NEW.id_survey, 'create', question_history_state(NEW), NULL,
+            question_history_state(NEW));
+    ELSIF (TG_OP = 'DELETE') THEN
+        -- La suppression est toujours un état complet : la question peut être restaurée sans rejouer la chaîne
+        PERFORM record_question_history(OLD.id, OLD.id_survey, 'delete', question_history_state(OLD), NULL,
+            question_history_state(OLD));
+    END IF;
+
+    IF (TG_OP = 'DELETE') THEN
+        RETURN OLD;
+    ELSE
+        RETURN NEW;
+    END IF;
+END;
+$$ language 'plpgsql';
+
+-- Fonction pour historiser la publication/dépublication
+CREATE OR REPLACE FUNCTION log_survey_status_changes()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF (OLD.is_active IS DISTINCT FROM NEW.is_active) THEN
+        PERFORM record_survey_history(NEW.id,
+            CASE WHEN NEW.is_active THEN 'publish' ELSE 'unpublish' END::action,
+            survey_history_state(NEW),
+            jsonb_build_object('is_active', NEW.is_active),
+            jsonb_build_object('previous_status', OLD.is_active, 'new_status', NEW.is_active),
+            NEW.id_user);
+    END IF;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+
+ANALYZE history;
+ANALYZE history_question;
+
+COMMIT;
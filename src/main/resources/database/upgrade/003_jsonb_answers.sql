@@ -0,0 +1,19 @@
+-- Passage des colonnes JSON en JSONB (réponses, bonne réponse) et index de recherche par valeur
+-- À exécuter une fois, application arrêtée : psql -v ON_ERROR_STOP=1 -f 003_jsonb_answers.sql
+-- La réécriture des tables prend un verrou exclusif : prévoir une fenêtre de maintenance sur les gros volumes
+
+BEGIN;
+
+ALTER TABLE question ALTER COLUMN correct_answer TYPE JSONB USING correct_answer::jsonb;
+
+ALTER TABLE answer
+    ALTER COLUMN original_answer TYPE JSONB USING original_answer::jsonb,
+    ALTER COLUMN anonymous_answer TYPE JSONB USING anonymous_answer::jsonb;
+
+CREATE INDEX IF NOT EXISTS idx_answer_question ON answer(id_question);
+CREATE INDEX IF NOT EXISTS idx_answer_original_answer ON answer USING GIN (original_answer jsonb_path_ops);
+
+ANALYZE question;
+ANALYZE answer;
+
+COMMIT;